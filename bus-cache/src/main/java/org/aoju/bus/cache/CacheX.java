@@ -24,6 +24,8 @@
  ********************************************************************************/
 package org.aoju.bus.cache;
 
+import org.aoju.bus.cache.magic.CacheExpire;
+
 import java.util.Collection;
 import java.util.Map;
 
@@ -79,6 +81,16 @@ public interface CacheX {
      */
     void remove(String... keys);
 
+    /**
+     * 获取键的剩余有效期
+     *
+     * @param key 键
+     * @return 剩余毫秒数, {@link CacheExpire#FOREVER}表示永不过期, {@link CacheExpire#NO}表示键不存在或不支持查询
+     */
+    default long ttl(String key) {
+        return CacheExpire.NO;
+    }
+
     /**
      * 清空缓存信息
      */
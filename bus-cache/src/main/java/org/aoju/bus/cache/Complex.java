@@ -64,6 +64,10 @@ public class Complex {
     @Named("multiCacheReader")
     private AbstractReader multiCacheReader;
 
+    @Inject
+    @Named("asyncCacheReader")
+    private AbstractReader asyncCacheReader;
+
     public static boolean isSwitchOn(Context config, Cached cached, Method method, Object[] args) {
         return doIsSwitchOn(config.getCache() == Context.Switch.ON,
                 cached.expire(), cached.condition(),
@@ -125,12 +129,15 @@ public class Complex {
             if (annoHolder.isMulti()) {
                 Map[] pair = KeyGenerator.generateMultiKey(annoHolder, args);
                 Set<String> keys = ((Map<String, Object>) pair[1]).keySet();
-                cacheManager.remove(invalid.value(), keys.toArray(new String[keys.size()]));
+                String[] keyArray = keys.toArray(new String[keys.size()]);
+                cacheManager.remove(invalid.value(), keyArray);
+                singleCacheReader.invalidate(keyArray);
 
                 Logger.info("multi cache clear, keys: {}", keys);
             } else {
                 String key = KeyGenerator.generateSingleKey(annoHolder, args);
                 cacheManager.remove(invalid.value(), key);
+                singleCacheReader.invalidate(key);
 
                 Logger.info("single cache clear, key: {}", key);
             }
@@ -147,7 +154,9 @@ public class Complex {
         MethodHolder methodHolder = pair.getRight();
 
         Object result;
-        if (annoHolder.isMulti()) {
+        if (methodHolder.isAsync()) {
+            result = asyncCacheReader.read(annoHolder, methodHolder, baseInvoker, needWrite);
+        } else if (annoHolder.isMulti()) {
             result = multiCacheReader.read(annoHolder, methodHolder, baseInvoker, needWrite);
         } else {
             result = singleCacheReader.read(annoHolder, methodHolder, baseInvoker, needWrite);
@@ -25,6 +25,7 @@
 package org.aoju.bus.cache;
 
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 /**
  * @author Kimi Liu
@@ -45,6 +46,15 @@ public class Context {
     // 是否开启缓存防击穿
     private Switch prevent;
 
+    // multi方法分片加载使用的线程池, 为空时在调用线程内依次加载
+    private ExecutorService executor;
+
+    // 提前刷新(refresh-ahead)使用的线程池, 为空时使用内置的有界线程池
+    private ExecutorService refresher;
+
+    // 异步方法未命中时调用方法使用的线程池, 为空时使用内置的线程池
+    private ExecutorService loader;
+
     public static Context newConfig(Map<String, CacheX> caches) {
         Context config = new Context();
         config.caches = caches;
@@ -90,6 +100,30 @@ public class Context {
         this.prevent = prevent;
     }
 
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public ExecutorService getRefresher() {
+        return refresher;
+    }
+
+    public void setRefresher(ExecutorService refresher) {
+        this.refresher = refresher;
+    }
+
+    public ExecutorService getLoader() {
+        return loader;
+    }
+
+    public void setLoader(ExecutorService loader) {
+        this.loader = loader;
+    }
+
     public enum Switch {
         ON,
         OFF
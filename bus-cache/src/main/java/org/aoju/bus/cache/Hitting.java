@@ -39,6 +39,26 @@ public interface Hitting {
 
     void hitIncr(String pattern, int count);
 
+    /**
+     * 记录未命中后等待同一key在途加载(single-flight)的次数
+     *
+     * @param pattern 分组模板
+     * @param count   次数
+     */
+    default void coalesceIncr(String pattern, int count) {
+        // 默认不统计
+    }
+
+    /**
+     * 记录未命中后调用方法加载的耗时
+     *
+     * @param pattern 分组模板
+     * @param nanos   耗时(纳秒)
+     */
+    default void loadRecord(String pattern, long nanos) {
+        // 默认不统计
+    }
+
     Map<String, HittingDO> getHitting();
 
     void reset(String pattern);
@@ -57,24 +77,32 @@ public interface Hitting {
 
         private String rate;
 
-        private HittingDO(long hit, long required, String rate) {
+        private long coalesced;
+
+        private HittingDO(long hit, long required, String rate, long coalesced) {
             this.hit = hit;
             this.required = required;
             this.rate = rate;
+            this.coalesced = coalesced;
         }
 
         public static HittingDO newInstance(long hit, long required) {
+            return newInstance(hit, required, 0);
+        }
+
+        public static HittingDO newInstance(long hit, long required, long coalesced) {
             double rate = (required == 0 ? 0.0 : hit * 100.0 / required);
             String rateStr = String.format("%.1f%s", rate, Symbol.PERCENT);
 
-            return new HittingDO(hit, required, rateStr);
+            return new HittingDO(hit, required, rateStr, coalesced);
         }
 
         public static HittingDO mergeShootingDO(HittingDO do1, HittingDO do2) {
             long hit = do1.getHit() + do2.getHit();
             long required = do1.getRequired() + do2.getRequired();
+            long coalesced = do1.getCoalesced() + do2.getCoalesced();
 
-            return newInstance(hit, required);
+            return newInstance(hit, required, coalesced);
         }
 
         public long getHit() {
@@ -88,6 +116,10 @@ public interface Hitting {
         public String getRate() {
             return rate;
         }
+
+        public long getCoalesced() {
+            return coalesced;
+        }
     }
 
 }
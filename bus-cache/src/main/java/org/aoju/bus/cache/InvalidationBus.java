@@ -0,0 +1,66 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * 缓存失效通知总线
+ * <p>
+ * 多级缓存中本地缓存的失效通过总线广播给其他节点, 实现需忽略本节点发出的通知
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+public interface InvalidationBus {
+
+    /**
+     * 清空全部的标记, 作为唯一的key广播时表示清空全部本地缓存
+     */
+    String CLEAR_ALL = "\u0000*";
+
+    /**
+     * 广播失效的key
+     *
+     * @param keys 键, 仅包含{@link #CLEAR_ALL}时表示清空全部, 为空时不广播
+     */
+    void publish(String... keys);
+
+    /**
+     * 订阅其他节点广播的失效通知
+     *
+     * @param listener 失效的key, 仅包含{@link #CLEAR_ALL}时表示清空全部
+     */
+    void subscribe(Consumer<String[]> listener);
+
+    /**
+     * 关闭总线
+     */
+    default void close() {
+        // 默认无需释放资源
+    }
+
+}
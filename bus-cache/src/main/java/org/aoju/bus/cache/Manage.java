@@ -26,14 +26,19 @@ package org.aoju.bus.cache;
 
 import org.aoju.bus.cache.magic.CacheKeys;
 import org.aoju.bus.cache.magic.CachePair;
+import org.aoju.bus.cache.metric.AsyncCacheAdapter;
 import org.aoju.bus.core.annotation.Inject;
 import org.aoju.bus.core.annotation.Singleton;
 import org.aoju.bus.core.lang.exception.InstrumentException;
 import org.aoju.bus.core.toolkit.StringKit;
+import org.aoju.bus.logger.Log;
+import org.aoju.bus.logger.LogFactory;
 import org.aoju.bus.logger.Logger;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * @author Kimi Liu
@@ -43,11 +48,22 @@ import java.util.concurrent.ConcurrentHashMap;
 @Singleton
 public class Manage {
 
+    private static final Log log = LogFactory.get(Manage.class);
+
+    // 耗时日志采样率
+    private static final int SAMPLE_RATE = 1000;
+
+    // 慢操作阈值(毫秒), 超过时总是输出
+    private static final long SLOW_COST = 100L;
+
     // defaultCache和cachePool直接使用Pair实现, 减小new Object的损耗
     private CachePair<String, CacheX> defaultCache;
 
     private Map<String, CachePair<String, CacheX>> cachePool = new ConcurrentHashMap<>();
 
+    // 缓存实现对应的异步实现
+    private Map<String, AsyncCacheX> asyncPool = new ConcurrentHashMap<>();
+
     @Inject
     public void setCachePool(Map<String, CacheX> caches) {
         // default cache impl
@@ -63,9 +79,7 @@ public class Manage {
 
             long start = System.currentTimeMillis();
             Object result = cacheImpl.getRight().read(key);
-            Logger.info("cache [{}] read single cost: [{}] ms",
-                    cacheImpl.getLeft(),
-                    (System.currentTimeMillis() - start));
+            logCost("read single", cacheImpl.getLeft(), start);
 
             return result;
         } catch (Throwable e) {
@@ -81,9 +95,7 @@ public class Manage {
 
                 long start = System.currentTimeMillis();
                 cacheImpl.getRight().write(key, value, expire);
-                Logger.info("cache [{}] write single cost: [{}] ms",
-                        cacheImpl.getLeft(),
-                        (System.currentTimeMillis() - start));
+                logCost("write single", cacheImpl.getLeft(), start);
 
             } catch (Throwable e) {
                 Logger.error("write single cache failed, key: {} ", key, e);
@@ -91,6 +103,41 @@ public class Manage {
         }
     }
 
+    public CompletableFuture<Object> readSingleAsync(String cache, String key) {
+        try {
+            CachePair<String, CacheX> cacheImpl = getCacheImpl(cache);
+
+            long start = System.currentTimeMillis();
+            return getAsyncCacheImpl(cacheImpl).readAsync(key).handle((result, e) -> {
+                if (e != null) {
+                    Logger.error("read single cache async failed, key: {} ", key, e);
+                    return null;
+                }
+                logCost("read single async", cacheImpl.getLeft(), start);
+                return result;
+            });
+        } catch (Throwable e) {
+            Logger.error("read single cache async failed, key: {} ", key, e);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    public CompletableFuture<Void> writeSingleAsync(String cache, String key, Object value, int expire) {
+        if (value != null) {
+            try {
+                CachePair<String, CacheX> cacheImpl = getCacheImpl(cache);
+
+                return getAsyncCacheImpl(cacheImpl).writeAsync(key, value, expire).exceptionally(e -> {
+                    Logger.error("write single cache async failed, key: {} ", key, e);
+                    return null;
+                });
+            } catch (Throwable e) {
+                Logger.error("write single cache async failed, key: {} ", key, e);
+            }
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
     public CacheKeys readBatch(String cache, Collection<String> keys) {
         CacheKeys cacheKeys;
         if (keys.isEmpty()) {
@@ -101,9 +148,7 @@ public class Manage {
 
                 long start = System.currentTimeMillis();
                 Map<String, Object> cacheMap = cacheImpl.getRight().read(keys);
-                Logger.info("cache [{}] read batch cost: [{}] ms",
-                        cacheImpl.getLeft(),
-                        (System.currentTimeMillis() - start));
+                logCost("read batch", cacheImpl.getLeft(), start);
 
                 // collect not nit keys, keep order when full shooting
                 Map<String, Object> hitValueMap = new LinkedHashMap<>();
@@ -134,9 +179,7 @@ public class Manage {
 
             long start = System.currentTimeMillis();
             cacheImpl.getRight().write(keyValueMap, expire);
-            Logger.info("cache [{}] write batch cost: [{}] ms",
-                    cacheImpl.getLeft(),
-                    (System.currentTimeMillis() - start));
+            logCost("write batch", cacheImpl.getLeft(), start);
 
         } catch (Exception e) {
             Logger.error("write map multi cache failed, keys: {}", keyValueMap.keySet(), e);
@@ -150,9 +193,7 @@ public class Manage {
 
                 long start = System.currentTimeMillis();
                 cacheImpl.getRight().remove(keys);
-                Logger.info("cache [{}] remove cost: [{}] ms",
-                        cacheImpl.getLeft(),
-                        (System.currentTimeMillis() - start));
+                logCost("remove", cacheImpl.getLeft(), start);
 
             } catch (Throwable e) {
                 Logger.error("remove cache failed, keys: {}: ", keys, e);
@@ -160,6 +201,26 @@ public class Manage {
         }
     }
 
+    /**
+     * 耗时超过阈值时告警, 否则按采样率输出, 避免每次缓存操作都格式化日志
+     */
+    private static void logCost(String operation, String cache, long start) {
+        long cost = System.currentTimeMillis() - start;
+        if (cost >= SLOW_COST) {
+            log.warn("cache [{}] {} slow cost: [{}] ms", cache, operation, cost);
+        } else if (log.isInfo() && ThreadLocalRandom.current().nextInt(SAMPLE_RATE) == 0) {
+            log.info("cache [{}] {} cost: [{}] ms (sampled 1/{})", cache, operation, cost, SAMPLE_RATE);
+        }
+    }
+
+    private AsyncCacheX getAsyncCacheImpl(CachePair<String, CacheX> cacheImpl) {
+        AsyncCacheX asyncCache = asyncPool.get(cacheImpl.getLeft());
+        if (asyncCache == null) {
+            asyncCache = asyncPool.computeIfAbsent(cacheImpl.getLeft(), (key) -> AsyncCacheAdapter.of(cacheImpl.getRight()));
+        }
+        return asyncCache;
+    }
+
     private CachePair<String, CacheX> getCacheImpl(String cacheName) {
         if (StringKit.isEmpty(cacheName)) {
             return defaultCache;
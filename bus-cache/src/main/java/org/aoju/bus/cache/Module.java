@@ -31,6 +31,7 @@ import com.google.inject.Injector;
 import com.google.inject.multibindings.MapBinder;
 import com.google.inject.name.Names;
 import org.aoju.bus.cache.magic.AbstractReader;
+import org.aoju.bus.cache.magic.AsyncCacheReader;
 import org.aoju.bus.cache.magic.MultiCacheReader;
 import org.aoju.bus.cache.magic.SingleCacheReader;
 import org.aoju.bus.core.toolkit.CollKit;
@@ -82,6 +83,7 @@ public class Module extends AbstractModule {
 
         bind(AbstractReader.class).annotatedWith(Names.named("singleCacheReader")).to(SingleCacheReader.class);
         bind(AbstractReader.class).annotatedWith(Names.named("multiCacheReader")).to(MultiCacheReader.class);
+        bind(AbstractReader.class).annotatedWith(Names.named("asyncCacheReader")).to(AsyncCacheReader.class);
     }
 
 }
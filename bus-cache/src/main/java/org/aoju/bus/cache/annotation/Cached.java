@@ -63,4 +63,36 @@ public @interface Cached {
      */
     int expire() default CacheExpire.FOREVER;
 
+    /**
+     * @return whether concurrent misses on the same key are coalesced (<b>single-flight</b>),
+     * only one caller invokes the {@code Method}, the others wait and share its result or exception
+     */
+    boolean coalesce() default false;
+
+    /**
+     * @return how long a coalesced caller waits for the in-flight load, time unit: <b>milliseconds</b>,
+     * once elapsed the caller invokes the {@code Method} by itself
+     */
+    int coalesceTimeout() default CacheExpire.FIVE_SEC;
+
+    /**
+     * @return when {@code coalesce} is on, whether a coalesced caller returns the last loaded value
+     * immediately instead of waiting for the in-flight load (<b>stale-while-revalidate</b>)
+     */
+    boolean staleWhileRevalidate() default false;
+
+    /**
+     * @return for <b>multi</b> methods, the max count of missed keys passed to one {@code Method} invocation,
+     * larger miss sets are split into chunks (loaded in parallel when an executor is configured),
+     * {@code 0} means no split
+     */
+    int batchSize() default 0;
+
+    /**
+     * @return ratio of {@code expire} after which a hit entry is reloaded in background (<b>refresh-ahead</b>),
+     * e.g. {@code 0.8} reloads once 80% of the expire time has passed while still returning the cached value,
+     * {@code 0} means disabled, only takes effect on non-multi methods with an {@code expire}
+     */
+    float refreshAhead() default 0;
+
 }
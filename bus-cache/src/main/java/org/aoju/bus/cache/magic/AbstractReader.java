@@ -24,9 +24,14 @@
  ********************************************************************************/
 package org.aoju.bus.cache.magic;
 
-import org.aoju.bus.logger.Logger;
+import org.aoju.bus.cache.Hitting;
+import org.aoju.bus.cache.support.PatternGenerator;
+import org.aoju.bus.logger.Log;
+import org.aoju.bus.logger.LogFactory;
 import org.aoju.bus.proxy.invoker.ProxyChain;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * @author Kimi Liu
  * @version 6.0.8
@@ -36,12 +41,39 @@ public abstract class AbstractReader {
 
     public abstract Object read(AnnoHolder annoHolder, MethodHolder methodHolder, ProxyChain baseInvoker, boolean needWrite) throws Throwable;
 
+    private static final Log log = LogFactory.get(AbstractReader.class);
+
+    /**
+     * 缓存被删除后调用, 清理读取器自身保留的数据(如旧值)
+     *
+     * @param keys 被删除的缓存key
+     */
+    public void invalidate(String... keys) {
+    }
+
     Object doLogInvoke(ThrowableSupplier<Object> throwableSupplier) throws Throwable {
-        long start = System.currentTimeMillis();
+        return doLogInvoke(throwableSupplier, null, null);
+    }
+
+    /**
+     * 调用方法并记录加载耗时
+     */
+    Object doLogInvoke(ThrowableSupplier<Object> throwableSupplier, Hitting hitting, AnnoHolder annoHolder) throws Throwable {
+        long start = System.nanoTime();
         try {
             return throwableSupplier.get();
         } finally {
-            Logger.debug("method invoke total cost [{}] ms", (System.currentTimeMillis() - start));
+            doRecordLoad(hitting, annoHolder, start);
+        }
+    }
+
+    void doRecordLoad(Hitting hitting, AnnoHolder annoHolder, long start) {
+        long cost = System.nanoTime() - start;
+        if (log.isDebug()) {
+            log.debug("method invoke total cost [{}] ms", TimeUnit.NANOSECONDS.toMillis(cost));
+        }
+        if (hitting != null && annoHolder != null) {
+            hitting.loadRecord(PatternGenerator.generatePattern(annoHolder), cost);
         }
     }
 
@@ -50,4 +82,9 @@ public abstract class AbstractReader {
         T get() throws Throwable;
     }
 
+    @FunctionalInterface
+    protected interface ThrowableFunction<T, R> {
+        R apply(T t) throws Throwable;
+    }
+
 }
@@ -25,6 +25,7 @@
 package org.aoju.bus.cache.magic;
 
 import org.aoju.bus.cache.annotation.CacheKey;
+import org.aoju.bus.cache.support.KeyPlan;
 
 import java.lang.reflect.Method;
 import java.util.Map;
@@ -50,9 +51,25 @@ public class AnnoHolder {
 
     private String id;
 
+    // 合并并发未命中(single-flight)
+    private boolean coalesce;
+    private int coalesceTimeout;
+    private boolean staleWhileRevalidate;
+
+    // multi方法未命中key的分片大小
+    private int batchSize;
+
+    // 提前刷新的过期时间比例
+    private float refreshAhead;
+
+    // 预编译的key拼装计划
+    private KeyPlan keyPlan;
+
     private AnnoHolder(Method method,
                        String cache, String prefix, int expire,
-                       Map<Integer, CacheKey> cacheKeyMap, int multiIndex, String id) {
+                       Map<Integer, CacheKey> cacheKeyMap, int multiIndex, String id,
+                       boolean coalesce, int coalesceTimeout, boolean staleWhileRevalidate, int batchSize,
+                       float refreshAhead) {
         this.method = method;
         this.cache = cache;
         this.prefix = prefix;
@@ -60,6 +77,11 @@ public class AnnoHolder {
         this.cacheKeyMap = cacheKeyMap;
         this.multiIndex = multiIndex;
         this.id = id;
+        this.coalesce = coalesce;
+        this.coalesceTimeout = coalesceTimeout;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.batchSize = batchSize;
+        this.refreshAhead = refreshAhead;
     }
 
     public Method getMethod() {
@@ -94,6 +116,34 @@ public class AnnoHolder {
         return id;
     }
 
+    public boolean isCoalesce() {
+        return coalesce;
+    }
+
+    public int getCoalesceTimeout() {
+        return coalesceTimeout;
+    }
+
+    public boolean isStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public float getRefreshAhead() {
+        return refreshAhead;
+    }
+
+    public KeyPlan getKeyPlan() {
+        return keyPlan;
+    }
+
+    public void setKeyPlan(KeyPlan keyPlan) {
+        this.keyPlan = keyPlan;
+    }
+
     public static class Builder {
 
         private Method method;
@@ -110,6 +160,16 @@ public class AnnoHolder {
 
         private String id;
 
+        private boolean coalesce;
+
+        private int coalesceTimeout;
+
+        private boolean staleWhileRevalidate;
+
+        private int batchSize;
+
+        private float refreshAhead;
+
         private Builder(Method method) {
             this.method = method;
         }
@@ -148,8 +208,34 @@ public class AnnoHolder {
             return this;
         }
 
+        public Builder setCoalesce(boolean coalesce) {
+            this.coalesce = coalesce;
+            return this;
+        }
+
+        public Builder setCoalesceTimeout(int coalesceTimeout) {
+            this.coalesceTimeout = coalesceTimeout;
+            return this;
+        }
+
+        public Builder setStaleWhileRevalidate(boolean staleWhileRevalidate) {
+            this.staleWhileRevalidate = staleWhileRevalidate;
+            return this;
+        }
+
+        public Builder setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public Builder setRefreshAhead(float refreshAhead) {
+            this.refreshAhead = refreshAhead;
+            return this;
+        }
+
         public AnnoHolder build() {
-            return new AnnoHolder(method, cache, prefix, expire, cacheKeyMap, multiIndex, id);
+            return new AnnoHolder(method, cache, prefix, expire, cacheKeyMap, multiIndex, id,
+                    coalesce, coalesceTimeout, staleWhileRevalidate, batchSize, refreshAhead);
         }
     }
 
@@ -0,0 +1,191 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.cache.magic;
+
+import org.aoju.bus.cache.Context;
+import org.aoju.bus.cache.Hitting;
+import org.aoju.bus.cache.Manage;
+import org.aoju.bus.cache.support.KeyGenerator;
+import org.aoju.bus.cache.support.PatternGenerator;
+import org.aoju.bus.cache.support.PreventObjects;
+import org.aoju.bus.core.annotation.Inject;
+import org.aoju.bus.core.annotation.Singleton;
+import org.aoju.bus.core.thread.NamedThreadFactory;
+import org.aoju.bus.logger.Log;
+import org.aoju.bus.logger.LogFactory;
+import org.aoju.bus.proxy.invoker.ProxyChain;
+
+import java.util.concurrent.*;
+
+/**
+ * 返回{@link CompletableFuture}的方法缓存读取
+ * <p>
+ * 通过异步缓存读取, 未命中时调用方法并在其完成后写入缓存, 整个过程不阻塞调用线程;
+ * 缓存读取在缓存的I/O线程上完成, 方法调用切换到独立的加载线程池, 避免阻塞的方法体占用缓存线程
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+@Singleton
+public class AsyncCacheReader extends AbstractReader {
+
+    private static final Log log = LogFactory.get(AsyncCacheReader.class);
+
+    @Inject
+    private Manage cacheManager;
+
+    @Inject
+    private Context config;
+
+    @Inject(optional = true)
+    private Hitting baseHitting;
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private volatile ExecutorService defaultLoader;
+
+    @Override
+    public Object read(AnnoHolder annoHolder, MethodHolder methodHolder, ProxyChain baseInvoker, boolean needWrite) throws Throwable {
+        String key = KeyGenerator.generateSingleKey(annoHolder, baseInvoker.getArguments());
+        return cacheManager.readSingleAsync(annoHolder.getCache(), key).thenCompose(readResult -> {
+            doRecord(readResult, key, annoHolder);
+            // 命中
+            if (readResult != null) {
+                return CompletableFuture.completedFuture(PreventObjects.isPrevent(readResult) ? null : readResult);
+            }
+
+            // not hit
+            if (annoHolder.isCoalesce()) {
+                // 同一key的并发未命中共享同一次方法调用
+                CompletableFuture<Object> future = new CompletableFuture<>();
+                CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+                if (existing != null) {
+                    doRecordCoalesce(annoHolder);
+                    return existing;
+                }
+
+                loadAsync(annoHolder, methodHolder, baseInvoker, key, needWrite).whenComplete((value, e) -> {
+                    inFlight.remove(key, future);
+                    if (e != null) {
+                        future.completeExceptionally(e);
+                    } else {
+                        future.complete(value);
+                    }
+                });
+                return future;
+            }
+
+            return loadAsync(annoHolder, methodHolder, baseInvoker, key, needWrite);
+        });
+    }
+
+    /**
+     * 在加载线程池中调用方法, 不占用完成缓存读取的线程
+     */
+    private CompletableFuture<Object> loadAsync(AnnoHolder annoHolder, MethodHolder methodHolder, ProxyChain baseInvoker,
+                                                String key, boolean needWrite) {
+        return CompletableFuture.completedFuture(key)
+                .thenComposeAsync(k -> doLoad(annoHolder, methodHolder, baseInvoker, k, needWrite), loader());
+    }
+
+    private ExecutorService loader() {
+        ExecutorService loader = config.getLoader();
+        if (null != loader) {
+            return loader;
+        }
+        loader = defaultLoader;
+        if (null == loader) {
+            synchronized (this) {
+                loader = defaultLoader;
+                if (null == loader) {
+                    // 方法体可能阻塞, 使用无界队列排队而不是回退到调用线程
+                    int threads = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(),
+                            new NamedThreadFactory("cache:loader-", true));
+                    pool.allowCoreThreadTimeOut(true);
+                    loader = defaultLoader = pool;
+                }
+            }
+        }
+        return loader;
+    }
+
+    private CompletableFuture<Object> doLoad(AnnoHolder annoHolder, MethodHolder methodHolder, ProxyChain baseInvoker,
+                                             String key, boolean needWrite) {
+        // invoke method
+        long start = System.nanoTime();
+        CompletableFuture<?> invokeResult;
+        try {
+            invokeResult = (CompletableFuture<?>) doLogInvoke(baseInvoker::proceed);
+        } catch (Throwable e) {
+            CompletableFuture<Object> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        if (invokeResult == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return invokeResult.thenApply(value -> {
+            doRecordLoad(baseHitting, annoHolder, start);
+            if (value != null && methodHolder.getInnerReturnType() == null) {
+                methodHolder.setInnerReturnType(value.getClass());
+            }
+
+            if (needWrite) {
+                if (value != null) {
+                    cacheManager.writeSingleAsync(annoHolder.getCache(), key, value, annoHolder.getExpire());
+                } else if (config.isPreventOn()) {
+                    cacheManager.writeSingleAsync(annoHolder.getCache(), key, PreventObjects.getPreventObject(), annoHolder.getExpire());
+                }
+            }
+            return value;
+        });
+    }
+
+    private void doRecord(Object result, String key, AnnoHolder annoHolder) {
+        if (log.isDebug()) {
+            log.debug("async cache hit rate: {}/1, key: {}", result == null ? 0 : 1, key);
+        }
+        if (this.baseHitting != null) {
+            String pattern = PatternGenerator.generatePattern(annoHolder);
+
+            if (result != null) {
+                this.baseHitting.hitIncr(pattern, 1);
+            }
+            this.baseHitting.reqIncr(pattern, 1);
+        }
+    }
+
+    private void doRecordCoalesce(AnnoHolder annoHolder) {
+        if (this.baseHitting != null) {
+            this.baseHitting.coalesceIncr(PatternGenerator.generatePattern(annoHolder), 1);
+        }
+    }
+
+}
@@ -40,6 +40,9 @@ public class MethodHolder {
 
     private boolean collection;
 
+    // 方法返回CompletableFuture, 缓存其完成后的值
+    private boolean async;
+
     public MethodHolder(boolean collection) {
         this.collection = collection;
     }
@@ -48,6 +51,14 @@ public class MethodHolder {
         return collection;
     }
 
+    public boolean isAsync() {
+        return async;
+    }
+
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
     public Class<?> getReturnType() {
         return returnType;
     }
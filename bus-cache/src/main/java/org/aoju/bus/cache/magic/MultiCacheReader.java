@@ -30,10 +30,14 @@ import org.aoju.bus.cache.Manage;
 import org.aoju.bus.cache.support.*;
 import org.aoju.bus.core.annotation.Inject;
 import org.aoju.bus.core.annotation.Singleton;
-import org.aoju.bus.logger.Logger;
+import org.aoju.bus.logger.Log;
+import org.aoju.bus.logger.LogFactory;
 import org.aoju.bus.proxy.invoker.ProxyChain;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 /**
@@ -44,6 +48,8 @@ import java.util.stream.Collectors;
 @Singleton
 public class MultiCacheReader extends AbstractReader {
 
+    private static final Log log = LogFactory.get(MultiCacheReader.class);
+
     @Inject
     private Manage cacheManager;
 
@@ -53,6 +59,8 @@ public class MultiCacheReader extends AbstractReader {
     @Inject(optional = true)
     private Hitting baseHitting;
 
+    private final SingleFlight singleFlight = new SingleFlight();
+
     private static Map mergeMap(Class<?> resultMapType,
                                 Map proceedEntryValueMap,
                                 Map<String, Object> key2MultiEntry,
@@ -131,7 +139,11 @@ public class MultiCacheReader extends AbstractReader {
         Object result;
         // have miss keys : part hit || all not hit
         if (!cacheKeys.getMissKeySet().isEmpty()) {
-            result = handlePartHit(baseInvoker, cacheKeys, annoHolder, methodHolder, pair, needWrite);
+            if (annoHolder.isCoalesce() || annoHolder.getBatchSize() > 0) {
+                result = handlePartLoad(baseInvoker, cacheKeys, annoHolder, methodHolder, pair, needWrite);
+            } else {
+                result = handlePartHit(baseInvoker, cacheKeys, annoHolder, methodHolder, pair, needWrite);
+            }
         }
         // no miss keys : all hit || empty key
         else {
@@ -154,7 +166,7 @@ public class MultiCacheReader extends AbstractReader {
 
         // 用未命中的keys调用方法
         Object[] missArgs = toMissArgs(missKeys, key2MultiEntry, baseInvoker.getArguments(), annoHolder.getMultiIndex());
-        Object proceed = doLogInvoke(() -> baseInvoker.proceed(missArgs));
+        Object proceed = doLogInvoke(() -> baseInvoker.proceed(missArgs), baseHitting, annoHolder);
 
         Object result;
         if (proceed != null) {
@@ -192,6 +204,126 @@ public class MultiCacheReader extends AbstractReader {
         return result;
     }
 
+    /**
+     * 合并并发加载/分片加载未命中的keys, 返回值按参数内multi元素的顺序排列
+     */
+    private Object handlePartLoad(ProxyChain baseInvoker, CacheKeys cacheKeys,
+                                  AnnoHolder annoHolder, MethodHolder methodHolder,
+                                  Map[] pair, boolean needWrite) throws Throwable {
+
+        Map<String, Object> key2MultiEntry = pair[1];
+        Map<String, Object> hitKeyValueMap = cacheKeys.getHitKeyMap();
+        Object[] args = baseInvoker.getArguments();
+
+        Map<String, Object> loadKeyValueMap;
+        if (annoHolder.isCoalesce()) {
+            loadKeyValueMap = singleFlight.executeBatch(cacheKeys.getMissKeySet(), annoHolder.getCoalesceTimeout(),
+                    (keys) -> doChunkLoad(baseInvoker, args, keys, annoHolder, methodHolder, pair, needWrite),
+                    (count) -> doRecordCoalesce(annoHolder, count));
+        } else {
+            loadKeyValueMap = doChunkLoad(baseInvoker, args, cacheKeys.getMissKeySet(), annoHolder, methodHolder, pair, needWrite);
+        }
+
+        Map<String, Object> keyValueMap = new LinkedHashMap<>(key2MultiEntry.size());
+        for (String key : key2MultiEntry.keySet()) {
+            Object value = hitKeyValueMap.get(key);
+            if (value == null) {
+                value = loadKeyValueMap.get(key);
+            }
+            if (value != null) {
+                keyValueMap.put(key, value);
+            }
+        }
+
+        Class<?> returnType = methodHolder.getReturnType();
+        if (returnType == null) {
+            // read as full shooting
+            return handleFullHit(baseInvoker, keyValueMap, methodHolder, key2MultiEntry);
+        }
+        if (Map.class.isAssignableFrom(returnType)) {
+            return toMap(returnType, key2MultiEntry, keyValueMap);
+        }
+        return asType(toCollection(Collection.class.isAssignableFrom(returnType) ? returnType : ArrayList.class, keyValueMap), returnType);
+    }
+
+    /**
+     * 将未命中的keys按batchSize分片调用方法, 配置了线程池时分片并行加载
+     *
+     * @return key -> 值
+     */
+    private Map<String, Object> doChunkLoad(ProxyChain baseInvoker, Object[] args, Set<String> missKeys,
+                                            AnnoHolder annoHolder, MethodHolder methodHolder,
+                                            Map[] pair, boolean needWrite) throws Throwable {
+        List<String> keys = new ArrayList<>(missKeys);
+        int batchSize = annoHolder.getBatchSize() > 0 ? annoHolder.getBatchSize() : keys.size();
+
+        List<Set<String>> chunks = new ArrayList<>((keys.size() + batchSize - 1) / batchSize);
+        for (int from = 0; from < keys.size(); from += batchSize) {
+            chunks.add(new LinkedHashSet<>(keys.subList(from, Math.min(from + batchSize, keys.size()))));
+        }
+
+        Map<String, Object> result = new HashMap<>(keys.size());
+        ExecutorService executor = config.getExecutor();
+        if (chunks.size() == 1 || executor == null) {
+            for (Set<String> chunk : chunks) {
+                result.putAll(doLoad(baseInvoker, args, chunk, annoHolder, methodHolder, pair, needWrite));
+            }
+            return result;
+        }
+
+        List<CompletableFuture<Map<String, Object>>> futures = new ArrayList<>(chunks.size() - 1);
+        for (Set<String> chunk : chunks.subList(1, chunks.size())) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return doLoad(baseInvoker, args, chunk, annoHolder, methodHolder, pair, needWrite);
+                } catch (Throwable e) {
+                    throw new CompletionException(e);
+                }
+            }, executor));
+        }
+
+        // 第一个分片在调用线程内加载
+        result.putAll(doLoad(baseInvoker, args, chunks.get(0), annoHolder, methodHolder, pair, needWrite));
+        try {
+            for (CompletableFuture<Map<String, Object>> future : futures) {
+                result.putAll(future.join());
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() == null ? e : e.getCause();
+        }
+        return result;
+    }
+
+    private Map<String, Object> doLoad(ProxyChain baseInvoker, Object[] args, Set<String> chunk,
+                                       AnnoHolder annoHolder, MethodHolder methodHolder,
+                                       Map[] pair, boolean needWrite) throws Throwable {
+        Map<Object, String> multiEntry2Key = pair[0];
+        Map<String, Object> key2MultiEntry = pair[1];
+
+        Set<String> missKeys = new LinkedHashSet<>(chunk);
+        Object[] missArgs = toMissArgs(missKeys, key2MultiEntry, args.clone(), annoHolder.getMultiIndex());
+        Object proceed = doLogInvoke(() -> baseInvoker.proceed(missArgs), baseHitting, annoHolder);
+        if (proceed == null) {
+            return Collections.emptyMap();
+        }
+
+        Class<?> returnType = proceed.getClass();
+        methodHolder.setReturnType(returnType);
+
+        Map<String, Object> keyValueMap;
+        if (Map.class.isAssignableFrom(returnType)) {
+            keyValueMap = KeyValue.mapToKeyValue((Map) proceed, missKeys, multiEntry2Key, config.getPrevent());
+        } else {
+            keyValueMap = KeyValue.collectionToKeyValue(asCollection(proceed, returnType), annoHolder.getId(), missKeys, multiEntry2Key, config.getPrevent());
+        }
+
+        // 为了兼容@CachedGet注解, 客户端缓存
+        if (needWrite) {
+            cacheManager.writeBatch(annoHolder.getCache(), keyValueMap, annoHolder.getExpire());
+        }
+        return keyValueMap;
+    }
+
     private Object asType(Collection collection, Class<?> returnType) {
         if (Collection.class.isAssignableFrom(returnType)) {
             return collection;
@@ -255,8 +387,10 @@ public class MultiCacheReader extends AbstractReader {
         // 计数
         int hitCount = cacheKeys.getHitKeyMap().size();
         int totalCount = hitCount + missKeys.size();
-        Logger.info("multi cache hit rate: {}/{}, missed keys: {}",
-                hitCount, totalCount, missKeys);
+        if (log.isDebug()) {
+            log.debug("multi cache hit rate: {}/{}, missed keys: {}",
+                    hitCount, totalCount, missKeys);
+        }
 
         if (this.baseHitting != null) {
             // 分组模板
@@ -267,4 +401,10 @@ public class MultiCacheReader extends AbstractReader {
         }
     }
 
+    private void doRecordCoalesce(AnnoHolder annoHolder, int count) {
+        if (this.baseHitting != null) {
+            this.baseHitting.coalesceIncr(PatternGenerator.generatePattern(annoHolder), count);
+        }
+    }
+
 }
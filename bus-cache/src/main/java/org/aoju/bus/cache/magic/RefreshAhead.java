@@ -0,0 +1,141 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.cache.magic;
+
+import org.aoju.bus.cache.CacheX;
+import org.aoju.bus.cache.metric.TinyLfuCache;
+import org.aoju.bus.core.thread.NamedThreadFactory;
+import org.aoju.bus.logger.Logger;
+
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * 缓存提前刷新(refresh-ahead)
+ * <p>
+ * 记录本节点写入缓存的时间, 命中时若已超过过期时间的指定比例,
+ * 则直接返回缓存值并在后台异步重新加载; 同一key同时只有一个刷新任务
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+public class RefreshAhead {
+
+    /**
+     * 写入时间最多记录的条目数
+     */
+    private static final long WRITTEN_MAXIMUM = 100_000L;
+
+    /**
+     * 默认刷新线程池的队列长度, 队列满时放弃本次刷新
+     */
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private final CacheX writtenTimes = new TinyLfuCache(WRITTEN_MAXIMUM);
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private volatile ExecutorService defaultExecutor;
+
+    /**
+     * 记录缓存写入时间
+     *
+     * @param key    缓存key
+     * @param expire 缓存过期时间(毫秒)
+     */
+    public void written(String key, int expire) {
+        if (expire > CacheExpire.FOREVER) {
+            writtenTimes.write(key, System.currentTimeMillis(), expire);
+        }
+    }
+
+    /**
+     * 判断命中的缓存是否需要提前刷新
+     *
+     * @param key    缓存key
+     * @param expire 缓存过期时间(毫秒)
+     * @param ratio  触发刷新的过期时间比例
+     * @return true: 需要刷新
+     */
+    public boolean isDue(String key, int expire, float ratio) {
+        if (expire <= CacheExpire.FOREVER || ratio <= 0) {
+            return false;
+        }
+
+        // 由其他节点写入或记录已被淘汰时无法判断, 交由正常过期处理
+        Object writtenTime = writtenTimes.read(key);
+        return null != writtenTime
+                && System.currentTimeMillis() - (Long) writtenTime >= (long) (expire * ratio);
+    }
+
+    /**
+     * 异步刷新, 同一key已有刷新任务时忽略
+     *
+     * @param key      缓存key
+     * @param executor 刷新线程池, 为空时使用默认的有界线程池
+     * @param reloader 刷新逻辑
+     */
+    public void refresh(String key, ExecutorService executor, AbstractReader.ThrowableSupplier<Object> reloader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+
+        try {
+            (null == executor ? defaultExecutor() : executor).execute(() -> {
+                try {
+                    reloader.get();
+                } catch (Throwable e) {
+                    Logger.error("refresh ahead failed, key: {}", key, e);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+            Logger.warn("refresh ahead rejected, key: {}", key);
+        }
+    }
+
+    private ExecutorService defaultExecutor() {
+        ExecutorService executor = defaultExecutor;
+        if (null == executor) {
+            synchronized (this) {
+                executor = defaultExecutor;
+                if (null == executor) {
+                    int threads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                            new NamedThreadFactory("cache:refresher-", true),
+                            new ThreadPoolExecutor.AbortPolicy());
+                    pool.allowCoreThreadTimeOut(true);
+                    executor = defaultExecutor = pool;
+                }
+            }
+        }
+        return executor;
+    }
+
+}
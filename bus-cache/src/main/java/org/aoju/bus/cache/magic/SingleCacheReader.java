@@ -32,7 +32,8 @@ import org.aoju.bus.cache.support.PatternGenerator;
 import org.aoju.bus.cache.support.PreventObjects;
 import org.aoju.bus.core.annotation.Inject;
 import org.aoju.bus.core.annotation.Singleton;
-import org.aoju.bus.logger.Logger;
+import org.aoju.bus.logger.Log;
+import org.aoju.bus.logger.LogFactory;
 import org.aoju.bus.proxy.invoker.ProxyChain;
 
 /**
@@ -43,6 +44,8 @@ import org.aoju.bus.proxy.invoker.ProxyChain;
 @Singleton
 public class SingleCacheReader extends AbstractReader {
 
+    private static final Log log = LogFactory.get(SingleCacheReader.class);
+
     @Inject
     private Manage cacheManager;
 
@@ -52,6 +55,10 @@ public class SingleCacheReader extends AbstractReader {
     @Inject(optional = true)
     private Hitting baseHitting;
 
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    private final RefreshAhead refreshAhead = new RefreshAhead();
+
     @Override
     public Object read(AnnoHolder annoHolder, MethodHolder methodHolder, ProxyChain baseInvoker, boolean needWrite) throws Throwable {
         String key = KeyGenerator.generateSingleKey(annoHolder, baseInvoker.getArguments());
@@ -60,6 +67,13 @@ public class SingleCacheReader extends AbstractReader {
         doRecord(readResult, key, annoHolder);
         // 命中
         if (readResult != null) {
+            // 临近过期, 后台重新加载
+            if (needWrite && refreshAhead.isDue(key, annoHolder.getExpire(), annoHolder.getRefreshAhead())
+                    && !singleFlight.isInFlight(key)) {
+                refreshAhead.refresh(key, config.getRefresher(),
+                        () -> doLoad(annoHolder, methodHolder, baseInvoker, key, true));
+            }
+
             // 是放击穿对象
             if (PreventObjects.isPrevent(readResult)) {
                 return null;
@@ -70,8 +84,26 @@ public class SingleCacheReader extends AbstractReader {
 
 
         // not hit
+        if (annoHolder.isCoalesce()) {
+            // 同一key的并发未命中只由一个调用者执行方法
+            return singleFlight.execute(key, annoHolder.getCoalesceTimeout(), annoHolder.isStaleWhileRevalidate(),
+                    annoHolder.getExpire(),
+                    () -> doLoad(annoHolder, methodHolder, baseInvoker, key, needWrite),
+                    () -> doRecordCoalesce(annoHolder));
+        }
+
+        return doLoad(annoHolder, methodHolder, baseInvoker, key, needWrite);
+    }
+
+    @Override
+    public void invalidate(String... keys) {
+        singleFlight.invalidate(keys);
+    }
+
+    private Object doLoad(AnnoHolder annoHolder, MethodHolder methodHolder, ProxyChain baseInvoker,
+                          String key, boolean needWrite) throws Throwable {
         // invoke method
-        Object invokeResult = doLogInvoke(baseInvoker::proceed);
+        Object invokeResult = doLogInvoke(baseInvoker::proceed, baseHitting, annoHolder);
         if (invokeResult != null && methodHolder.getInnerReturnType() == null) {
             methodHolder.setInnerReturnType(invokeResult.getClass());
         }
@@ -82,19 +114,29 @@ public class SingleCacheReader extends AbstractReader {
 
         if (invokeResult != null) {
             cacheManager.writeSingle(annoHolder.getCache(), key, invokeResult, annoHolder.getExpire());
+            doRecordWritten(annoHolder, key);
             return invokeResult;
         }
 
         // invokeResult is null
         if (config.isPreventOn()) {
             cacheManager.writeSingle(annoHolder.getCache(), key, PreventObjects.getPreventObject(), annoHolder.getExpire());
+            doRecordWritten(annoHolder, key);
         }
 
         return null;
     }
 
+    private void doRecordWritten(AnnoHolder annoHolder, String key) {
+        if (annoHolder.getRefreshAhead() > 0) {
+            refreshAhead.written(key, annoHolder.getExpire());
+        }
+    }
+
     private void doRecord(Object result, String key, AnnoHolder annoHolder) {
-        Logger.info("single cache hit rate: {}/1, key: {}", result == null ? 0 : 1, key);
+        if (log.isDebug()) {
+            log.debug("single cache hit rate: {}/1, key: {}", result == null ? 0 : 1, key);
+        }
         if (this.baseHitting != null) {
             String pattern = PatternGenerator.generatePattern(annoHolder);
 
@@ -105,4 +147,10 @@ public class SingleCacheReader extends AbstractReader {
         }
     }
 
+    private void doRecordCoalesce(AnnoHolder annoHolder) {
+        if (this.baseHitting != null) {
+            this.baseHitting.coalesceIncr(PatternGenerator.generatePattern(annoHolder), 1);
+        }
+    }
+
 }
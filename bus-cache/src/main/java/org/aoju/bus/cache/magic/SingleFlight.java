@@ -0,0 +1,226 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.cache.magic;
+
+import org.aoju.bus.cache.CacheX;
+import org.aoju.bus.cache.metric.TinyLfuCache;
+import org.aoju.bus.logger.Logger;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntConsumer;
+
+/**
+ * 合并同一key的并发加载(single-flight)
+ * <p>
+ * 第一个调用者执行加载, 其余调用者等待并共享其结果或异常;
+ * 等待超时后调用者自行加载, 开启stale-while-revalidate时直接返回上一次加载的值
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+public class SingleFlight {
+
+    /**
+     * 旧值最多保留的条目数
+     */
+    private static final long STALE_MAXIMUM = 10_000L;
+
+    /**
+     * 旧值最长保留时间(毫秒), 未设置有效期的缓存也按此时间淘汰旧值
+     */
+    private static final long STALE_MAX_EXPIRE = CacheExpire.TEN_MIN;
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private volatile CacheX staleValues;
+
+    /**
+     * 执行加载, 同一key同时只有一个调用者真正执行
+     *
+     * @param key      缓存key
+     * @param timeout  等待在途加载的超时时间(毫秒)
+     * @param stale    是否优先返回旧值
+     * @param expire   缓存有效期(毫秒), 旧值最多保留两倍有效期且不超过{@link #STALE_MAX_EXPIRE}
+     * @param loader   加载逻辑
+     * @param onShared 调用者共享了在途加载(或旧值)时回调
+     * @return 加载结果
+     * @throws Throwable 加载抛出的异常
+     */
+    public Object execute(String key, long timeout, boolean stale, long expire,
+                          AbstractReader.ThrowableSupplier<Object> loader, Runnable onShared) throws Throwable {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (null == existing) {
+            return lead(key, future, stale, expire, loader);
+        }
+
+        if (stale && null != staleValues) {
+            Object value = staleValues.read(key);
+            if (null != value) {
+                onShared.run();
+                return value;
+            }
+        }
+
+        try {
+            Object value = existing.get(timeout, TimeUnit.MILLISECONDS);
+            onShared.run();
+            return value;
+        } catch (ExecutionException e) {
+            onShared.run();
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            Logger.warn("wait in-flight load timeout [{}] ms, key: {}", timeout, key);
+            return loader.get();
+        }
+    }
+
+    /**
+     * 批量执行加载: 已被其他调用者加载中的key只等待不重复加载, 其余key由本调用者一次性加载
+     *
+     * @param keys     未命中的缓存key
+     * @param timeout  等待在途加载的超时时间(毫秒), 超时的key由本调用者补充加载
+     * @param loader   加载逻辑, 入参为本调用者负责的key, 返回key -> 值(未找到的key可不返回)
+     * @param onShared 共享了其他调用者在途加载的key数量回调
+     * @return key -> 值
+     * @throws Throwable 加载抛出的异常
+     */
+    public Map<String, Object> executeBatch(Collection<String> keys, long timeout,
+                                            AbstractReader.ThrowableFunction<Set<String>, Map<String, Object>> loader,
+                                            IntConsumer onShared) throws Throwable {
+        Map<String, CompletableFuture<Object>> owned = new LinkedHashMap<>();
+        Map<String, CompletableFuture<Object>> awaited = new LinkedHashMap<>();
+        for (String key : keys) {
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+            if (null == existing) {
+                owned.put(key, future);
+            } else {
+                awaited.put(key, existing);
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>(keys.size());
+        if (!owned.isEmpty()) {
+            // 先完成自己负责的key, 再等待其他调用者, 避免互相等待
+            try {
+                Map<String, Object> loaded = loader.apply(owned.keySet());
+                result.putAll(loaded);
+                owned.forEach((key, future) -> future.complete(loaded.get(key)));
+            } catch (Throwable e) {
+                owned.values().forEach(future -> future.completeExceptionally(e));
+                throw e;
+            } finally {
+                owned.forEach(inFlight::remove);
+            }
+        }
+
+        if (!awaited.isEmpty()) {
+            onShared.accept(awaited.size());
+
+            Set<String> timeoutKeys = new LinkedHashSet<>();
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+            for (Map.Entry<String, CompletableFuture<Object>> entry : awaited.entrySet()) {
+                try {
+                    long remaining = Math.max(0L, deadline - System.nanoTime());
+                    result.put(entry.getKey(), entry.getValue().get(remaining, TimeUnit.NANOSECONDS));
+                } catch (ExecutionException e) {
+                    throw e.getCause();
+                } catch (TimeoutException e) {
+                    timeoutKeys.add(entry.getKey());
+                }
+            }
+
+            if (!timeoutKeys.isEmpty()) {
+                Logger.warn("wait in-flight load timeout [{}] ms, keys: {}", timeout, timeoutKeys);
+                result.putAll(loader.apply(timeoutKeys));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 是否存在指定key的在途加载
+     *
+     * @param key 缓存key
+     * @return true: 正在加载
+     */
+    public boolean isInFlight(String key) {
+        return inFlight.containsKey(key);
+    }
+
+    /**
+     * 删除旧值, 缓存被删除或失效时调用, 避免继续返回已失效的值
+     *
+     * @param keys 缓存key
+     */
+    public void invalidate(String... keys) {
+        CacheX cache = staleValues;
+        if (null != cache && null != keys && keys.length != 0) {
+            cache.remove(keys);
+        }
+    }
+
+    private Object lead(String key, CompletableFuture<Object> future, boolean stale, long expire,
+                        AbstractReader.ThrowableSupplier<Object> loader) throws Throwable {
+        try {
+            Object value = loader.get();
+            if (stale && null != value) {
+                staleValues().write(key, value, staleExpire(expire));
+            }
+            future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private static long staleExpire(long expire) {
+        if (expire <= CacheExpire.FOREVER) {
+            return STALE_MAX_EXPIRE;
+        }
+        return Math.min(expire * 2, STALE_MAX_EXPIRE);
+    }
+
+    private CacheX staleValues() {
+        CacheX cache = staleValues;
+        if (null == cache) {
+            synchronized (this) {
+                cache = staleValues;
+                if (null == cache) {
+                    cache = staleValues = new TinyLfuCache(STALE_MAXIMUM);
+                }
+            }
+        }
+        return cache;
+    }
+
+}
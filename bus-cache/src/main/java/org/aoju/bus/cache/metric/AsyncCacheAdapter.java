@@ -0,0 +1,118 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.cache.metric;
+
+import org.aoju.bus.cache.AsyncCacheX;
+import org.aoju.bus.cache.CacheX;
+import org.aoju.bus.core.thread.NamedThreadFactory;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * 同步缓存的异步适配, 在线程池中执行{@link CacheX}的操作
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+public class AsyncCacheAdapter implements AsyncCacheX {
+
+    private static final int QUEUE_CAPACITY = 4096;
+
+    private static volatile ExecutorService defaultExecutor;
+
+    private final CacheX cache;
+
+    private final Executor executor;
+
+    public AsyncCacheAdapter(CacheX cache) {
+        this(cache, defaultExecutor());
+    }
+
+    public AsyncCacheAdapter(CacheX cache, Executor executor) {
+        this.cache = cache;
+        this.executor = executor;
+    }
+
+    /**
+     * 获取缓存的异步实现, 已实现{@link AsyncCacheX}时直接返回
+     *
+     * @param cache 缓存
+     * @return 异步缓存
+     */
+    public static AsyncCacheX of(CacheX cache) {
+        return cache instanceof AsyncCacheX ? (AsyncCacheX) cache : new AsyncCacheAdapter(cache);
+    }
+
+    /**
+     * 默认线程池: 有界队列, 队列满时由调用线程执行
+     */
+    static ExecutorService defaultExecutor() {
+        ExecutorService executor = defaultExecutor;
+        if (null == executor) {
+            synchronized (AsyncCacheAdapter.class) {
+                executor = defaultExecutor;
+                if (null == executor) {
+                    int threads = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+                    ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                            new NamedThreadFactory("cache:async-", true),
+                            new ThreadPoolExecutor.CallerRunsPolicy());
+                    pool.allowCoreThreadTimeOut(true);
+                    executor = defaultExecutor = pool;
+                }
+            }
+        }
+        return executor;
+    }
+
+    @Override
+    public CompletableFuture<Object> readAsync(String key) {
+        return CompletableFuture.supplyAsync(() -> cache.read(key), executor);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> readAsync(Collection<String> keys) {
+        return CompletableFuture.supplyAsync(() -> cache.read(keys), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> writeAsync(String key, Object value, long expire) {
+        return CompletableFuture.runAsync(() -> cache.write(key, value, expire), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> writeAsync(Map<String, Object> map, long expire) {
+        return CompletableFuture.runAsync(() -> cache.write(map, expire), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> removeAsync(String... keys) {
+        return CompletableFuture.runAsync(() -> cache.remove(keys), executor);
+    }
+
+}
@@ -0,0 +1,241 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.cache.metric;
+
+import org.aoju.bus.cache.AsyncCacheX;
+import org.aoju.bus.cache.CacheX;
+import org.aoju.bus.cache.serialize.BaseSerializer;
+import org.aoju.bus.cache.serialize.Hessian2Serializer;
+import org.aoju.bus.logger.Logger;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Redis 单机异步缓存支持
+ * <p>
+ * 多个调用者并发的单key异步读取会进入同一队列, 由一个批处理任务使用一个连接合并为MGET执行:
+ * 上一批MGET执行期间到达的请求自动组成下一批, 空闲时不占用线程;
+ * 同步接口直接在调用线程访问Redis, 可直接注册到{@code Manage}
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+public class AsyncRedisCache implements CacheX, AsyncCacheX {
+
+    /**
+     * 默认单批MGET最多的key数量
+     */
+    private static final int DEFAULT_MAX_BATCH = 128;
+
+    private final RedisCache delegate;
+
+    private final BaseSerializer serializer;
+
+    private final JedisPool jedisPool;
+
+    private final Executor executor;
+
+    private final int maxBatch;
+
+    private final Queue<Pending> pendings = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    public AsyncRedisCache(JedisPool jedisPool) {
+        this(jedisPool, new Hessian2Serializer());
+    }
+
+    public AsyncRedisCache(JedisPool jedisPool, BaseSerializer serializer) {
+        this(jedisPool, serializer, AsyncCacheAdapter.defaultExecutor(), DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * @param jedisPool  连接池
+     * @param serializer 序列化
+     * @param executor   执行批量读取、写入及回调的线程池
+     * @param maxBatch   单批MGET最多的key数量
+     */
+    public AsyncRedisCache(JedisPool jedisPool, BaseSerializer serializer, Executor executor, int maxBatch) {
+        this.delegate = new RedisCache(jedisPool, serializer);
+        this.serializer = serializer;
+        this.jedisPool = jedisPool;
+        this.executor = executor;
+        this.maxBatch = maxBatch;
+    }
+
+    @Override
+    public CompletableFuture<Object> readAsync(String key) {
+        Pending pending = new Pending(key);
+        pendings.add(pending);
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                drain();
+            }
+        }
+        return pending.future;
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> readAsync(Collection<String> keys) {
+        return CompletableFuture.supplyAsync(() -> delegate.read(keys), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> writeAsync(String key, Object value, long expire) {
+        return CompletableFuture.runAsync(() -> delegate.write(key, value, expire), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> writeAsync(Map<String, Object> map, long expire) {
+        return CompletableFuture.runAsync(() -> delegate.write(map, expire), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> removeAsync(String... keys) {
+        return CompletableFuture.runAsync(() -> delegate.remove(keys), executor);
+    }
+
+    /**
+     * 同步读取直接在调用线程执行GET, 不经过批量队列, 避免线程池中的调用者阻塞等待同一线程池的合并任务
+     */
+    @Override
+    public Object read(String key) {
+        return delegate.read(key);
+    }
+
+    @Override
+    public Map<String, Object> read(Collection<String> keys) {
+        return delegate.read(keys);
+    }
+
+    @Override
+    public void write(String key, Object value, long expire) {
+        delegate.write(key, value, expire);
+    }
+
+    @Override
+    public void write(Map<String, Object> keyValueMap, long expire) {
+        delegate.write(keyValueMap, expire);
+    }
+
+    @Override
+    public void remove(String... keys) {
+        delegate.remove(keys);
+    }
+
+    @Override
+    public long ttl(String key) {
+        return delegate.ttl(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @PreDestroy
+    public void tearDown() {
+        delegate.tearDown();
+    }
+
+    /**
+     * 循环取出队列中的请求执行MGET, 队列为空时退出
+     */
+    private void drain() {
+        for (; ; ) {
+            Map<String, List<CompletableFuture<Object>>> batch = new LinkedHashMap<>();
+            Pending pending;
+            while (batch.size() < maxBatch && null != (pending = pendings.poll())) {
+                batch.computeIfAbsent(pending.key, key -> new ArrayList<>(1)).add(pending.future);
+            }
+
+            if (batch.isEmpty()) {
+                draining.set(false);
+                // 释放标记后若有新请求且未被其他线程接手, 继续处理
+                if (pendings.isEmpty() || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+
+            doBatchRead(batch);
+        }
+    }
+
+    private void doBatchRead(Map<String, List<CompletableFuture<Object>>> batch) {
+        Set<String> keys = batch.keySet();
+        List<byte[]> bytesValues;
+        try (Jedis client = jedisPool.getResource()) {
+            bytesValues = client.mget(RedisCache.toByteArray(keys));
+        } catch (Throwable e) {
+            Logger.error("async redis mget failed, keys: {}", keys, e);
+            batch.values().forEach(futures -> futures.forEach(future -> future.completeExceptionally(e)));
+            return;
+        }
+
+        // 回调放到线程池中执行, 不阻塞下一批读取
+        List<byte[]> values = bytesValues;
+        Runnable complete = () -> {
+            int index = 0;
+            for (List<CompletableFuture<Object>> futures : batch.values()) {
+                byte[] bytes = values.get(index++);
+                // 与同步读取一致, 每个调用者得到独立的反序列化对象
+                for (CompletableFuture<Object> future : futures) {
+                    try {
+                        future.complete(serializer.deserialize(bytes));
+                    } catch (Throwable e) {
+                        future.completeExceptionally(e);
+                    }
+                }
+            }
+        };
+        try {
+            executor.execute(complete);
+        } catch (RejectedExecutionException e) {
+            complete.run();
+        }
+    }
+
+    private static final class Pending {
+
+        private final String key;
+
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        Pending(String key) {
+            this.key = key;
+        }
+    }
+
+}
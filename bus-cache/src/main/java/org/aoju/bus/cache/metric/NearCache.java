@@ -0,0 +1,264 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.cache.metric;
+
+import org.aoju.bus.cache.CacheX;
+import org.aoju.bus.cache.InvalidationBus;
+import org.aoju.bus.cache.magic.CacheExpire;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 多级缓存: 本地缓存(L1) + 远程缓存(L2)
+ * <p>
+ * 读取优先命中本地缓存, 未命中时读取远程缓存并回填本地;
+ * 写入与删除同时作用于两级缓存, 并通过{@link InvalidationBus}通知其他节点删除本地缓存,
+ * 本地缓存的过期时间不超过{@code localExpire}, 以限制通知丢失时的不一致时长;
+ * {@code localExpire}为{@link CacheExpire#FOREVER}时, 回填本地的过期时间不超过远程缓存的剩余有效期
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+public class NearCache implements CacheX {
+
+    private static final long DEFAULT_LOCAL_MAXIMUM = 10_000L;
+
+    /**
+     * 远程缓存不支持查询剩余有效期时, 回填本地的最长过期时间
+     */
+    private static final long UNKNOWN_TTL_EXPIRE = CacheExpire.ONE_MIN;
+
+    private final CacheX local;
+
+    private final CacheX remote;
+
+    private final InvalidationBus bus;
+
+    private final long localExpire;
+
+    private final LongAdder localHits = new LongAdder();
+
+    private final LongAdder remoteHits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public NearCache(CacheX remote, InvalidationBus bus) {
+        this(new TinyLfuCache(DEFAULT_LOCAL_MAXIMUM), remote, bus, CacheExpire.ONE_MIN);
+    }
+
+    /**
+     * @param local       本地缓存
+     * @param remote      远程缓存
+     * @param bus         失效通知总线, 为空时不通知其他节点
+     * @param localExpire 本地缓存最长过期时间(毫秒), {@link CacheExpire#FOREVER}表示与写入时一致
+     */
+    public NearCache(CacheX local, CacheX remote, InvalidationBus bus, long localExpire) {
+        this.local = local;
+        this.remote = remote;
+        this.bus = bus;
+        this.localExpire = localExpire;
+        if (null != bus) {
+            bus.subscribe(this::onInvalidate);
+        }
+    }
+
+    @Override
+    public Object read(String key) {
+        Object value = local.read(key);
+        if (null != value) {
+            localHits.increment();
+            return value;
+        }
+
+        value = remote.read(key);
+        if (null != value) {
+            remoteHits.increment();
+            fill(key, value);
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    @Override
+    public Map<String, Object> read(Collection<String> keys) {
+        Map<String, Object> result = new HashMap<>(keys.size());
+        List<String> missKeys = new ArrayList<>();
+        Map<String, Object> localValues = local.read(keys);
+        for (String key : keys) {
+            Object value = localValues.get(key);
+            if (null != value) {
+                result.put(key, value);
+            } else {
+                missKeys.add(key);
+            }
+        }
+        localHits.add(result.size());
+        if (missKeys.isEmpty()) {
+            return result;
+        }
+
+        Map<String, Object> remoteValues = new HashMap<>(missKeys.size());
+        remote.read(missKeys).forEach((key, value) -> {
+            if (null != value) {
+                remoteValues.put(key, value);
+            }
+        });
+        remoteHits.add(remoteValues.size());
+        misses.add(missKeys.size() - remoteValues.size());
+        if (!remoteValues.isEmpty()) {
+            if (localExpire == CacheExpire.FOREVER) {
+                remoteValues.forEach(this::fill);
+            } else {
+                local.write(remoteValues, localExpire);
+            }
+            result.putAll(remoteValues);
+        }
+        return result;
+    }
+
+    @Override
+    public void write(String key, Object value, long expire) {
+        remote.write(key, value, expire);
+        local.write(key, value, localExpire(expire));
+        publish(key);
+    }
+
+    @Override
+    public void write(Map<String, Object> keyValueMap, long expire) {
+        if (keyValueMap.isEmpty()) {
+            return;
+        }
+        remote.write(keyValueMap, expire);
+        local.write(keyValueMap, localExpire(expire));
+        publish(keyValueMap.keySet().toArray(new String[0]));
+    }
+
+    @Override
+    public void remove(String... keys) {
+        remote.remove(keys);
+        local.remove(keys);
+        publish(keys);
+    }
+
+    @Override
+    public void clear() {
+        local.clear();
+        remote.clear();
+        publish(InvalidationBus.CLEAR_ALL);
+    }
+
+    /**
+     * @return 本地缓存命中次数
+     */
+    public long localHitCount() {
+        return localHits.sum();
+    }
+
+    /**
+     * @return 远程缓存命中次数
+     */
+    public long remoteHitCount() {
+        return remoteHits.sum();
+    }
+
+    /**
+     * @return 两级缓存均未命中的次数
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return 本地缓存命中率
+     */
+    public double localHitRate() {
+        long local = localHits.sum();
+        long total = local + remoteHits.sum() + misses.sum();
+        return total == 0 ? 0 : (double) local / total;
+    }
+
+    /**
+     * @return 远程缓存命中率(仅统计本地未命中的请求)
+     */
+    public double remoteHitRate() {
+        long remote = remoteHits.sum();
+        long total = remote + misses.sum();
+        return total == 0 ? 0 : (double) remote / total;
+    }
+
+    @PreDestroy
+    public void tearDown() {
+        if (null != bus) {
+            bus.close();
+        }
+    }
+
+    /**
+     * 将远程缓存读到的值回填本地, 本地副本不能比远程条目存活得更久
+     */
+    private void fill(String key, Object value) {
+        if (localExpire != CacheExpire.FOREVER) {
+            local.write(key, value, localExpire);
+            return;
+        }
+        long ttl = remote.ttl(key);
+        if (ttl == CacheExpire.NO) {
+            ttl = UNKNOWN_TTL_EXPIRE;
+        }
+        local.write(key, value, ttl);
+    }
+
+    private long localExpire(long expire) {
+        if (localExpire == CacheExpire.FOREVER) {
+            return expire;
+        }
+        if (expire == CacheExpire.FOREVER) {
+            return localExpire;
+        }
+        return Math.min(expire, localExpire);
+    }
+
+    private void publish(String... keys) {
+        if (null != bus && null != keys && keys.length > 0) {
+            bus.publish(keys);
+        }
+    }
+
+    private void onInvalidate(String[] keys) {
+        if (keys.length == 0) {
+            return;
+        }
+        if (keys.length == 1 && InvalidationBus.CLEAR_ALL.equals(keys[0])) {
+            local.clear();
+        } else {
+            local.remove(keys);
+        }
+    }
+
+}
@@ -89,6 +89,16 @@ public class RedisCache implements CacheX {
         return result;
     }
 
+    /**
+     * 将PTTL的返回值转换为剩余有效期: -1(永不过期)对应{@link CacheExpire#FOREVER}, -2(不存在)对应{@link CacheExpire#NO}
+     */
+    static long toExpire(Long pttl) {
+        if (null == pttl || pttl == -2 || pttl == 0) {
+            return CacheExpire.NO;
+        }
+        return pttl == -1 ? CacheExpire.FOREVER : pttl;
+    }
+
     @Override
     public Object read(String key) {
         try (Jedis client = jedisPool.getResource()) {
@@ -140,6 +150,13 @@ public class RedisCache implements CacheX {
         }
     }
 
+    @Override
+    public long ttl(String key) {
+        try (Jedis client = jedisPool.getResource()) {
+            return toExpire(client.pttl(key.getBytes()));
+        }
+    }
+
     @Override
     public void clear() {
         tearDown();
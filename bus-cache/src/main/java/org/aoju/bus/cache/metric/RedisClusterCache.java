@@ -133,6 +133,11 @@ public class RedisClusterCache implements CacheX {
         jedisCluster.del(keys);
     }
 
+    @Override
+    public long ttl(String key) {
+        return RedisCache.toExpire(jedisCluster.pttl(key));
+    }
+
     @Override
     public void clear() {
         tearDown();
@@ -0,0 +1,152 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.cache.metric;
+
+import org.aoju.bus.cache.InvalidationBus;
+import org.aoju.bus.core.lang.Normal;
+import org.aoju.bus.logger.Logger;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+
+import javax.annotation.PreDestroy;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * 基于Redis pub/sub的缓存失效通知总线
+ * <p>
+ * 订阅连接断开后自动重连, 重连成功时通知清空本地缓存, 避免遗漏断开期间的失效通知
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+public class RedisInvalidationBus implements InvalidationBus {
+
+    private static final String DEFAULT_CHANNEL = "bus:cache:invalidation";
+
+    private static final char NODE_SEPARATOR = '|';
+
+    private static final String KEY_SEPARATOR = "\u0001";
+
+    private static final long RECONNECT_INTERVAL = 1000L;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final JedisPool jedisPool;
+
+    private final String channel;
+
+    private volatile boolean running = true;
+
+    private volatile JedisPubSub pubSub;
+
+    public RedisInvalidationBus(JedisPool jedisPool) {
+        this(jedisPool, DEFAULT_CHANNEL);
+    }
+
+    public RedisInvalidationBus(JedisPool jedisPool, String channel) {
+        this.jedisPool = jedisPool;
+        this.channel = channel;
+    }
+
+    @Override
+    public void publish(String... keys) {
+        if (null == keys || keys.length == 0) {
+            return;
+        }
+        String message = nodeId + NODE_SEPARATOR + String.join(KEY_SEPARATOR, keys);
+        try (Jedis client = jedisPool.getResource()) {
+            client.publish(channel, message);
+        } catch (Exception e) {
+            Logger.error("publish cache invalidation failed, channel: {}", channel, e);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<String[]> listener) {
+        Thread thread = new Thread(() -> doSubscribe(listener), "cache:invalidation-" + channel);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void doSubscribe(Consumer<String[]> listener) {
+        boolean reconnect = false;
+        while (running) {
+            boolean resubscribed = reconnect;
+            JedisPubSub current = new JedisPubSub() {
+                @Override
+                public void onSubscribe(String channel, int subscribedChannels) {
+                    if (resubscribed) {
+                        listener.accept(new String[]{CLEAR_ALL});
+                    }
+                }
+
+                @Override
+                public void onMessage(String channel, String message) {
+                    int index = message.indexOf(NODE_SEPARATOR);
+                    if (index < 0 || nodeId.equals(message.substring(0, index))) {
+                        return;
+                    }
+                    String keys = message.substring(index + 1);
+                    if (Normal.EMPTY.equals(keys)) {
+                        return;
+                    }
+                    listener.accept(keys.split(KEY_SEPARATOR));
+                }
+            };
+            pubSub = current;
+
+            try (Jedis client = jedisPool.getResource()) {
+                client.subscribe(current, channel);
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                Logger.warn("cache invalidation subscription broken, channel: {}, retry in [{}] ms",
+                        channel, RECONNECT_INTERVAL, e);
+                try {
+                    Thread.sleep(RECONNECT_INTERVAL);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            reconnect = true;
+        }
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        running = false;
+        JedisPubSub current = pubSub;
+        if (null != current && current.isSubscribed()) {
+            current.unsubscribe();
+        }
+    }
+
+}
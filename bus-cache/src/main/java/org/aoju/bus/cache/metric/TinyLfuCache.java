@@ -0,0 +1,996 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.cache.metric;
+
+import org.aoju.bus.cache.CacheX;
+import org.aoju.bus.cache.magic.CacheExpire;
+import org.aoju.bus.core.toolkit.MapKit;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 基于 W-TinyLFU 的本地缓存支持
+ * <p>
+ * 数据保存在实例级的{@link ConcurrentHashMap}中, 读操作不加锁,
+ * 只把访问记录写入有损的分段环形缓冲区; 写操作以任务形式进入写缓冲区,
+ * 由拿到维护锁的线程批量回放到淘汰策略上(窗口LRU + 分段LRU + 频率草图准入),
+ * 单条过期时间则由分层时间轮负责
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+public class TinyLfuCache implements CacheX {
+
+    /**
+     * 默认最大权重(未指定权重计算时即为最大条目数)
+     */
+    public static final long DEFAULT_MAXIMUM = 10_000L;
+
+    /**
+     * 写缓冲区积压超过该值时, 写线程阻塞等待维护锁, 避免缓冲区无限增长
+     */
+    private static final int WRITE_BUFFER_MAX = 128;
+
+    /**
+     * 准入窗口占总容量的比例
+     */
+    private static final double PERCENT_WINDOW = 0.01d;
+
+    /**
+     * 主空间中保护区所占的比例
+     */
+    private static final double PERCENT_MAIN_PROTECTED = 0.80d;
+
+    /**
+     * 候选者频率超过该值时才有机会被随机准入, 防止哈希冲突攻击
+     */
+    private static final int ADMIT_HASHDOS_THRESHOLD = 6;
+
+    private final ConcurrentHashMap<String, Node> data;
+    private final Weigher weigher;
+    private final long maximum;
+    private final long windowMaximum;
+    private final long mainProtectedMaximum;
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final ReadBuffer readBuffer = new ReadBuffer();
+    private final Queue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingWrites = new AtomicInteger();
+
+    // 以下策略状态只在持有 evictionLock 时访问
+    private final FrequencySketch sketch = new FrequencySketch();
+    private final TimerWheel timerWheel;
+    private final AccessOrderDeque window = new AccessOrderDeque();
+    private final AccessOrderDeque probation = new AccessOrderDeque();
+    private final AccessOrderDeque protect = new AccessOrderDeque();
+    private long weightedSize;
+    private long windowWeightedSize;
+    private long mainProtectedWeightedSize;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    public TinyLfuCache() {
+        this(DEFAULT_MAXIMUM);
+    }
+
+    public TinyLfuCache(long maximum) {
+        this(maximum, Weigher.SINGLETON);
+    }
+
+    /**
+     * 构造
+     *
+     * @param maximum 最大权重
+     * @param weigher 条目权重计算
+     */
+    public TinyLfuCache(long maximum, Weigher weigher) {
+        if (maximum <= 0) {
+            throw new IllegalArgumentException("maximum weight must be positive");
+        }
+        this.maximum = maximum;
+        this.weigher = null == weigher ? Weigher.SINGLETON : weigher;
+        this.windowMaximum = Math.max(1L, (long) (maximum * PERCENT_WINDOW));
+        this.mainProtectedMaximum = (long) ((maximum - windowMaximum) * PERCENT_MAIN_PROTECTED);
+        this.data = new ConcurrentHashMap<>((int) Math.min(maximum, 1 << 16));
+        this.timerWheel = new TimerWheel(System.nanoTime());
+        this.sketch.ensureCapacity(this.weigher == Weigher.SINGLETON ? maximum : Math.min(maximum, 1 << 10));
+    }
+
+    @Override
+    public Object read(String key) {
+        Node node = data.get(key);
+        if (null == node) {
+            missCount.increment();
+            return null;
+        }
+        Object value = node.value;
+        if (node.isExpired(System.nanoTime())) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        afterRead(node);
+        return value;
+    }
+
+    @Override
+    public Map<String, Object> read(Collection<String> keys) {
+        Map<String, Object> result = new HashMap<>(keys.size());
+        for (String key : keys) {
+            Object value = read(key);
+            if (null != value) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void write(String key, Object value, long expire) {
+        if (null == key || null == value) {
+            return;
+        }
+        long expireAt = expireAt(expire);
+        int weight = weigher.weigh(key, value);
+
+        for (; ; ) {
+            Node prior = data.get(key);
+            if (null == prior) {
+                Node node = new Node(key, value, weight, expireAt);
+                prior = data.putIfAbsent(key, node);
+                if (null == prior) {
+                    afterWrite(new AddTask(node));
+                    return;
+                }
+            }
+
+            synchronized (prior) {
+                if (!prior.isAlive()) {
+                    // 正在被淘汰或移除, 重新尝试
+                    continue;
+                }
+                prior.value = value;
+                prior.weight = weight;
+                prior.expireAt = expireAt;
+            }
+            afterWrite(new UpdateTask(prior));
+            return;
+        }
+    }
+
+    @Override
+    public void write(Map<String, Object> keyValueMap, long expire) {
+        if (MapKit.isNotEmpty(keyValueMap)) {
+            keyValueMap.forEach((key, value) -> write(key, value, expire));
+        }
+    }
+
+    @Override
+    public void remove(String... keys) {
+        for (String key : keys) {
+            Node node = data.remove(key);
+            if (null != node) {
+                synchronized (node) {
+                    node.retire();
+                }
+                afterWrite(new RemovalTask(node));
+            }
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    @Override
+    public void clear() {
+        for (String key : data.keySet()) {
+            remove(key);
+        }
+        cleanUp();
+    }
+
+    /**
+     * 立即执行一次维护: 回放读写缓冲区、清理过期条目并按容量淘汰
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @return 当前条目数(包含尚未清理的过期条目)
+     */
+    public long estimatedSize() {
+        return data.mappingCount();
+    }
+
+    /**
+     * @return 当前已计入淘汰策略的总权重
+     */
+    public long weightedSize() {
+        evictionLock.lock();
+        try {
+            return weightedSize;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public long getMaximum() {
+        return maximum;
+    }
+
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    public long evictionCount() {
+        return evictionCount.sum();
+    }
+
+    private long expireAt(long expire) {
+        if (expire <= CacheExpire.FOREVER) {
+            return Node.NEVER;
+        }
+        long at = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(expire);
+        return at == Node.NEVER ? at - 1 : at;
+    }
+
+    private void afterRead(Node node) {
+        if (readBuffer.offer(node) == ReadBuffer.FULL) {
+            tryMaintenance();
+        }
+    }
+
+    private void afterWrite(Runnable task) {
+        writeBuffer.add(task);
+        if (pendingWrites.incrementAndGet() > WRITE_BUFFER_MAX) {
+            cleanUp();
+        } else {
+            tryMaintenance();
+        }
+    }
+
+    private void tryMaintenance() {
+        do {
+            if (!evictionLock.tryLock()) {
+                // 其他线程正在维护, 由它负责回放
+                return;
+            }
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+        } while (!writeBuffer.isEmpty());
+    }
+
+    /**
+     * 维护主流程, 调用方需持有 evictionLock
+     */
+    private void maintenance() {
+        readBuffer.drainTo(this::onAccess);
+        drainWriteBuffer();
+        timerWheel.advance(this, System.nanoTime());
+        evictEntries();
+    }
+
+    private void drainWriteBuffer() {
+        Runnable task;
+        while (null != (task = writeBuffer.poll())) {
+            pendingWrites.decrementAndGet();
+            task.run();
+        }
+    }
+
+    private void onAccess(Node node) {
+        if (!node.isAlive()) {
+            return;
+        }
+        sketch.increment(node.key);
+        switch (node.queueType) {
+            case Node.WINDOW:
+                window.moveToBack(node);
+                break;
+            case Node.PROBATION:
+                // 试用区再次被访问, 晋升到保护区
+                probation.remove(node);
+                protect.addLast(node);
+                node.queueType = Node.PROTECTED;
+                mainProtectedWeightedSize += node.policyWeight;
+                break;
+            case Node.PROTECTED:
+                protect.moveToBack(node);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void evictEntries() {
+        int candidates = evictFromWindow();
+        evictFromMain(candidates);
+        demoteFromMainProtected();
+    }
+
+    /**
+     * 将超出窗口容量的条目移入试用区尾部, 作为准入候选者
+     *
+     * @return 候选者数量
+     */
+    private int evictFromWindow() {
+        int candidates = 0;
+        Node node = window.peekFirst();
+        while (windowWeightedSize > windowMaximum && null != node) {
+            Node next = node.next;
+            window.remove(node);
+            probation.addLast(node);
+            node.queueType = Node.PROBATION;
+            windowWeightedSize -= node.policyWeight;
+            candidates++;
+            node = next;
+        }
+        return candidates;
+    }
+
+    /**
+     * 总权重超出时, 在试用区头部的牺牲者与尾部的候选者之间按访问频率淘汰
+     *
+     * @param candidates 候选者数量
+     */
+    private void evictFromMain(int candidates) {
+        Node victim = probation.peekFirst();
+        Node candidate = probation.peekLast();
+        while (weightedSize > maximum) {
+            if (candidates <= 0) {
+                candidate = null;
+            }
+            if (null == victim && null == candidate) {
+                // 候选者已处理完, 依次从试用区、保护区、窗口淘汰
+                Node node = probation.peekFirst();
+                if (null == node) {
+                    node = null != protect.peekFirst() ? protect.peekFirst() : window.peekFirst();
+                }
+                if (null == node) {
+                    break;
+                }
+                evictEntry(node, false);
+                continue;
+            }
+
+            Node evict;
+            if (null == victim || victim == candidate) {
+                evict = candidate;
+                candidate = candidate.prev;
+                candidates--;
+                if (evict == victim) {
+                    victim = null;
+                }
+            } else if (null == candidate) {
+                evict = victim;
+                victim = victim.next;
+            } else if (admit(candidate.key, victim.key)) {
+                evict = victim;
+                victim = victim.next;
+            } else {
+                evict = candidate;
+                candidate = candidate.prev;
+                candidates--;
+            }
+            evictEntry(evict, false);
+        }
+    }
+
+    private void demoteFromMainProtected() {
+        while (mainProtectedWeightedSize > mainProtectedMaximum) {
+            Node node = protect.peekFirst();
+            if (null == node) {
+                break;
+            }
+            protect.remove(node);
+            probation.addLast(node);
+            node.queueType = Node.PROBATION;
+            mainProtectedWeightedSize -= node.policyWeight;
+        }
+    }
+
+    private boolean admit(String candidateKey, String victimKey) {
+        int victimFreq = sketch.frequency(victimKey);
+        int candidateFreq = sketch.frequency(candidateKey);
+        if (candidateFreq > victimFreq) {
+            return true;
+        } else if (candidateFreq <= ADMIT_HASHDOS_THRESHOLD) {
+            return false;
+        }
+        return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+    }
+
+    /**
+     * 淘汰指定条目, 调用方需持有 evictionLock
+     *
+     * @param node    条目
+     * @param expired 是否因过期而淘汰
+     * @return 是否被淘汰; 过期条目在此期间被更新时返回false
+     */
+    boolean evictEntry(Node node, boolean expired) {
+        long now = System.nanoTime();
+        boolean[] resurrected = {false};
+        data.computeIfPresent(node.key, (key, current) -> {
+            if (current != node) {
+                return current;
+            }
+            synchronized (node) {
+                if (expired && !node.isExpired(now)) {
+                    resurrected[0] = true;
+                    return node;
+                }
+                node.retire();
+                return null;
+            }
+        });
+        if (resurrected[0]) {
+            return false;
+        }
+        if (node.queueType != Node.NONE) {
+            evictionCount.increment();
+        }
+        unlink(node);
+        return true;
+    }
+
+    private void unlink(Node node) {
+        switch (node.queueType) {
+            case Node.WINDOW:
+                window.remove(node);
+                windowWeightedSize -= node.policyWeight;
+                break;
+            case Node.PROBATION:
+                probation.remove(node);
+                break;
+            case Node.PROTECTED:
+                protect.remove(node);
+                mainProtectedWeightedSize -= node.policyWeight;
+                break;
+            default:
+                break;
+        }
+        if (node.queueType != Node.NONE) {
+            weightedSize -= node.policyWeight;
+        }
+        timerWheel.deschedule(node);
+        node.queueType = Node.NONE;
+        node.policyWeight = 0;
+        node.dead = true;
+    }
+
+    /**
+     * 条目权重计算
+     */
+    @FunctionalInterface
+    public interface Weigher {
+
+        /**
+         * 所有条目权重均为1, 此时最大权重即最大条目数
+         */
+        Weigher SINGLETON = (key, value) -> 1;
+
+        /**
+         * 计算条目权重
+         *
+         * @param key   键
+         * @param value 值
+         * @return 非负权重
+         */
+        int weigh(String key, Object value);
+
+    }
+
+    /**
+     * 缓存条目, 同时是访问顺序链表与时间轮链表的节点
+     */
+    static final class Node {
+
+        static final long NEVER = Long.MAX_VALUE;
+
+        static final int NONE = 0;
+        static final int WINDOW = 1;
+        static final int PROBATION = 2;
+        static final int PROTECTED = 3;
+
+        final String key;
+        volatile Object value;
+        volatile int weight;
+        volatile long expireAt;
+        volatile boolean alive = true;
+
+        // 以下字段只在持有 evictionLock 时访问
+        int policyWeight;
+        int queueType = NONE;
+        boolean dead;
+        Node prev;
+        Node next;
+        Node prevInTimer;
+        Node nextInTimer;
+
+        Node(String key, Object value, int weight, long expireAt) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expireAt = expireAt;
+        }
+
+        boolean isAlive() {
+            return alive;
+        }
+
+        void retire() {
+            alive = false;
+        }
+
+        boolean isExpired(long now) {
+            long at = expireAt;
+            return at != NEVER && now - at >= 0;
+        }
+    }
+
+    /**
+     * 新增条目: 进入窗口并登记到时间轮
+     */
+    private final class AddTask implements Runnable {
+
+        private final Node node;
+
+        AddTask(Node node) {
+            this.node = node;
+        }
+
+        @Override
+        public void run() {
+            if (!node.isAlive() || node.dead) {
+                return;
+            }
+            int weight = node.weight;
+            node.policyWeight = weight;
+            node.queueType = Node.WINDOW;
+            window.addLast(node);
+            weightedSize += weight;
+            windowWeightedSize += weight;
+            if (node.expireAt != Node.NEVER) {
+                timerWheel.schedule(node);
+            }
+            if (weigher != Weigher.SINGLETON) {
+                sketch.ensureCapacity(data.mappingCount());
+            }
+            sketch.increment(node.key);
+        }
+    }
+
+    /**
+     * 更新条目: 修正权重与过期时间, 并视为一次访问
+     */
+    private final class UpdateTask implements Runnable {
+
+        private final Node node;
+
+        UpdateTask(Node node) {
+            this.node = node;
+        }
+
+        @Override
+        public void run() {
+            if (node.queueType == Node.NONE) {
+                // 新增任务尚未回放或已被淘汰
+                return;
+            }
+            int diff = node.weight - node.policyWeight;
+            node.policyWeight += diff;
+            weightedSize += diff;
+            if (node.queueType == Node.WINDOW) {
+                windowWeightedSize += diff;
+            } else if (node.queueType == Node.PROTECTED) {
+                mainProtectedWeightedSize += diff;
+            }
+            timerWheel.deschedule(node);
+            if (node.expireAt != Node.NEVER) {
+                timerWheel.schedule(node);
+            }
+            onAccess(node);
+        }
+    }
+
+    /**
+     * 移除条目: 从淘汰策略和时间轮中摘除
+     */
+    private final class RemovalTask implements Runnable {
+
+        private final Node node;
+
+        RemovalTask(Node node) {
+            this.node = node;
+        }
+
+        @Override
+        public void run() {
+            unlink(node);
+        }
+    }
+
+    /**
+     * 侵入式双向链表, 按访问顺序排列, 头部最久未访问
+     */
+    static final class AccessOrderDeque {
+
+        private Node first;
+        private Node last;
+
+        Node peekFirst() {
+            return first;
+        }
+
+        Node peekLast() {
+            return last;
+        }
+
+        void addLast(Node node) {
+            node.prev = last;
+            node.next = null;
+            if (null == last) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+
+        void remove(Node node) {
+            Node prev = node.prev;
+            Node next = node.next;
+            if (null == prev) {
+                if (first == node) {
+                    first = next;
+                }
+            } else {
+                prev.next = next;
+            }
+            if (null == next) {
+                if (last == node) {
+                    last = prev;
+                }
+            } else {
+                next.prev = prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToBack(Node node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /**
+     * 分段有损环形缓冲区, 记录读访问
+     * 缓冲区满时直接丢弃本次记录, 只影响淘汰精度, 不影响正确性
+     */
+    static final class ReadBuffer {
+
+        static final int SUCCESS = 0;
+        static final int FAILED = 1;
+        static final int FULL = 2;
+
+        private static final int BUFFER_SIZE = 16;
+        private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+
+        private final Stripe[] stripes;
+        private final int mask;
+
+        ReadBuffer() {
+            int count = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+            this.stripes = new Stripe[count];
+            for (int i = 0; i < count; i++) {
+                stripes[i] = new Stripe();
+            }
+            this.mask = count - 1;
+        }
+
+        private static int probe() {
+            int h = (int) Thread.currentThread().getId();
+            h ^= h >>> 16;
+            h *= 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        int offer(Node node) {
+            return stripes[probe() & mask].offer(node);
+        }
+
+        void drainTo(Consumer<Node> consumer) {
+            for (Stripe stripe : stripes) {
+                stripe.drainTo(consumer);
+            }
+        }
+
+        static final class Stripe {
+
+            private final AtomicReferenceArray<Node> buffer = new AtomicReferenceArray<>(BUFFER_SIZE);
+            private final AtomicLong writeCounter = new AtomicLong();
+            private volatile long readCounter;
+
+            int offer(Node node) {
+                long head = readCounter;
+                long tail = writeCounter.get();
+                if (tail - head >= BUFFER_SIZE) {
+                    return FULL;
+                }
+                if (writeCounter.compareAndSet(tail, tail + 1)) {
+                    buffer.lazySet((int) (tail & BUFFER_MASK), node);
+                    return SUCCESS;
+                }
+                return FAILED;
+            }
+
+            void drainTo(Consumer<Node> consumer) {
+                long head = readCounter;
+                long tail = writeCounter.get();
+                while (head != tail) {
+                    int index = (int) (head & BUFFER_MASK);
+                    Node node = buffer.get(index);
+                    if (null == node) {
+                        // 槽位已被占用但尚未发布
+                        break;
+                    }
+                    buffer.lazySet(index, null);
+                    consumer.accept(node);
+                    head++;
+                }
+                readCounter = head;
+            }
+        }
+    }
+
+    /**
+     * 4位计数的 Count-Min 频率草图, 用于估算条目的历史访问频率
+     * 累计增量达到采样数后所有计数减半, 使频率随时间衰减
+     */
+    static final class FrequencySketch {
+
+        private static final long[] SEED = {
+                0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+        private static final long ONE_MASK = 0x1111111111111111L;
+
+        private long[] table;
+        private int tableMask;
+        private int sampleSize;
+        private int size;
+
+        private static int spread(int x) {
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            return (x >>> 16) ^ x;
+        }
+
+        void ensureCapacity(long maximumSize) {
+            int maximum = (int) Math.min(Math.max(maximumSize, 8L), Integer.MAX_VALUE >>> 1);
+            if (null != table && table.length >= maximum) {
+                return;
+            }
+            table = new long[Integer.highestOneBit(maximum - 1) << 1];
+            tableMask = table.length - 1;
+            sampleSize = 10 * maximum;
+            if (sampleSize <= 0) {
+                sampleSize = Integer.MAX_VALUE;
+            }
+            size = 0;
+        }
+
+        int frequency(String key) {
+            int hash = spread(key.hashCode());
+            int start = (hash & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < 4; i++) {
+                int index = indexOf(hash, i);
+                int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        void increment(String key) {
+            int hash = spread(key.hashCode());
+            int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                added |= incrementAt(indexOf(hash, i), start + i);
+            }
+            if (added && ++size == sampleSize) {
+                reset();
+            }
+        }
+
+        private boolean incrementAt(int i, int j) {
+            int offset = j << 2;
+            long mask = (0xfL << offset);
+            if ((table[i] & mask) != mask) {
+                table[i] += (1L << offset);
+                return true;
+            }
+            return false;
+        }
+
+        private void reset() {
+            int count = 0;
+            for (int i = 0; i < table.length; i++) {
+                count += Long.bitCount(table[i] & ONE_MASK);
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            size = (size - (count >>> 2)) >>> 1;
+        }
+
+        private int indexOf(int item, int i) {
+            long hash = (item + SEED[i]) * SEED[i];
+            hash += (hash >>> 32);
+            return ((int) hash) & tableMask;
+        }
+    }
+
+    /**
+     * 分层时间轮, 各层刻度约为 1.07秒、1.14分、1.22小时、1.63天、6.5天
+     * 推进时间时到期的桶被整体取出, 未真正过期的条目降级到更精细的层级
+     */
+    static final class TimerWheel {
+
+        private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+        private static final long[] SPANS = {
+                Long.highestOneBit(TimeUnit.SECONDS.toNanos(1)) << 1,
+                Long.highestOneBit(TimeUnit.MINUTES.toNanos(1)) << 1,
+                Long.highestOneBit(TimeUnit.HOURS.toNanos(1)) << 1,
+                Long.highestOneBit(TimeUnit.DAYS.toNanos(1)) << 1,
+                BUCKETS[3] * (Long.highestOneBit(TimeUnit.DAYS.toNanos(1)) << 1),
+                BUCKETS[3] * (Long.highestOneBit(TimeUnit.DAYS.toNanos(1)) << 1)
+        };
+        private static final long[] SHIFT = {
+                Long.numberOfTrailingZeros(SPANS[0]),
+                Long.numberOfTrailingZeros(SPANS[1]),
+                Long.numberOfTrailingZeros(SPANS[2]),
+                Long.numberOfTrailingZeros(SPANS[3]),
+                Long.numberOfTrailingZeros(SPANS[4])
+        };
+
+        private final Node[][] wheel;
+        private long nanos;
+
+        TimerWheel(long nanos) {
+            this.nanos = nanos;
+            this.wheel = new Node[BUCKETS.length][];
+            for (int i = 0; i < wheel.length; i++) {
+                wheel[i] = new Node[BUCKETS[i]];
+                for (int j = 0; j < wheel[i].length; j++) {
+                    Node sentinel = new Node(null, null, 0, Node.NEVER);
+                    sentinel.prevInTimer = sentinel;
+                    sentinel.nextInTimer = sentinel;
+                    wheel[i][j] = sentinel;
+                }
+            }
+        }
+
+        void advance(TinyLfuCache cache, long currentTimeNanos) {
+            long previousTimeNanos = nanos;
+            nanos = currentTimeNanos;
+            for (int i = 0; i < SHIFT.length; i++) {
+                long previousTicks = previousTimeNanos >>> SHIFT[i];
+                long currentTicks = currentTimeNanos >>> SHIFT[i];
+                if (currentTicks - previousTicks <= 0L) {
+                    break;
+                }
+                expire(cache, i, previousTicks, currentTicks);
+            }
+        }
+
+        private void expire(TinyLfuCache cache, int index, long previousTicks, long currentTicks) {
+            Node[] timerWheel = wheel[index];
+            int mask = timerWheel.length - 1;
+            long delta = (currentTicks - previousTicks) + 1;
+            int probes = delta >= timerWheel.length ? timerWheel.length : (int) delta;
+            int start = (int) (previousTicks & mask);
+            for (int i = 0; i < probes; i++) {
+                Node sentinel = timerWheel[(start + i) & mask];
+                Node node = sentinel.nextInTimer;
+                sentinel.prevInTimer = sentinel;
+                sentinel.nextInTimer = sentinel;
+                while (node != sentinel) {
+                    Node next = node.nextInTimer;
+                    node.prevInTimer = null;
+                    node.nextInTimer = null;
+                    if ((node.expireAt - nanos) > 0 || !cache.evictEntry(node, true)) {
+                        if (node.expireAt != Node.NEVER && node.isAlive()) {
+                            schedule(node);
+                        }
+                    }
+                    node = next;
+                }
+            }
+        }
+
+        void schedule(Node node) {
+            Node sentinel = findBucket(node.expireAt);
+            Node last = sentinel.prevInTimer;
+            node.prevInTimer = last;
+            node.nextInTimer = sentinel;
+            last.nextInTimer = node;
+            sentinel.prevInTimer = node;
+        }
+
+        void deschedule(Node node) {
+            if (null != node.nextInTimer) {
+                node.nextInTimer.prevInTimer = node.prevInTimer;
+                node.prevInTimer.nextInTimer = node.nextInTimer;
+                node.prevInTimer = null;
+                node.nextInTimer = null;
+            }
+        }
+
+        private Node findBucket(long time) {
+            long duration = time - nanos;
+            int length = wheel.length - 1;
+            for (int i = 0; i < length; i++) {
+                if (duration < SPANS[i + 1]) {
+                    long ticks = time >>> SHIFT[i];
+                    int index = (int) (ticks & (wheel[i].length - 1));
+                    return wheel[i][index];
+                }
+            }
+            return wheel[length][0];
+        }
+    }
+
+}
@@ -25,16 +25,22 @@
 package org.aoju.bus.cache.provider;
 
 import org.aoju.bus.cache.Hitting;
-import org.aoju.bus.cache.magic.CachePair;
 import org.aoju.bus.core.lang.Normal;
+import org.aoju.bus.logger.Logger;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.yaml.snakeyaml.Yaml;
 
 import javax.annotation.PreDestroy;
 import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
@@ -48,36 +54,41 @@ import java.util.stream.Stream;
  */
 public abstract class AbstractHitting implements Hitting {
 
-    private static final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+    private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
         Thread thread = new Thread(r);
         thread.setName("cache:db-writer");
         thread.setDaemon(true);
         return thread;
     });
 
-    private static final Lock lock = new ReentrantLock();
+    /**
+     * 默认刷新间隔(毫秒)
+     */
+    private static final long DEFAULT_FLUSH_INTERVAL = 5000L;
 
-    private volatile boolean isShutdown = false;
+    // 本地累计的增量, 定时批量写入DB
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
 
-    private BlockingQueue<CachePair<String, Integer>> hitQueue = new LinkedTransferQueue<>();
+    private final Lock flushLock = new ReentrantLock();
 
-    private BlockingQueue<CachePair<String, Integer>> requireQueue = new LinkedTransferQueue<>();
+    private final ScheduledFuture<?> flushFuture;
 
     private JdbcOperations jdbcOperations;
 
     private Properties sqls;
 
+    /**
+     * @param context 其他参数, 可通过"flushInterval"指定刷新间隔(毫秒)
+     */
     protected AbstractHitting(Map<String, Object> context) {
         InputStream resource = this.getClass().getClassLoader().getResourceAsStream(Normal.META_DATA_INF + "/caches/bus-cache.yaml");
         this.sqls = new Yaml().loadAs(resource, Properties.class);
 
         this.jdbcOperations = jdbcOperationsSupplier(context).get();
-        executor.submit(() -> {
-            while (!isShutdown) {
-                dumpToDB(hitQueue, "hit_count");
-                dumpToDB(requireQueue, "require_count");
-            }
-        });
+
+        Object interval = context.get("flushInterval");
+        long flushInterval = null == interval ? DEFAULT_FLUSH_INTERVAL : Long.parseLong(interval.toString());
+        this.flushFuture = executor.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
     }
 
     public AbstractHitting(String url, String username, String password) {
@@ -117,37 +128,140 @@ public abstract class AbstractHitting implements Hitting {
      */
     protected abstract Stream<DataDO> transferResults(List<Map<String, Object>> map);
 
-    private void dumpToDB(BlockingQueue<CachePair<String, Integer>> queue, String column) {
-        long times = 0;
-        CachePair<String, Integer> head;
-
-        // gather queue's all or before 100 data to a Map
-        Map<String, AtomicLong> holdMap = new HashMap<>();
-        while ((head = queue.poll()) != null && times <= 100) {
-            holdMap
-                    .computeIfAbsent(head.getLeft(), (key) -> new AtomicLong(0L))
-                    .addAndGet(head.getRight());
-            ++times;
+    /**
+     * 将累计的增量批量写入DB, 已存在的pattern做增量更新, 不存在的批量插入
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<String> patterns = new ArrayList<>();
+            List<Object[]> deltas = new ArrayList<>();
+            counters.forEach((pattern, counter) -> {
+                long hit = counter.hit.sum();
+                long require = counter.require.sum();
+                if (hit != 0 || require != 0) {
+                    // 减去已取走的值而非reset, 不丢失并发累加的增量
+                    counter.hit.add(-hit);
+                    counter.require.add(-require);
+                    patterns.add(pattern);
+                    deltas.add(new Object[]{hit, require, pattern});
+                }
+            });
+            if (deltas.isEmpty()) {
+                return;
+            }
+
+            try {
+                doFlush(patterns, deltas);
+            } catch (Throwable e) {
+                // 写入失败时归还增量, 下次重试
+                for (Object[] delta : deltas) {
+                    Counter counter = counter((String) delta[2]);
+                    counter.hit.add((long) delta[0]);
+                    counter.require.add((long) delta[1]);
+                }
+                Logger.error("flush cache hitting to db failed", e);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 在同一事务中写入增量, 失败时整体回滚, 由调用方归还增量, 不会重复累加
+     */
+    private void doFlush(List<String> patterns, List<Object[]> deltas) {
+        jdbcOperations.execute((ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                try {
+                    apply(connection, patterns, deltas);
+                } catch (SQLException e) {
+                    // 其他节点已插入同一pattern, 回滚后重试一次, 此时更新即可命中
+                    connection.rollback();
+                    apply(connection, patterns, deltas);
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    private void apply(Connection connection, List<String> patterns, List<Object[]> deltas) throws SQLException {
+        int[] updated = executeBatch(connection, sqls.getProperty("increase"), deltas);
+        for (int count : updated) {
+            if (count == Statement.SUCCESS_NO_INFO) {
+                // 驱动未返回影响行数时无法区分更新与未命中, 回滚后逐条更新
+                connection.rollback();
+                updated = new int[deltas.size()];
+                for (int i = 0; i < updated.length; ++i) {
+                    updated[i] = executeUpdate(connection, sqls.getProperty("increase"), deltas.get(i));
+                }
+                break;
+            }
+        }
+
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < updated.length; ++i) {
+            if (updated[i] == 0) {
+                Object[] delta = deltas.get(i);
+                inserts.add(new Object[]{patterns.get(i), delta[0], delta[1]});
+            }
+        }
+        if (!inserts.isEmpty()) {
+            executeBatch(connection, sqls.getProperty("insert"), inserts);
+        }
+    }
+
+    private static int[] executeBatch(Connection connection, String sql, List<Object[]> args) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (Object[] arg : args) {
+                bind(statement, arg);
+                statement.addBatch();
+            }
+            return statement.executeBatch();
         }
+    }
 
-        // batch write to DB
-        holdMap.forEach((pattern, count) -> countAddCas(column, pattern, count.get()));
+    private static int executeUpdate(Connection connection, String sql, Object[] args) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            bind(statement, args);
+            return statement.executeUpdate();
+        }
+    }
+
+    private static void bind(PreparedStatement statement, Object[] args) throws SQLException {
+        for (int i = 0; i < args.length; ++i) {
+            statement.setObject(i + 1, args[i]);
+        }
+    }
+
+    private Counter counter(String pattern) {
+        Counter counter = counters.get(pattern);
+        return null != counter ? counter : counters.computeIfAbsent(pattern, key -> new Counter());
     }
 
     @Override
     public void hitIncr(String pattern, int count) {
         if (count != 0)
-            hitQueue.add(CachePair.of(pattern, count));
+            counter(pattern).hit.add(count);
     }
 
     @Override
     public void reqIncr(String pattern, int count) {
         if (count != 0)
-            requireQueue.add(CachePair.of(pattern, count));
+            counter(pattern).require.add(count);
     }
 
     @Override
     public Map<String, Hitting.HittingDO> getHitting() {
+        flush();
         List<DataDO> dataDOS = queryAll();
         AtomicLong statisticsHit = new AtomicLong(0);
         AtomicLong statisticsRequired = new AtomicLong(0);
@@ -172,46 +286,16 @@ public abstract class AbstractHitting implements Hitting {
 
     @Override
     public void reset(String pattern) {
+        counters.remove(pattern);
         jdbcOperations.update(sqls.getProperty("delete"), pattern);
     }
 
     @Override
     public void resetAll() {
+        counters.clear();
         jdbcOperations.update(sqls.getProperty("truncate"));
     }
 
-    private void countAddCas(String column, String pattern, long count) {
-        Optional<DataDO> dataOptional = queryObject(pattern);
-
-        // if has pattern record, update it.
-        if (dataOptional.isPresent()) {
-            DataDO dataDO = dataOptional.get();
-            while (update(column, pattern, getObjectCount(dataDO, column, count), dataDO.version) <= 0) {
-                dataDO = queryObject(pattern).get();
-            }
-        } else {
-            lock.lock();
-            try {
-                // double check
-                dataOptional = queryObject(pattern);
-                if (dataOptional.isPresent()) {
-                    update(column, pattern, count, dataOptional.get().version);
-                } else {
-                    insert(column, pattern, count);
-                }
-            } finally {
-                lock.unlock();
-            }
-        }
-    }
-
-    private Optional<DataDO> queryObject(String pattern) {
-        String selectSql = sqls.getProperty("select");
-        List<Map<String, Object>> mapResults = jdbcOperations.queryForList(selectSql, pattern);
-
-        return transferResults(mapResults).findFirst();
-    }
-
     private List<DataDO> queryAll() {
         String selectAllQuery = sqls.getProperty("select_all");
         List<Map<String, Object>> mapResults = jdbcOperations.queryForList(selectAllQuery);
@@ -219,34 +303,18 @@ public abstract class AbstractHitting implements Hitting {
         return transferResults(mapResults).collect(Collectors.toList());
     }
 
-    private int insert(String column, String pattern, long count) {
-        String insertSql = String.format(sqls.getProperty("insert"), column);
-
-        return jdbcOperations.update(insertSql, pattern, count);
-    }
-
-    private int update(String column, String pattern, long count, long version) {
-        String updateSql = String.format(sqls.getProperty("update"), column);
-
-        return jdbcOperations.update(updateSql, count, pattern, version);
+    @PreDestroy
+    public void tearDown() {
+        flushFuture.cancel(false);
+        flush();
     }
 
-    private long getObjectCount(DataDO data, String column, long countOffset) {
-        long lastCount = column.equals("hit_count") ? data.hitCount : data.requireCount;
+    private static final class Counter {
 
-        return lastCount + countOffset;
-    }
+        private final LongAdder hit = new LongAdder();
 
-    @PreDestroy
-    public void tearDown() {
-        while (hitQueue.size() > 0 || requireQueue.size() > 0) {
-            try {
-                TimeUnit.SECONDS.sleep(1);
-            } catch (InterruptedException ignored) {
-            }
-        }
+        private final LongAdder require = new LongAdder();
 
-        isShutdown = true;
     }
 
     protected static final class DataDO {
@@ -0,0 +1,109 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.cache.provider;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 将{@link MetricsHitting}的指标绑定到Micrometer
+ * <p>
+ * 已存在及之后新出现的分组模板均会注册, 以"pattern"标签区分
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+public class HittingMeterBinder implements MeterBinder {
+
+    private final MetricsHitting hitting;
+
+    private final String prefix;
+
+    public HittingMeterBinder(MetricsHitting hitting) {
+        this(hitting, "bus.cache");
+    }
+
+    public HittingMeterBinder(MetricsHitting hitting, String prefix) {
+        this.hitting = hitting;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        hitting.onNewPattern(pattern -> bindPattern(registry, pattern));
+        hitting.patterns().forEach(pattern -> bindPattern(registry, pattern));
+
+        hitting.cacheSnapshot().keySet().forEach(name -> bindCache(registry, name));
+    }
+
+    private void bindPattern(MeterRegistry registry, String pattern) {
+        MetricsHitting.PatternMetrics metrics = hitting.metrics(pattern);
+        Tags tags = Tags.of("pattern", pattern);
+
+        FunctionCounter.builder(prefix + ".hits", metrics, m -> m.hit.sum())
+                .tags(tags).register(registry);
+        FunctionCounter.builder(prefix + ".requests", metrics, m -> m.required.sum())
+                .tags(tags).register(registry);
+        FunctionCounter.builder(prefix + ".coalesced", metrics, m -> m.coalesced.sum())
+                .tags(tags).register(registry);
+        FunctionCounter.builder(prefix + ".loads", metrics, m -> m.load.count())
+                .tags(tags).register(registry);
+
+        loadGauge(registry, tags, metrics, "0.5", m -> m.load.percentile(0.5));
+        loadGauge(registry, tags, metrics, "0.99", m -> m.load.percentile(0.99));
+        loadGauge(registry, tags, metrics, "max", m -> m.load.max());
+    }
+
+    private void loadGauge(MeterRegistry registry, Tags tags, MetricsHitting.PatternMetrics metrics,
+                           String quantile, ToDoubleFunction<MetricsHitting.PatternMetrics> function) {
+        TimeGauge.builder(prefix + ".load", metrics, TimeUnit.MICROSECONDS, function)
+                .tags(tags.and("quantile", quantile)).register(registry);
+    }
+
+    private void bindCache(MeterRegistry registry, String name) {
+        Tags tags = Tags.of("cache", name);
+        Gauge.builder(prefix + ".size", hitting, h -> cacheValue(h, name, MetricsHitting.CacheSnapshot::getSize))
+                .tags(tags).register(registry);
+        Gauge.builder(prefix + ".weighted.size", hitting, h -> cacheValue(h, name, MetricsHitting.CacheSnapshot::getWeightedSize))
+                .tags(tags).register(registry);
+        FunctionCounter.builder(prefix + ".evictions", hitting, h -> cacheValue(h, name, MetricsHitting.CacheSnapshot::getEvictions))
+                .tags(tags).register(registry);
+    }
+
+    private static double cacheValue(MetricsHitting hitting, String name,
+                                     ToDoubleFunction<MetricsHitting.CacheSnapshot> function) {
+        MetricsHitting.CacheSnapshot snapshot = hitting.cacheSnapshot(name);
+        return null == snapshot ? Double.NaN : function.applyAsDouble(snapshot);
+    }
+
+}
@@ -43,6 +43,8 @@ public class MemoryHitting implements Hitting {
 
     private ConcurrentMap<String, AtomicLong> requireMap = new ConcurrentHashMap<>();
 
+    private ConcurrentMap<String, AtomicLong> coalesceMap = new ConcurrentHashMap<>();
+
     @Override
     public void hitIncr(String pattern, int count) {
         hitMap.computeIfAbsent(
@@ -59,23 +61,35 @@ public class MemoryHitting implements Hitting {
         ).addAndGet(count);
     }
 
+    @Override
+    public void coalesceIncr(String pattern, int count) {
+        coalesceMap.computeIfAbsent(
+                pattern,
+                (k) -> new AtomicLong()
+        ).addAndGet(count);
+    }
+
     @Override
     public Map<String, Hitting.HittingDO> getHitting() {
         Map<String, Hitting.HittingDO> result = new LinkedHashMap<>();
 
         AtomicLong statisticsHit = new AtomicLong(0);
         AtomicLong statisticsRequired = new AtomicLong(0);
+        AtomicLong statisticsCoalesced = new AtomicLong(0);
         requireMap.forEach((pattern, count) -> {
             long hit = hitMap.computeIfAbsent(pattern, (key) -> new AtomicLong(0)).get();
             long require = count.get();
+            AtomicLong coalesce = coalesceMap.get(pattern);
+            long coalesced = null == coalesce ? 0 : coalesce.get();
 
             statisticsHit.addAndGet(hit);
             statisticsRequired.addAndGet(require);
+            statisticsCoalesced.addAndGet(coalesced);
 
-            result.put(pattern, Hitting.HittingDO.newInstance(hit, require));
+            result.put(pattern, Hitting.HittingDO.newInstance(hit, require, coalesced));
         });
 
-        result.put(summaryName(), Hitting.HittingDO.newInstance(statisticsHit.get(), statisticsRequired.get()));
+        result.put(summaryName(), Hitting.HittingDO.newInstance(statisticsHit.get(), statisticsRequired.get(), statisticsCoalesced.get()));
 
         return result;
     }
@@ -84,12 +98,14 @@ public class MemoryHitting implements Hitting {
     public void reset(String pattern) {
         hitMap.remove(pattern);
         requireMap.remove(pattern);
+        coalesceMap.remove(pattern);
     }
 
     @Override
     public void resetAll() {
         hitMap.clear();
         requireMap.clear();
+        coalesceMap.clear();
     }
 
 }
@@ -0,0 +1,381 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.cache.provider;
+
+import org.aoju.bus.cache.CacheX;
+import org.aoju.bus.cache.Hitting;
+import org.aoju.bus.cache.metric.NearCache;
+import org.aoju.bus.cache.metric.TinyLfuCache;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 进程内的缓存指标统计, 不依赖外部存储
+ * <p>
+ * 按分组模板统计命中、未命中、合并加载次数及加载耗时分布,
+ * 并汇总已注册缓存实现的条目数、容量占用(使用字节权重时即为字节数)与淘汰次数
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+public class MetricsHitting implements Hitting {
+
+    private final ConcurrentMap<String, PatternMetrics> patterns = new ConcurrentHashMap<>();
+
+    private final Map<String, CacheX> caches = new ConcurrentHashMap<>();
+
+    private final List<Consumer<String>> patternListeners = new CopyOnWriteArrayList<>();
+
+    public MetricsHitting() {
+    }
+
+    public MetricsHitting(Map<String, CacheX> caches) {
+        this.caches.putAll(caches);
+    }
+
+    /**
+     * 注册需要汇总容量与淘汰指标的缓存实现
+     *
+     * @param name  缓存名称
+     * @param cache 缓存实现
+     */
+    public void registerCache(String name, CacheX cache) {
+        caches.put(name, cache);
+    }
+
+    /**
+     * 新分组模板出现时回调
+     *
+     * @param listener 回调
+     */
+    public void onNewPattern(Consumer<String> listener) {
+        patternListeners.add(listener);
+    }
+
+    @Override
+    public void hitIncr(String pattern, int count) {
+        metrics(pattern).hit.add(count);
+    }
+
+    @Override
+    public void reqIncr(String pattern, int count) {
+        metrics(pattern).required.add(count);
+    }
+
+    @Override
+    public void coalesceIncr(String pattern, int count) {
+        metrics(pattern).coalesced.add(count);
+    }
+
+    @Override
+    public void loadRecord(String pattern, long nanos) {
+        metrics(pattern).load.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    @Override
+    public Map<String, HittingDO> getHitting() {
+        Map<String, HittingDO> result = new LinkedHashMap<>();
+
+        long statisticsHit = 0;
+        long statisticsRequired = 0;
+        long statisticsCoalesced = 0;
+        for (Map.Entry<String, PatternMetrics> entry : patterns.entrySet()) {
+            PatternMetrics metrics = entry.getValue();
+            long hit = metrics.hit.sum();
+            long required = metrics.required.sum();
+            long coalesced = metrics.coalesced.sum();
+
+            statisticsHit += hit;
+            statisticsRequired += required;
+            statisticsCoalesced += coalesced;
+
+            result.put(entry.getKey(), HittingDO.newInstance(hit, required, coalesced));
+        }
+
+        result.put(summaryName(), HittingDO.newInstance(statisticsHit, statisticsRequired, statisticsCoalesced));
+
+        return result;
+    }
+
+    /**
+     * @return 分组模板 -> 指标快照
+     */
+    public Map<String, PatternSnapshot> snapshot() {
+        Map<String, PatternSnapshot> result = new TreeMap<>();
+        patterns.forEach((pattern, metrics) -> result.put(pattern, metrics.snapshot()));
+        return result;
+    }
+
+    /**
+     * @param pattern 分组模板
+     * @return 指标快照, 不存在时为null
+     */
+    public PatternSnapshot snapshot(String pattern) {
+        PatternMetrics metrics = patterns.get(pattern);
+        return null == metrics ? null : metrics.snapshot();
+    }
+
+    /**
+     * @return 缓存名称 -> 缓存实现指标快照, 仅包含可统计的实现
+     */
+    public Map<String, CacheSnapshot> cacheSnapshot() {
+        Map<String, CacheSnapshot> result = new TreeMap<>();
+        caches.forEach((name, cache) -> {
+            CacheSnapshot snapshot = CacheSnapshot.of(cache);
+            if (null != snapshot) {
+                result.put(name, snapshot);
+            }
+        });
+        return result;
+    }
+
+    CacheSnapshot cacheSnapshot(String name) {
+        CacheX cache = caches.get(name);
+        return null == cache ? null : CacheSnapshot.of(cache);
+    }
+
+    // 重置计数而不移除, 保持已绑定指标的引用有效
+    @Override
+    public void reset(String pattern) {
+        PatternMetrics metrics = patterns.get(pattern);
+        if (null != metrics) {
+            metrics.reset();
+        }
+    }
+
+    @Override
+    public void resetAll() {
+        patterns.values().forEach(PatternMetrics::reset);
+    }
+
+    PatternMetrics metrics(String pattern) {
+        PatternMetrics metrics = patterns.get(pattern);
+        if (null == metrics) {
+            PatternMetrics created = new PatternMetrics();
+            metrics = patterns.putIfAbsent(pattern, created);
+            if (null == metrics) {
+                metrics = created;
+                patternListeners.forEach(listener -> listener.accept(pattern));
+            }
+        }
+        return metrics;
+    }
+
+    Set<String> patterns() {
+        return patterns.keySet();
+    }
+
+    static final class PatternMetrics {
+
+        final LongAdder hit = new LongAdder();
+
+        final LongAdder required = new LongAdder();
+
+        final LongAdder coalesced = new LongAdder();
+
+        final LatencyHistogram load = new LatencyHistogram();
+
+        PatternSnapshot snapshot() {
+            return new PatternSnapshot(hit.sum(), required.sum(), coalesced.sum(), load.count(), load.mean(),
+                    load.percentile(0.5), load.percentile(0.95), load.percentile(0.99), load.max());
+        }
+
+        void reset() {
+            hit.reset();
+            required.reset();
+            coalesced.reset();
+            load.reset();
+        }
+    }
+
+    /**
+     * 分组模板指标快照, 耗时单位: 微秒
+     */
+    public static final class PatternSnapshot {
+
+        private final long hit;
+
+        private final long required;
+
+        private final long coalesced;
+
+        private final long loadCount;
+
+        private final double loadMean;
+
+        private final long loadP50;
+
+        private final long loadP95;
+
+        private final long loadP99;
+
+        private final long loadMax;
+
+        PatternSnapshot(long hit, long required, long coalesced, long loadCount, double loadMean,
+                        long loadP50, long loadP95, long loadP99, long loadMax) {
+            this.hit = hit;
+            this.required = required;
+            this.coalesced = coalesced;
+            this.loadCount = loadCount;
+            this.loadMean = loadMean;
+            this.loadP50 = loadP50;
+            this.loadP95 = loadP95;
+            this.loadP99 = loadP99;
+            this.loadMax = loadMax;
+        }
+
+        public long getHit() {
+            return hit;
+        }
+
+        public long getMiss() {
+            return Math.max(0, required - hit);
+        }
+
+        public long getRequired() {
+            return required;
+        }
+
+        public double getHitRate() {
+            return required == 0 ? 0 : (double) hit / required;
+        }
+
+        public long getCoalesced() {
+            return coalesced;
+        }
+
+        public long getLoadCount() {
+            return loadCount;
+        }
+
+        public double getLoadMean() {
+            return loadMean;
+        }
+
+        public long getLoadP50() {
+            return loadP50;
+        }
+
+        public long getLoadP95() {
+            return loadP95;
+        }
+
+        public long getLoadP99() {
+            return loadP99;
+        }
+
+        public long getLoadMax() {
+            return loadMax;
+        }
+
+        @Override
+        public String toString() {
+            return "PatternSnapshot{" +
+                    "hit=" + hit +
+                    ", required=" + required +
+                    ", coalesced=" + coalesced +
+                    ", loadCount=" + loadCount +
+                    ", loadP50=" + loadP50 +
+                    ", loadP99=" + loadP99 +
+                    ", loadMax=" + loadMax +
+                    '}';
+        }
+    }
+
+    /**
+     * 缓存实现指标快照
+     */
+    public static final class CacheSnapshot {
+
+        private final long size;
+
+        private final long weightedSize;
+
+        private final long evictions;
+
+        private final long hit;
+
+        private final long miss;
+
+        CacheSnapshot(long size, long weightedSize, long evictions, long hit, long miss) {
+            this.size = size;
+            this.weightedSize = weightedSize;
+            this.evictions = evictions;
+            this.hit = hit;
+            this.miss = miss;
+        }
+
+        static CacheSnapshot of(CacheX cache) {
+            if (cache instanceof TinyLfuCache) {
+                TinyLfuCache tinyLfu = (TinyLfuCache) cache;
+                return new CacheSnapshot(tinyLfu.estimatedSize(), tinyLfu.weightedSize(),
+                        tinyLfu.evictionCount(), tinyLfu.hitCount(), tinyLfu.missCount());
+            }
+            if (cache instanceof NearCache) {
+                NearCache near = (NearCache) cache;
+                return new CacheSnapshot(-1, -1, -1,
+                        near.localHitCount() + near.remoteHitCount(), near.missCount());
+            }
+            return null;
+        }
+
+        /**
+         * @return 条目数, 不支持时为-1
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * @return 权重之和, 使用字节权重时即为占用字节数, 不支持时为-1
+         */
+        public long getWeightedSize() {
+            return weightedSize;
+        }
+
+        /**
+         * @return 淘汰次数, 不支持时为-1
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getHit() {
+            return hit;
+        }
+
+        public long getMiss() {
+            return miss;
+        }
+    }
+
+}
@@ -0,0 +1,233 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.cache.serialize;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.JavaSerializer;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 基于Kryo的二进制序列化
+ * <p>
+ * 每个线程复用一个Kryo实例(缓存类的序列化器)及输入输出缓冲区,
+ * 序列化结果超过{@code compressThreshold}时使用Deflater压缩;
+ * 预先注册的类以整数id代替类名写入, 各节点注册顺序必须一致
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+public class KryoSerializer extends AbstractSerializer {
+
+    /**
+     * 默认压缩阈值(字节)
+     */
+    private static final int DEFAULT_COMPRESS_THRESHOLD = 4096;
+
+    /**
+     * 线程复用缓冲区的最大保留长度, 超过时用完即丢弃
+     */
+    private static final int MAX_POOLED_BUFFER = 1 << 20;
+
+    private static final byte RAW = 0;
+
+    private static final byte DEFLATED = 1;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * Kryo无法直接实例化的JDK包装集合, 退化为JDK序列化
+     */
+    private static final Class<?>[] JDK_WRAPPERS = {
+            Arrays.asList().getClass(),
+            Collections.emptyList().getClass(),
+            Collections.emptySet().getClass(),
+            Collections.emptyMap().getClass(),
+            Collections.singletonList(null).getClass(),
+            Collections.singleton(null).getClass(),
+            Collections.singletonMap(null, null).getClass(),
+            Collections.unmodifiableCollection(new ArrayList<>()).getClass(),
+            Collections.unmodifiableList(new ArrayList<>()).getClass(),
+            Collections.unmodifiableList(new LinkedList<>()).getClass(),
+            Collections.unmodifiableSet(new HashSet<>()).getClass(),
+            Collections.unmodifiableSortedSet(new TreeSet<>()).getClass(),
+            Collections.unmodifiableMap(new HashMap<>()).getClass(),
+            Collections.unmodifiableSortedMap(new TreeMap<>()).getClass()
+    };
+
+    private final int compressThreshold;
+
+    private final Class<?>[] registrations;
+
+    private final ThreadLocal<Holder> holders = ThreadLocal.withInitial(this::newHolder);
+
+    public KryoSerializer(Class<?>... registrations) {
+        this(DEFAULT_COMPRESS_THRESHOLD, registrations);
+    }
+
+    /**
+     * @param compressThreshold 压缩阈值(字节), 小于等于0时不压缩
+     * @param registrations     预先注册的类
+     */
+    public KryoSerializer(int compressThreshold, Class<?>... registrations) {
+        this.compressThreshold = compressThreshold;
+        this.registrations = registrations;
+    }
+
+    @Override
+    protected byte[] doSerialize(Object obj) throws Throwable {
+        Holder holder = holders.get();
+        Output output = holder.output;
+        output.clear();
+        output.writeByte(RAW);
+        holder.kryo.writeClassAndObject(output, obj);
+
+        byte[] bytes;
+        int length = output.position() - 1;
+        if (compressThreshold > 0 && length > compressThreshold) {
+            bytes = holder.deflate(output.getBuffer(), 1, length);
+        } else {
+            bytes = output.toBytes();
+        }
+        holder.trim();
+        return bytes;
+    }
+
+    @Override
+    protected Object doDeserialize(byte[] bytes) throws Throwable {
+        Holder holder = holders.get();
+        Input input = holder.input;
+        if (bytes[0] == DEFLATED) {
+            input.setBuffer(holder.inflate(bytes));
+        } else {
+            input.setBuffer(bytes, 1, bytes.length - 1);
+        }
+        try {
+            return holder.kryo.readClassAndObject(input);
+        } finally {
+            input.setBuffer(EMPTY);
+        }
+    }
+
+    private Holder newHolder() {
+        Kryo kryo = new Kryo();
+        kryo.setRegistrationRequired(false);
+        kryo.setReferences(true);
+        // 没有无参构造的类直接实例化
+        kryo.setInstantiatorStrategy(new Kryo.DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+        JavaSerializer javaSerializer = new JavaSerializer();
+        for (Class<?> clazz : JDK_WRAPPERS) {
+            kryo.addDefaultSerializer(clazz, javaSerializer);
+        }
+        for (Class<?> clazz : registrations) {
+            kryo.register(clazz);
+        }
+        return new Holder(kryo);
+    }
+
+    private static final class Holder {
+
+        private final Kryo kryo;
+
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        private final Inflater inflater = new Inflater();
+
+        private Output output = new Output(256, -1);
+
+        private final Input input = new Input();
+
+        private byte[] scratch = new byte[256];
+
+        Holder(Kryo kryo) {
+            this.kryo = kryo;
+        }
+
+        /**
+         * 格式: [DEFLATED][原始长度(varint)][压缩数据]
+         */
+        byte[] deflate(byte[] buffer, int offset, int length) {
+            deflater.reset();
+            deflater.setInput(buffer, offset, length);
+            deflater.finish();
+
+            Output out = new Output(Math.max(64, length / 2), -1);
+            out.writeByte(DEFLATED);
+            out.writeVarInt(length, true);
+            ensureScratch(Math.max(64, length / 2));
+            while (!deflater.finished()) {
+                int n = deflater.deflate(scratch);
+                out.writeBytes(scratch, 0, n);
+            }
+            return out.toBytes();
+        }
+
+        byte[] inflate(byte[] bytes) throws Exception {
+            Input in = new Input(bytes, 1, bytes.length - 1);
+            int length = in.readVarInt(true);
+            if (length < 0) {
+                throw new DataFormatException("invalid inflated length: " + length);
+            }
+            byte[] result = new byte[length];
+
+            inflater.reset();
+            inflater.setInput(bytes, in.position(), bytes.length - in.position());
+            int read = 0;
+            while (read < length) {
+                int n = inflater.inflate(result, read, length - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    // 数据被截断或损坏, 不能返回补零的结果
+                    throw new DataFormatException("compressed data is truncated: expected "
+                            + length + " bytes, inflated " + read);
+                }
+                read += n;
+            }
+            return result;
+        }
+
+        void trim() {
+            if (output.getBuffer().length > MAX_POOLED_BUFFER) {
+                output = new Output(256, -1);
+            }
+            if (scratch.length > MAX_POOLED_BUFFER) {
+                scratch = new byte[256];
+            }
+        }
+
+        private void ensureScratch(int size) {
+            if (scratch.length < size) {
+                scratch = new byte[Math.min(size, MAX_POOLED_BUFFER)];
+            }
+        }
+    }
+
+}
@@ -41,6 +41,7 @@ import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -63,6 +64,10 @@ public class CacheInfoContainer {
         AnnoHolder annoHolder = getAnnoHolder(method);
         MethodHolder methodHolder = getMethodHolder(method, annoHolder);
 
+        // 校验通过后, 将key的拼装方式编译为可复用的计划
+        annoHolder.setKeyPlan(KeyPlan.compile(method, annoHolder.getPrefix(),
+                annoHolder.getCacheKeyMap(), annoHolder.getMultiIndex()));
+
         return CachePair.of(annoHolder, methodHolder);
     }
 
@@ -114,7 +119,12 @@ public class CacheInfoContainer {
         return builder
                 .setCache(cached.value())
                 .setPrefix(cached.prefix())
-                .setExpire(cached.expire());
+                .setExpire(cached.expire())
+                .setCoalesce(cached.coalesce())
+                .setCoalesceTimeout(cached.coalesceTimeout())
+                .setStaleWhileRevalidate(cached.staleWhileRevalidate())
+                .setBatchSize(cached.batchSize())
+                .setRefreshAhead(cached.refreshAhead());
     }
 
     private static AnnoHolder.Builder scanCachedGet(AnnoHolder.Builder builder, CachedGet cachedGet) {
@@ -134,13 +144,20 @@ public class CacheInfoContainer {
     private static MethodHolder getMethodHolder(Method method, AnnoHolder annoHolder) {
         boolean isCollectionReturn = Collection.class.isAssignableFrom(method.getReturnType());
         boolean isMapReturn = Map.class.isAssignableFrom(method.getReturnType());
+        boolean isAsyncReturn = CompletableFuture.class.isAssignableFrom(method.getReturnType());
 
         staticAnalyze(method.getParameterTypes(),
                 annoHolder,
                 isCollectionReturn,
                 isMapReturn);
 
-        return new MethodHolder(isCollectionReturn);
+        if (isAsyncReturn && annoHolder.isMulti() && !method.isAnnotationPresent(Invalid.class)) {
+            throw new RuntimeException("multi cache not support CompletableFuture return");
+        }
+
+        MethodHolder methodHolder = new MethodHolder(isCollectionReturn);
+        methodHolder.setAsync(isAsyncReturn);
+        return methodHolder;
     }
 
     private static void staticAnalyze(Class<?>[] pTypes, AnnoHolder annoHolder,
@@ -0,0 +1,285 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.cache.support;
+
+import org.aoju.bus.cache.annotation.CacheKey;
+import org.aoju.bus.core.lang.Normal;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 方法的key拼装计划, 由{@link CacheInfoContainer}在首次访问方法时编译一次
+ * <p>
+ * 形如`#arg`的直接参数引用、以及形如`#arg[#i]`的multi元素引用不再经过spel,
+ * 其余表达式预先解析(混合编译模式), 且同一次调用内只创建一个spel环境
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+public class KeyPlan {
+
+    private static final String INDEX = "i";
+
+    private static final Pattern ARG_REF = Pattern.compile("^#([A-Za-z_$][\\w$]*)$");
+
+    private static final Pattern ELEMENT_REF = Pattern.compile("^#([A-Za-z_$][\\w$]*)\\[#" + INDEX + "]$");
+
+    private final String prefix;
+
+    private final String[] argNames;
+
+    private final Part[] parts;
+
+    private final int multiIndex;
+
+    // `#i`指令对应的xArg参数名
+    private final String xIndexName;
+
+    private final boolean hasExpression;
+
+    private final boolean hasElement;
+
+    private KeyPlan(String prefix, String[] argNames, Part[] parts, int multiIndex) {
+        this.prefix = prefix;
+        this.argNames = argNames;
+        this.parts = parts;
+        this.multiIndex = multiIndex;
+        this.xIndexName = ArgNameGenerator.getXArgNames(argNames.length + 1)[argNames.length];
+
+        boolean hasExpression = false;
+        boolean hasElement = false;
+        for (Part part : parts) {
+            hasExpression |= part.kind == Part.EXPRESSION;
+            hasElement |= part.kind == Part.ELEMENT;
+        }
+        this.hasExpression = hasExpression;
+        this.hasElement = hasElement;
+    }
+
+    /**
+     * 编译key拼装计划
+     *
+     * @param method      方法
+     * @param prefix      全局prefix
+     * @param cacheKeyMap 参数索引 -> CacheKey
+     * @param multiIndex  multi参数索引, 没有时为-1
+     * @return 拼装计划
+     */
+    public static KeyPlan compile(Method method, String prefix, Map<Integer, CacheKey> cacheKeyMap, int multiIndex) {
+        String[] argNames = ArgNameGenerator.getArgNames(method);
+        String[] xArgNames = ArgNameGenerator.getXArgNames(argNames.length);
+
+        List<Part> parts = new ArrayList<>(cacheKeyMap.size());
+        for (Map.Entry<Integer, CacheKey> entry : cacheKeyMap.entrySet()) {
+            parts.add(compilePart(entry.getKey(), entry.getValue().value(), argNames, xArgNames, multiIndex));
+        }
+
+        return new KeyPlan(null == prefix ? Normal.EMPTY : prefix, argNames, parts.toArray(new Part[0]), multiIndex);
+    }
+
+    private static Part compilePart(int argIndex, String spel, String[] argNames, String[] xArgNames, int multiIndex) {
+        if (null == spel || spel.isEmpty()) {
+            return new Part(Part.DEFAULT, argIndex, null);
+        }
+
+        Matcher matcher = ARG_REF.matcher(spel);
+        if (matcher.matches()) {
+            String name = matcher.group(1);
+            if (multiIndex != -1 && INDEX.equals(name)) {
+                return new Part(Part.INDEX, -1, null);
+            }
+            int refIndex = indexOf(name, argNames, xArgNames);
+            if (refIndex != -1) {
+                return new Part(Part.ARG, refIndex, null);
+            }
+        }
+
+        matcher = ELEMENT_REF.matcher(spel);
+        if (matcher.matches() && multiIndex != -1
+                && indexOf(matcher.group(1), argNames, xArgNames) == multiIndex) {
+            // multi参数为Map时仍需要spel, 因此保留表达式
+            return new Part(Part.ELEMENT, multiIndex, SpelCalculator.parse(spel));
+        }
+
+        return new Part(Part.EXPRESSION, argIndex, SpelCalculator.parse(spel));
+    }
+
+    // xArg变量后于参数名导入spel环境, 同名时以xArg为准
+    private static int indexOf(String name, String[] argNames, String[] xArgNames) {
+        for (int i = 0; i < xArgNames.length; ++i) {
+            if (xArgNames[i].equals(name)) {
+                return i;
+            }
+        }
+        for (int i = 0; i < argNames.length; ++i) {
+            if (argNames[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 将标记为`multi`的参数转成`Collection`实例
+     *
+     * @param multiArg the object
+     * @return the collection
+     */
+    private static Collection getMultiArgEntries(Object multiArg) {
+        if (multiArg == null) {
+            return Collections.emptyList();
+        }
+
+        if (multiArg instanceof Collection) {
+            return (Collection) multiArg;
+        } else if (multiArg instanceof Map) {
+            return ((Map) multiArg).keySet();
+        } else {
+            // 此处应该在multi参数校验的时候确保只能为Collection、Map、Object[]三种类型
+            return Arrays.asList((Object[]) multiArg);
+        }
+    }
+
+    /**
+     * 拼装单个key
+     *
+     * @param argValues 参数值
+     * @return key
+     */
+    public String generateKey(Object[] argValues) {
+        EvaluationContext context = hasExpression ? newContext(argValues) : null;
+        StringBuilder sb = new StringBuilder(prefix);
+        for (Part part : parts) {
+            sb.append(part.value(argValues, null, -1, false, context));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 拼装multi key
+     *
+     * @param argValues 参数值
+     * @return [multiEntry2Key, key2MultiEntry]
+     */
+    public Map[] generateMultiKey(Object[] argValues) {
+        Object multiArg = argValues[multiIndex];
+        Collection multiArgEntries = getMultiArgEntries(multiArg);
+        boolean elementDirect = !(multiArg instanceof Map);
+
+        /*由于要将Collection内的元素作为Map的Key, 因此就要求元素必须实现的hashcode & equals方法*/
+        int capacity = Math.max(16, (int) (multiArgEntries.size() / 0.75f) + 1);
+        Map<Object, String> multiEntry2Key = new LinkedHashMap<>(capacity);
+        Map<String, Object> key2MultiEntry = new LinkedHashMap<>(capacity);
+
+        EvaluationContext context = hasExpression || (hasElement && !elementDirect) ? newContext(argValues) : null;
+        StringBuilder sb = new StringBuilder(prefix.length() + 16 * parts.length);
+
+        int i = 0;
+        for (Object multiElement : multiArgEntries) {
+            if (null != context) {
+                // 给`#i`指令赋值
+                context.setVariable(INDEX, i);
+                context.setVariable(xIndexName, i);
+            }
+
+            sb.setLength(0);
+            sb.append(prefix);
+            for (Part part : parts) {
+                sb.append(part.value(argValues, multiElement, i, elementDirect, context));
+            }
+            String key = sb.toString();
+
+            key2MultiEntry.put(key, multiElement);
+            multiEntry2Key.put(multiElement, key);
+            ++i;
+        }
+
+        return new Map[]{multiEntry2Key, key2MultiEntry};
+    }
+
+    /**
+     * 将[参数名->参数值]导入spel环境, 一次调用内复用
+     */
+    private EvaluationContext newContext(Object[] argValues) {
+        EvaluationContext context = new StandardEvaluationContext();
+        String[] xArgNames = ArgNameGenerator.getXArgNames(argValues.length);
+        for (int i = 0; i < argValues.length; ++i) {
+            context.setVariable(argNames[i], argValues[i]);
+            context.setVariable(xArgNames[i], argValues[i]);
+        }
+        return context;
+    }
+
+    private static final class Part {
+
+        // 空表达式, 直接使用参数值
+        static final int DEFAULT = 0;
+        // `#arg`
+        static final int ARG = 1;
+        // `#i`
+        static final int INDEX = 2;
+        // `#arg[#i]`
+        static final int ELEMENT = 3;
+        // 其他表达式
+        static final int EXPRESSION = 4;
+
+        private final int kind;
+
+        private final int argIndex;
+
+        private final Expression expression;
+
+        Part(int kind, int argIndex, Expression expression) {
+            this.kind = kind;
+            this.argIndex = argIndex;
+            this.expression = expression;
+        }
+
+        Object value(Object[] argValues, Object element, int i, boolean elementDirect, EvaluationContext context) {
+            switch (kind) {
+                case DEFAULT:
+                case ARG:
+                    return argValues[argIndex];
+                case INDEX:
+                    return i;
+                case ELEMENT:
+                    if (elementDirect) {
+                        return element;
+                    }
+                    return expression.getValue(context);
+                default:
+                    return expression.getValue(context);
+            }
+        }
+    }
+
+}
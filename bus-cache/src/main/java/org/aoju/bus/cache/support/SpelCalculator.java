@@ -27,10 +27,16 @@ package org.aoju.bus.cache.support;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * Spel表达式的计算功能(@Cached内的condition、@CacheKey内的spel只是作为一个增值服务, 并不作为核心功能, 只是作为key拼装的一个亮点, 并不是必须功能)
  *
@@ -40,7 +46,21 @@ import org.springframework.expression.spel.support.StandardEvaluationContext;
  */
 public class SpelCalculator {
 
-    private static final ExpressionParser parser = new SpelExpressionParser();
+    // 混合编译模式: 表达式执行若干次后编译为字节码, 编译后的执行失败时自动退回解释模式
+    private static final ExpressionParser parser = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.MIXED, SpelCalculator.class.getClassLoader()));
+
+    private static final ConcurrentMap<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    /**
+     * 解析spel表达式, 同一表达式只解析一次
+     *
+     * @param spel 表达式
+     * @return 可重复执行的表达式
+     */
+    public static Expression parse(String spel) {
+        return expressions.computeIfAbsent(spel, parser::parseExpression);
+    }
 
     public static Object calcSpelValueWithContext(String spel, String[] argNames, Object[] argValues, Object defaultValue) {
         if (Strings.isNullOrEmpty(spel)) {
@@ -61,7 +81,7 @@ public class SpelCalculator {
             context.setVariable(xArgNames[i], argValues[i]);
         }
 
-        return parser.parseExpression(spel).getValue(context);
+        return parse(spel).getValue(context);
     }
 
     public static Object calcSpelWithNoContext(String spel, Object defaultValue) {
@@ -69,7 +89,7 @@ public class SpelCalculator {
             return defaultValue;
         }
 
-        return parser.parseExpression(spel).getValue(defaultValue);
+        return parse(spel).getValue(defaultValue);
     }
 
 }
@@ -25,6 +25,7 @@
 package org.aoju.bus.core.beans;
 
 
+import org.aoju.bus.core.lang.Func;
 import org.aoju.bus.core.lang.SimpleCache;
 
 /**
@@ -51,6 +52,17 @@ public enum BeanDescCache {
         return bdCache.get(beanClass);
     }
 
+    /**
+     * 获得属性名和{@link BeanDesc}Map映射
+     *
+     * @param beanClass Bean的类
+     * @param supplier  对象不存在时创建对象的函数
+     * @return 属性名和{@link BeanDesc}映射
+     */
+    public BeanDesc getBeanDesc(Class<?> beanClass, Func.Func0<BeanDesc> supplier) {
+        return bdCache.get(beanClass, supplier);
+    }
+
     /**
      * 加入缓存
      *
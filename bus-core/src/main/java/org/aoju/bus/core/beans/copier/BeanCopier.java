@@ -24,23 +24,19 @@
  ********************************************************************************/
 package org.aoju.bus.core.beans.copier;
 
-import org.aoju.bus.core.beans.BeanDesc;
-import org.aoju.bus.core.beans.copier.provider.BeanValueProvider;
 import org.aoju.bus.core.beans.copier.provider.MapValueProvider;
 import org.aoju.bus.core.convert.Convert;
-import org.aoju.bus.core.lang.Typed;
 import org.aoju.bus.core.lang.copier.Copier;
 import org.aoju.bus.core.lang.exception.InstrumentException;
-import org.aoju.bus.core.toolkit.*;
+import org.aoju.bus.core.toolkit.StringKit;
 
 import java.io.Serializable;
-import java.lang.reflect.*;
-import java.util.Collection;
-import java.util.HashSet;
+import java.lang.reflect.Type;
 import java.util.Map;
 
 /**
  * Bean拷贝
+ * 属性匹配及访问器按(源类型, 目标类型, 拷贝选项)缓存为{@link CopyPlan}, 拷贝时不再重复解析
  *
  * @param <T> 目标对象类型
  * @author Kimi Liu
@@ -108,20 +104,6 @@ public class BeanCopier<T> implements Copier<T>, Serializable {
         return new BeanCopier<>(source, dest, destType, copyOptions);
     }
 
-    /**
-     * 获取指定字段名对应的映射值
-     *
-     * @param mapping   反向映射Map
-     * @param fieldName 字段名
-     * @return 映射值，无对应值返回字段名
-     */
-    private static String mappingKey(Map<String, String> mapping, String fieldName) {
-        if (MapKit.isEmpty(mapping)) {
-            return fieldName;
-        }
-        return ObjectKit.defaultIfNull(mapping.get(fieldName), fieldName);
-    }
-
     @Override
     public T copy() {
         if (null != this.source) {
@@ -152,7 +134,30 @@ public class BeanCopier<T> implements Copier<T>, Serializable {
      * @param destBean     目标Bean
      */
     private void beanToBean(Object providerBean, Object destBean) {
-        valueProviderToBean(new BeanValueProvider(providerBean, this.copyOptions.ignoreCase, this.copyOptions.ignoreError), destBean);
+        final CopyOptions copyOptions = this.copyOptions;
+        final CopyPlan plan = CopyPlan.toBean(providerBean.getClass(), editableClass(destBean), this.destType, copyOptions);
+
+        Object value;
+        for (CopyPlan.Property property : plan.properties) {
+            value = null;
+            if (null != property.getter) {
+                try {
+                    value = property.getter.get(providerBean);
+                } catch (Exception e) {
+                    if (false == copyOptions.ignoreError) {
+                        throw new InstrumentException("Inject [{}] error!", property.providerKey);
+                    }
+                }
+                if (false == property.direct) {
+                    // 尝试转换为目标类型，失败将返回原类型
+                    final Object convertValue = Convert.convertWithCheck(property.valueType, value, null, copyOptions.ignoreError);
+                    if (null != convertValue) {
+                        value = convertValue;
+                    }
+                }
+            }
+            inject(property, destBean, value);
+        }
     }
 
     /**
@@ -187,41 +192,27 @@ public class BeanCopier<T> implements Copier<T>, Serializable {
      * @param targetMap 目标的Map
      */
     private void beanToMap(Object bean, Map targetMap) {
-        final Collection<BeanDesc.PropDesc> props = BeanKit.getBeanDesc(bean.getClass()).getProps();
-        final HashSet<String> ignoreSet = (null != copyOptions.ignoreProperties) ? CollKit.newHashSet(copyOptions.ignoreProperties) : null;
         final CopyOptions copyOptions = this.copyOptions;
+        final CopyPlan plan = CopyPlan.toMap(bean.getClass(), copyOptions);
 
-        String key;
-        Method getter;
         Object value;
-        for (BeanDesc.PropDesc prop : props) {
-            key = prop.getFieldName();
-            // 过滤class属性
-            // 得到property对应的getter方法
-            getter = prop.getGetter();
-            if (null != getter) {
-                // 只读取有getter方法的属性
-                try {
-                    value = getter.invoke(bean);
-                } catch (Exception e) {
-                    if (copyOptions.ignoreError) {
-                        continue;// 忽略反射失败
-                    } else {
-                        throw new InstrumentException("Get value of [{}] error!", prop.getFieldName());
-                    }
-                }
-                if (CollKit.contains(ignoreSet, key)) {
-                    // 目标属性值被忽略或值提供者无此key时跳过
-                    continue;
-                }
-                if (null == value && copyOptions.ignoreNullValue) {
-                    continue;// 当允许跳过空时,跳过
-                }
-                if (bean.equals(value)) {
-                    continue;// 值不能为bean本身,防止循环引用
+        for (CopyPlan.Property property : plan.properties) {
+            try {
+                value = property.getter.get(bean);
+            } catch (Exception e) {
+                if (copyOptions.ignoreError) {
+                    continue;// 忽略反射失败
+                } else {
+                    throw new InstrumentException("Get value of [{}] error!", property.fieldName);
                 }
-                targetMap.put(mappingKey(copyOptions.fieldMapping, key), value);
             }
+            if (null == value && copyOptions.ignoreNullValue) {
+                continue;// 当允许跳过空时,跳过
+            }
+            if (bean.equals(value)) {
+                continue;// 值不能为bean本身,防止循环引用
+            }
+            targetMap.put(property.providerKey, value);
         }
     }
 
@@ -236,87 +227,65 @@ public class BeanCopier<T> implements Copier<T>, Serializable {
             return;
         }
 
-        final CopyOptions copyOptions = this.copyOptions;
-        Class<?> actualEditable = bean.getClass();
-        if (null != copyOptions.editable) {
-            // 检查限制类是否为target的父类或接口
-            if (false == copyOptions.editable.isInstance(bean)) {
-                throw new IllegalArgumentException(StringKit.format("Target class [{}] not assignable to Editable class [{}]", bean.getClass().getName(), copyOptions.editable.getName()));
-            }
-            actualEditable = copyOptions.editable;
-        }
-        final HashSet<String> ignoreSet = (null != copyOptions.ignoreProperties) ? CollKit.newHashSet(copyOptions.ignoreProperties) : null;
-        final Map<String, String> fieldReverseMapping = copyOptions.getReversedMapping();
-
-        final Collection<BeanDesc.PropDesc> props = BeanKit.getBeanDesc(actualEditable).getProps();
-        Field field;
-        String fieldName;
-        Object value;
-        Method setterMethod;
-        Class<?> propClass;
-        for (BeanDesc.PropDesc prop : props) {
-            // 获取值
-            field = prop.getField();
-            fieldName = prop.getFieldName();
-            if (CollKit.contains(ignoreSet, fieldName)) {
-                // 目标属性值被忽略或值提供者无此key时跳过
-                continue;
-            }
-            final String providerKey = mappingKey(fieldReverseMapping, fieldName);
-            if (false == valueProvider.containsKey(providerKey)) {
+        final CopyPlan plan = CopyPlan.toBean(null, editableClass(bean), this.destType, this.copyOptions);
+        for (CopyPlan.Property property : plan.properties) {
+            if (false == valueProvider.containsKey(property.providerKey)) {
                 // 无对应值可提供
                 continue;
             }
-            setterMethod = prop.getSetter();
-            if (null == setterMethod && false == BeanKit.isPublic(field)) {
-                // Setter方法不存在或者字段为非public跳过
-                //5.1.0新增支持public字段注入支持
-                continue;
-            }
+            inject(property, bean, valueProvider.value(property.providerKey, property.valueType));
+        }
+    }
 
-            Type valueType = (null == setterMethod) ? TypeKit.getType(field) : TypeKit.getFirstParamType(setterMethod);
-            if (valueType instanceof ParameterizedType) {
-                // 参数为泛型参数类型，解析对应泛型类型为真实类型
-                ParameterizedType tmp = (ParameterizedType) valueType;
-                Type[] actualTypeArguments = tmp.getActualTypeArguments();
-                if (TypeKit.hasTypeVeriable(actualTypeArguments)) {
-                    // 泛型对象中含有未被转换的泛型变量
-                    actualTypeArguments = TypeKit.getActualTypes(this.destType, field.getDeclaringClass(), tmp.getActualTypeArguments());
-                    if (ArrayKit.isNotEmpty(actualTypeArguments)) {
-                        // 替换泛型变量为实际类型
-                        valueType = new Typed(actualTypeArguments, tmp.getOwnerType(), tmp.getRawType());
-                    }
-                }
-            } else if (valueType instanceof TypeVariable) {
-                // 参数为泛型，查找其真实类型(适用于泛型方法定义于泛型父类)
-                valueType = TypeKit.getActualType(this.destType, field.getDeclaringClass(), valueType);
-            }
+    /**
+     * 获取实际参与拷贝的目标类型，存在限制类时为限制类
+     *
+     * @param bean 目标Bean
+     * @return 目标类型
+     */
+    private Class<?> editableClass(Object bean) {
+        final Class<?> editable = this.copyOptions.editable;
+        if (null == editable) {
+            return bean.getClass();
+        }
+        // 检查限制类是否为target的父类或接口
+        if (false == editable.isInstance(bean)) {
+            throw new IllegalArgumentException(StringKit.format("Target class [{}] not assignable to Editable class [{}]", bean.getClass().getName(), editable.getName()));
+        }
+        return editable;
+    }
 
-            value = valueProvider.value(providerKey, valueType);
-            if (null == value && copyOptions.ignoreNullValue) {
-                continue;// 当允许跳过空时，跳过
-            }
-            if (bean == value) {
-                continue;// 值不能为bean本身，防止循环引用
-            }
+    /**
+     * 注入属性值
+     *
+     * @param property 拷贝计划中的属性
+     * @param bean     目标Bean
+     * @param value    值
+     */
+    private void inject(CopyPlan.Property property, Object bean, Object value) {
+        final CopyOptions copyOptions = this.copyOptions;
+        if (null == value && copyOptions.ignoreNullValue) {
+            return;// 当允许跳过空时，跳过
+        }
+        if (bean == value) {
+            return;// 值不能为bean本身，防止循环引用
+        }
 
-            try {
-                // valueProvider在没有对值做转换且当类型不匹配的时候，执行默认转换
-                propClass = prop.getFieldClass();
-                if (false == propClass.isInstance(value)) {
-                    value = Convert.convertWithCheck(propClass, value, null, copyOptions.ignoreError);
-                    if (null == value && copyOptions.ignoreNullValue) {
-                        continue;// 当允许跳过空时，跳过
-                    }
+        try {
+            // valueProvider在没有对值做转换且当类型不匹配的时候，执行默认转换
+            if (false == property.propClass.isInstance(value)) {
+                value = Convert.convertWithCheck(property.propClass, value, null, copyOptions.ignoreError);
+                if (null == value && copyOptions.ignoreNullValue) {
+                    return;// 当允许跳过空时，跳过
                 }
+            }
 
-                prop.setValue(bean, value);
-            } catch (Exception e) {
-                if (false == copyOptions.ignoreError) {
-                    throw new InstrumentException("Inject [{}] error!", prop.getFieldName());
-                }
-                // 忽略注入失败
+            property.setValue(bean, value);
+        } catch (Exception e) {
+            if (false == copyOptions.ignoreError) {
+                throw new InstrumentException("Inject [{}] error!", property.fieldName);
             }
+            // 忽略注入失败
         }
     }
 
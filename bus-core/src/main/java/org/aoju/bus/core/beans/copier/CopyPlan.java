@@ -0,0 +1,480 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.core.beans.copier;
+
+import org.aoju.bus.core.beans.BeanDesc;
+import org.aoju.bus.core.convert.BasicType;
+import org.aoju.bus.core.lang.Normal;
+import org.aoju.bus.core.lang.SimpleCache;
+import org.aoju.bus.core.lang.Typed;
+import org.aoju.bus.core.toolkit.*;
+
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+import java.util.*;
+
+/**
+ * Bean拷贝计划
+ * <p>
+ * 按(源类型, 目标类型, 拷贝选项)生成一次并缓存, 预先完成属性匹配、忽略属性、字段映射及泛型解析,
+ * public的Getter/Setter通过{@link LambdaMetafactory}生成直接调用的访问器, 其余仍使用反射
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+final class CopyPlan {
+
+    /**
+     * 每对类型最多缓存的拷贝计划数(不同拷贝选项各占一个)
+     */
+    private static final int MAXIMUM_SIZE = 64;
+
+    /**
+     * Bean到Bean的拷贝计划, 先按源类型再按目标类型存放在{@link ClassValue}中, 相当于以类为弱引用键:
+     * 计划及其中生成的访问器只由相关的类自身持有, 不会阻止类加载器卸载;
+     * 值提供者没有源类型, 以{@link Object}代替
+     */
+    private static final ClassValue<ClassValue<SimpleCache<Key, CopyPlan>>> BEAN_PLANS = new ClassValue<ClassValue<SimpleCache<Key, CopyPlan>>>() {
+        @Override
+        protected ClassValue<SimpleCache<Key, CopyPlan>> computeValue(Class<?> sourceClass) {
+            return new ClassValue<SimpleCache<Key, CopyPlan>>() {
+                @Override
+                protected SimpleCache<Key, CopyPlan> computeValue(Class<?> destClass) {
+                    return new SimpleCache<>(SimpleCache.KeyType.STRONG, MAXIMUM_SIZE);
+                }
+            };
+        }
+    };
+
+    /**
+     * Bean到Map的拷贝计划, 按源Bean类型存放
+     */
+    private static final ClassValue<SimpleCache<Key, CopyPlan>> MAP_PLANS = new ClassValue<SimpleCache<Key, CopyPlan>>() {
+        @Override
+        protected SimpleCache<Key, CopyPlan> computeValue(Class<?> beanClass) {
+            return new SimpleCache<>(SimpleCache.KeyType.STRONG, MAXIMUM_SIZE);
+        }
+    };
+
+    /**
+     * 参与拷贝的属性, 按目标属性顺序排列
+     */
+    final Property[] properties;
+
+    private CopyPlan(Property[] properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 获取值提供者或Bean到Bean的拷贝计划
+     *
+     * @param sourceClass 源Bean类型, 值提供者时为null
+     * @param destClass   目标Bean类型(或限制类)
+     * @param destType    目标的泛型类型
+     * @param copyOptions 拷贝选项
+     * @return 拷贝计划
+     */
+    static CopyPlan toBean(Class<?> sourceClass, Class<?> destClass, Type destType, CopyOptions copyOptions) {
+        final SimpleCache<Key, CopyPlan> plans = BEAN_PLANS.get(null == sourceClass ? Object.class : sourceClass).get(destClass);
+        final CopyPlan plan = plans.get(new Key(sourceClass, destClass, destType, copyOptions));
+        if (null != plan) {
+            return plan;
+        }
+        final Key key = new Key(sourceClass, destClass, destType, copyOptions).snapshot();
+        return plans.get(key, () -> buildToBean(key, sourceClass, destClass, destType, copyOptions));
+    }
+
+    /**
+     * 获取Bean到Map的拷贝计划
+     *
+     * @param beanClass   源Bean类型
+     * @param copyOptions 拷贝选项
+     * @return 拷贝计划
+     */
+    static CopyPlan toMap(Class<?> beanClass, CopyOptions copyOptions) {
+        final SimpleCache<Key, CopyPlan> plans = MAP_PLANS.get(beanClass);
+        final CopyPlan plan = plans.get(new Key(beanClass, Map.class, null, copyOptions));
+        if (null != plan) {
+            return plan;
+        }
+        final Key key = new Key(beanClass, Map.class, null, copyOptions).snapshot();
+        return plans.get(key, () -> buildToMap(key, beanClass, copyOptions));
+    }
+
+    private static CopyPlan buildToBean(Key key, Class<?> sourceClass, Class<?> destClass, Type destType, CopyOptions copyOptions) {
+        final Set<String> ignoreSet = key.ignoreSet();
+        final Map<String, String> fieldReverseMapping = copyOptions.getReversedMapping();
+        final Map<String, BeanDesc.PropDesc> sourcePdMap = null == sourceClass ? null
+                : BeanKit.getBeanDesc(sourceClass).getPropMap(copyOptions.ignoreCase);
+
+        final List<Property> properties = new ArrayList<>();
+        for (BeanDesc.PropDesc prop : BeanKit.getBeanDesc(destClass).getProps()) {
+            final Field field = prop.getField();
+            final String fieldName = prop.getFieldName();
+            if (ignoreSet.contains(fieldName)) {
+                continue;
+            }
+            final String providerKey = mappingKey(fieldReverseMapping, fieldName);
+            final String isKey = StringKit.upperFirstAndAddPre(providerKey, Normal.IS);
+            if (null != sourcePdMap && false == sourcePdMap.containsKey(providerKey) && false == sourcePdMap.containsKey(isKey)) {
+                continue;
+            }
+            final Method setterMethod = prop.getSetter();
+            if (null == setterMethod && false == BeanKit.isPublic(field)) {
+                continue;
+            }
+
+            final Type valueType = valueType(prop, setterMethod, destType);
+            final Property property = new Property(fieldName, providerKey, prop, valueType, prop.getFieldClass());
+            if (null != setterMethod) {
+                property.setterType = BasicType.wrap(setterMethod.getParameterTypes()[0]);
+                property.setter = setter(setterMethod);
+            }
+
+            if (null != sourcePdMap) {
+                BeanDesc.PropDesc sourcePd = sourcePdMap.get(providerKey);
+                if (null == sourcePd && (Boolean.class == valueType || boolean.class == valueType)) {
+                    // boolean类型字段字段名支持两种方式
+                    sourcePd = sourcePdMap.get(isKey);
+                }
+                final Method getterMethod = null == sourcePd ? null : sourcePd.getGetter();
+                if (null != getterMethod) {
+                    property.getter = getter(getterMethod);
+                    property.direct = isSameSimpleType(getterMethod.getGenericReturnType(), valueType);
+                }
+            }
+            properties.add(property);
+        }
+        return new CopyPlan(properties.toArray(new Property[0]));
+    }
+
+    private static CopyPlan buildToMap(Key key, Class<?> beanClass, CopyOptions copyOptions) {
+        final Set<String> ignoreSet = key.ignoreSet();
+
+        final List<Property> properties = new ArrayList<>();
+        for (BeanDesc.PropDesc prop : BeanKit.getBeanDesc(beanClass).getProps()) {
+            final String fieldName = prop.getFieldName();
+            final Method getterMethod = prop.getGetter();
+            if (null == getterMethod || ignoreSet.contains(fieldName)) {
+                continue;
+            }
+            final Property property = new Property(fieldName, mappingKey(copyOptions.fieldMapping, fieldName),
+                    prop, null, null);
+            property.getter = getter(getterMethod);
+            properties.add(property);
+        }
+        return new CopyPlan(properties.toArray(new Property[0]));
+    }
+
+    /**
+     * 获取指定字段名对应的映射值
+     *
+     * @param mapping   反向映射Map
+     * @param fieldName 字段名
+     * @return 映射值，无对应值返回字段名
+     */
+    private static String mappingKey(Map<String, String> mapping, String fieldName) {
+        if (MapKit.isEmpty(mapping)) {
+            return fieldName;
+        }
+        return ObjectKit.defaultIfNull(mapping.get(fieldName), fieldName);
+    }
+
+    /**
+     * 解析被注入值的类型, 泛型参数解析为真实类型
+     */
+    private static Type valueType(BeanDesc.PropDesc prop, Method setterMethod, Type destType) {
+        final Field field = prop.getField();
+        Type valueType = (null == setterMethod) ? TypeKit.getType(field) : TypeKit.getFirstParamType(setterMethod);
+        if (valueType instanceof ParameterizedType) {
+            // 参数为泛型参数类型，解析对应泛型类型为真实类型
+            ParameterizedType tmp = (ParameterizedType) valueType;
+            Type[] actualTypeArguments = tmp.getActualTypeArguments();
+            if (TypeKit.hasTypeVeriable(actualTypeArguments)) {
+                // 泛型对象中含有未被转换的泛型变量
+                actualTypeArguments = TypeKit.getActualTypes(destType, field.getDeclaringClass(), tmp.getActualTypeArguments());
+                if (ArrayKit.isNotEmpty(actualTypeArguments)) {
+                    // 替换泛型变量为实际类型
+                    valueType = new Typed(actualTypeArguments, tmp.getOwnerType(), tmp.getRawType());
+                }
+            }
+        } else if (valueType instanceof TypeVariable) {
+            // 参数为泛型，查找其真实类型(适用于泛型方法定义于泛型父类)
+            valueType = TypeKit.getActualType(destType, field.getDeclaringClass(), valueType);
+        }
+        return valueType;
+    }
+
+    /**
+     * 源与目标为同一不可变的简单类型时无需转换, 其余类型(集合、Bean、日期等)仍交由Convert处理
+     */
+    private static boolean isSameSimpleType(Type sourceType, Type valueType) {
+        if (false == sourceType instanceof Class || false == valueType instanceof Class) {
+            return false;
+        }
+        final Class<?> sourceClass = BasicType.wrap((Class<?>) sourceType);
+        if (sourceClass != BasicType.wrap((Class<?>) valueType)) {
+            return false;
+        }
+        return ClassKit.isBasicType(sourceClass)
+                || sourceClass.isEnum()
+                || String.class == sourceClass;
+    }
+
+    /**
+     * 生成Getter访问器, 无法生成时使用反射
+     */
+    private static Getter getter(Method method) {
+        if (isGeneratable(method)) {
+            try {
+                final MethodHandles.Lookup lookup = MethodHandles.lookup();
+                final CallSite site = LambdaMetafactory.metafactory(lookup, "get",
+                        MethodType.methodType(Getter.class),
+                        MethodType.methodType(Object.class, Object.class),
+                        lookup.unreflect(method),
+                        MethodType.methodType(BasicType.wrap(method.getReturnType()), method.getDeclaringClass()));
+                return (Getter) site.getTarget().invoke();
+            } catch (Throwable e) {
+                // 生成失败时退化为反射
+            }
+        }
+        return method::invoke;
+    }
+
+    /**
+     * 生成Setter访问器, 无法生成时使用反射
+     */
+    private static Setter setter(Method method) {
+        if (isGeneratable(method)) {
+            try {
+                final MethodHandles.Lookup lookup = MethodHandles.lookup();
+                final CallSite site = LambdaMetafactory.metafactory(lookup, "set",
+                        MethodType.methodType(Setter.class),
+                        MethodType.methodType(void.class, Object.class, Object.class),
+                        lookup.unreflect(method),
+                        MethodType.methodType(void.class, method.getDeclaringClass(),
+                                BasicType.wrap(method.getParameterTypes()[0])));
+                return (Setter) site.getTarget().invoke();
+            } catch (Throwable e) {
+                // 生成失败时退化为反射
+            }
+        }
+        return method::invoke;
+    }
+
+    /**
+     * 只有public的实例方法且涉及的类型对本类的类加载器可见时才能生成直接调用的访问器
+     */
+    private static boolean isGeneratable(Method method) {
+        if (false == Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())) {
+            return false;
+        }
+        if (false == isAccessible(method.getDeclaringClass()) || false == isAccessible(method.getReturnType())) {
+            return false;
+        }
+        for (Class<?> paramType : method.getParameterTypes()) {
+            if (false == isAccessible(paramType)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAccessible(Class<?> clazz) {
+        while (clazz.isArray()) {
+            clazz = clazz.getComponentType();
+        }
+        if (clazz.isPrimitive()) {
+            return true;
+        }
+        for (Class<?> c = clazz; null != c; c = c.getEnclosingClass()) {
+            if (false == Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        try {
+            return clazz == Class.forName(clazz.getName(), false, CopyPlan.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * 属性读取
+     */
+    @FunctionalInterface
+    interface Getter {
+
+        Object get(Object bean) throws Exception;
+
+    }
+
+    /**
+     * 属性写入
+     */
+    @FunctionalInterface
+    interface Setter {
+
+        void set(Object bean, Object value) throws Exception;
+
+    }
+
+    /**
+     * 拷贝计划中的单个属性
+     */
+    static final class Property {
+
+        /**
+         * 目标字段名
+         */
+        final String fieldName;
+        /**
+         * 值提供者中的key, Bean转Map时为Map中的key
+         */
+        final String providerKey;
+        /**
+         * 属性描述, Bean转Map时为源属性
+         */
+        final BeanDesc.PropDesc prop;
+        /**
+         * 被注入值的类型
+         */
+        final Type valueType;
+        /**
+         * 目标字段类型
+         */
+        final Class<?> propClass;
+        /**
+         * Setter参数类型(包装类型)
+         */
+        Class<?> setterType;
+        /**
+         * 目标Setter, 为null时通过public字段注入
+         */
+        Setter setter;
+        /**
+         * 源Getter, 源中无可读取的属性时为null
+         */
+        Getter getter;
+        /**
+         * 源值是否可直接注入, 无需转换
+         */
+        boolean direct;
+
+        Property(String fieldName, String providerKey, BeanDesc.PropDesc prop, Type valueType, Class<?> propClass) {
+            this.fieldName = fieldName;
+            this.providerKey = providerKey;
+            this.prop = prop;
+            this.valueType = valueType;
+            this.propClass = propClass;
+        }
+
+        /**
+         * 注入值, 值与Setter参数类型一致时直接调用, 否则交由{@link BeanDesc.PropDesc#setValue(Object, Object)}处理空值及转换
+         *
+         * @param bean  目标Bean
+         * @param value 值
+         * @throws Exception 注入异常
+         */
+        void setValue(Object bean, Object value) throws Exception {
+            if (null != setter && null != value && setterType.isInstance(value)) {
+                setter.set(bean, value);
+            } else {
+                prop.setValue(bean, value);
+            }
+        }
+    }
+
+    /**
+     * 缓存key, 只包含影响属性匹配的选项, 是否忽略空值、错误等在拷贝时读取
+     */
+    private static final class Key {
+
+        private final Class<?> sourceClass;
+        private final Class<?> destClass;
+        private final Type destType;
+        private final boolean ignoreCase;
+        private final List<String> ignoreProperties;
+        private final Map<String, String> fieldMapping;
+
+        Key(Class<?> sourceClass, Class<?> destClass, Type destType, CopyOptions copyOptions) {
+            this(sourceClass, destClass, destType, copyOptions.ignoreCase,
+                    null == copyOptions.ignoreProperties ? Collections.emptyList() : Arrays.asList(copyOptions.ignoreProperties),
+                    MapKit.isEmpty(copyOptions.fieldMapping) ? Collections.emptyMap() : copyOptions.fieldMapping);
+        }
+
+        private Key(Class<?> sourceClass, Class<?> destClass, Type destType, boolean ignoreCase,
+                    List<String> ignoreProperties, Map<String, String> fieldMapping) {
+            this.sourceClass = sourceClass;
+            this.destClass = destClass;
+            this.destType = destType;
+            this.ignoreCase = ignoreCase;
+            this.ignoreProperties = ignoreProperties;
+            this.fieldMapping = fieldMapping;
+        }
+
+        /**
+         * 复制可变的选项, 防止调用方修改后影响已缓存的计划
+         */
+        Key snapshot() {
+            return new Key(sourceClass, destClass, destType, ignoreCase,
+                    new ArrayList<>(ignoreProperties), new HashMap<>(fieldMapping));
+        }
+
+        Set<String> ignoreSet() {
+            return new HashSet<>(ignoreProperties);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (false == obj instanceof Key) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return sourceClass == other.sourceClass
+                    && destClass == other.destClass
+                    && ignoreCase == other.ignoreCase
+                    && Objects.equals(destType, other.destType)
+                    && ignoreProperties.equals(other.ignoreProperties)
+                    && fieldMapping.equals(other.fieldMapping);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Objects.hashCode(sourceClass);
+            result = 31 * result + destClass.hashCode();
+            result = 31 * result + Objects.hashCode(destType);
+            result = 31 * result + (ignoreCase ? 1 : 0);
+            result = 31 * result + ignoreProperties.hashCode();
+            result = 31 * result + fieldMapping.hashCode();
+            return result;
+        }
+    }
+
+}
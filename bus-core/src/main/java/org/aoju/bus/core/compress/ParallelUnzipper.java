@@ -0,0 +1,214 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.core.compress;
+
+import org.aoju.bus.core.io.StreamProgress;
+import org.aoju.bus.core.lang.Charset;
+import org.aoju.bus.core.lang.exception.InstrumentException;
+import org.aoju.bus.core.toolkit.FileKit;
+import org.aoju.bus.core.toolkit.IoKit;
+import org.aoju.bus.core.toolkit.ThreadKit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 并行Zip解压
+ * <p>
+ * 根据中央目录列出全部条目,目录先行创建,文件条目按大小从大到小提交到线程池各自解压;
+ * 已知大小的条目预先设置文件长度,通过内存映射写出,单个条目内部的deflate流无法拆分,仍由一个线程解压
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+public class ParallelUnzipper {
+
+    /**
+     * 每次映射的输出窗口大小
+     */
+    private static final long WINDOW_SIZE = 64L << 20;
+
+    private final java.nio.charset.Charset charset;
+    private final int threads;
+    private final StreamProgress progress;
+
+    /**
+     * 构造
+     *
+     * @param charset  文件名编码,{@code null}表示UTF-8
+     * @param threads  解压线程数,小于1时使用CPU核数
+     * @param progress 进度条,在解压线程中串行回调,可以为{@code null}
+     */
+    public ParallelUnzipper(java.nio.charset.Charset charset, int threads, StreamProgress progress) {
+        this.charset = null == charset ? Charset.UTF_8 : charset;
+        this.threads = threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+        this.progress = progress;
+    }
+
+    /**
+     * 解压
+     *
+     * @param zipFile zip文件
+     * @param outFile 解压到的目录
+     * @return 解压的目录
+     * @throws InstrumentException IO异常
+     */
+    public File unzip(File zipFile, File outFile) throws InstrumentException {
+        final AtomicLong processed = new AtomicLong();
+        ZipFile zip = null;
+        ExecutorService executor = null;
+        final List<Future<?>> futures = new ArrayList<>();
+        try {
+            zip = new ZipFile(zipFile, charset);
+            final List<ZipEntry> entries = new ArrayList<>(zip.size());
+            final Enumeration<? extends ZipEntry> em = zip.entries();
+            while (em.hasMoreElements()) {
+                final ZipEntry entry = em.nextElement();
+                final File outItemFile = FileKit.file(outFile, entry.getName());
+                if (entry.isDirectory()) {
+                    outItemFile.mkdirs();
+                } else {
+                    entries.add(entry);
+                }
+            }
+            // 大条目先开始,减少最后只剩单个线程工作的时间
+            entries.sort((o1, o2) -> Long.compare(o2.getSize(), o1.getSize()));
+
+            if (null != progress) {
+                progress.start();
+            }
+            executor = Executors.newFixedThreadPool(threads, ThreadKit.newNamedThreadFactory("unzip-", true));
+            final ZipFile source = zip;
+            for (ZipEntry entry : entries) {
+                futures.add(executor.submit(() -> {
+                    write(source, entry, FileKit.file(outFile, entry.getName()), processed);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (IOException e) {
+            throw new InstrumentException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InstrumentException(e);
+        } catch (ExecutionException e) {
+            throw new InstrumentException(e.getCause());
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            if (null != executor) {
+                executor.shutdownNow();
+            }
+            IoKit.close(zip);
+        }
+        if (null != progress) {
+            progress.finish();
+        }
+        return outFile;
+    }
+
+    /**
+     * 解压单个条目
+     *
+     * @param zip         Zip文件
+     * @param entry       条目
+     * @param outItemFile 输出到的文件
+     * @param processed   已解压的总大小
+     * @throws IOException IO异常
+     */
+    private void write(ZipFile zip, ZipEntry entry, File outItemFile, AtomicLong processed) throws IOException {
+        final File parent = outItemFile.getParentFile();
+        if (null != parent) {
+            parent.mkdirs();
+        }
+        final long size = entry.getSize();
+        if (size < 0) {
+            // 大小未知,按流写出
+            try (InputStream in = zip.getInputStream(entry)) {
+                FileKit.writeFromStream(in, outItemFile);
+            }
+            report(processed, outItemFile.length());
+            return;
+        }
+
+        try (InputStream in = zip.getInputStream(entry);
+             RandomAccessFile file = new RandomAccessFile(outItemFile, "rw")) {
+            file.setLength(size);
+            final FileChannel channel = file.getChannel();
+            final byte[] buffer = new byte[IoKit.DEFAULT_LARGE_BUFFER_SIZE];
+            long position = 0;
+            while (position < size) {
+                final long windowSize = Math.min(WINDOW_SIZE, size - position);
+                final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_WRITE, position, windowSize);
+                while (window.hasRemaining()) {
+                    final int n = in.read(buffer, 0, Math.min(buffer.length, window.remaining()));
+                    if (n < 0) {
+                        throw new IOException("Unexpected end of entry " + entry.getName());
+                    }
+                    window.put(buffer, 0, n);
+                }
+                position += windowSize;
+                report(processed, windowSize);
+            }
+            if (in.read() >= 0) {
+                throw new IOException("Entry " + entry.getName() + " is larger than its recorded size");
+            }
+        }
+    }
+
+    /**
+     * 累加并回调进度
+     *
+     * @param processed 已解压的总大小
+     * @param size      本次解压的大小
+     */
+    private void report(AtomicLong processed, long size) {
+        final long total = processed.addAndGet(size);
+        if (null != progress) {
+            synchronized (progress) {
+                progress.progress(total);
+            }
+        }
+    }
+
+}
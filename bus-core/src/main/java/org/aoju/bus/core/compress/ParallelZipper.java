@@ -0,0 +1,649 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.core.compress;
+
+import org.aoju.bus.core.io.StreamProgress;
+import org.aoju.bus.core.lang.Charset;
+import org.aoju.bus.core.lang.Symbol;
+import org.aoju.bus.core.lang.exception.InstrumentException;
+import org.aoju.bus.core.toolkit.ArrayKit;
+import org.aoju.bus.core.toolkit.FileKit;
+import org.aoju.bus.core.toolkit.IoKit;
+import org.aoju.bus.core.toolkit.StringKit;
+import org.aoju.bus.core.toolkit.ThreadKit;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 并行Zip压缩
+ * <p>
+ * 每个文件按固定大小分块,各块在线程池中独立压缩(以前一块末尾32KB作为预设字典,压缩率与整体压缩接近),
+ * 非末块以SYNC_FLUSH结束,拼接后即为一个完整的deflate流,各块的CRC32合并为整个条目的CRC32;
+ * 写出线程按顺序拼接各块并写出本地文件头、中央目录,超出4GB或65535个条目时使用Zip64格式
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+public class ParallelZipper {
+
+    /**
+     * 默认分块大小
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    /**
+     * deflate字典大小
+     */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    /**
+     * 超出此大小的条目在本地文件头中预留Zip64扩展字段,留出压缩后膨胀的余量
+     */
+    private static final long ZIP64_LOCAL_THRESHOLD = 0xF0000000L;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+    private static final int LOC_SIG = 0x04034b50;
+    private static final int CEN_SIG = 0x02014b50;
+    private static final int END_SIG = 0x06054b50;
+    private static final int ZIP64_END_SIG = 0x06064b50;
+    private static final int ZIP64_LOC_SIG = 0x07064b50;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final int VERSION = 20;
+    private static final int VERSION_ZIP64 = 45;
+    private static final int FLAG_UTF8 = 0x0800;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+
+    private final java.nio.charset.Charset charset;
+    private final int level;
+    private final int threads;
+    private final int chunkSize;
+    private final StreamProgress progress;
+
+    /**
+     * 构造
+     *
+     * @param charset   文件名编码,{@code null}表示UTF-8
+     * @param level     压缩级别,0~9
+     * @param threads   压缩线程数,小于1时使用CPU核数
+     * @param chunkSize 分块大小
+     * @param progress  进度条,在调用线程中回调,可以为{@code null}
+     */
+    public ParallelZipper(java.nio.charset.Charset charset, int level, int threads, int chunkSize, StreamProgress progress) {
+        this.charset = null == charset ? Charset.UTF_8 : charset;
+        this.level = level;
+        this.threads = threads < 1 ? Runtime.getRuntime().availableProcessors() : threads;
+        this.chunkSize = Math.max(DICTIONARY_SIZE, chunkSize);
+        this.progress = progress;
+    }
+
+    /**
+     * 压缩文件或目录,条目的组织方式与{@link org.aoju.bus.core.toolkit.ZipKit#zip(File, java.nio.charset.Charset, boolean, File...)}一致
+     *
+     * @param zipFile    生成的Zip文件
+     * @param withSrcDir 是否包含被打包目录,只针对压缩目录有效
+     * @param filter     文件过滤器,{@code null}表示不过滤
+     * @param srcFiles   要压缩的源文件或目录
+     * @return 压缩文件
+     * @throws InstrumentException IO异常
+     */
+    public File zip(File zipFile, boolean withSrcDir, FileFilter filter, File... srcFiles) throws InstrumentException {
+        final List<Item> items = new ArrayList<>();
+        try {
+            for (File srcFile : srcFiles) {
+                if (null == srcFile) {
+                    continue;
+                }
+                String srcRootDir = srcFile.getCanonicalPath();
+                if (srcFile.isFile() || withSrcDir) {
+                    srcRootDir = srcFile.getCanonicalFile().getParentFile().getCanonicalPath();
+                }
+                collect(srcFile, srcRootDir, filter, items);
+            }
+        } catch (IOException e) {
+            throw new InstrumentException(e);
+        }
+        if (null != progress) {
+            progress.start();
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, ThreadKit.newNamedThreadFactory("zip-", true));
+        try (FileChannel out = FileChannel.open(zipFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(items, out, executor);
+        } catch (IOException e) {
+            throw new InstrumentException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+        if (null != progress) {
+            progress.finish();
+        }
+        return zipFile;
+    }
+
+    /**
+     * 递归收集待压缩的条目,规则与顺序压缩一致：只有空目录才单独加入目录条目
+     *
+     * @param file       当前文件或目录
+     * @param srcRootDir 被压缩的根目录
+     * @param filter     文件过滤器
+     * @param items      条目列表
+     */
+    private void collect(File file, String srcRootDir, FileFilter filter, List<Item> items) {
+        if (null == file || (null != filter && false == filter.accept(file))) {
+            return;
+        }
+        final String subPath = FileKit.subPath(srcRootDir, file);
+        if (file.isDirectory()) {
+            final File[] files = file.listFiles();
+            if (ArrayKit.isEmpty(files)) {
+                if (StringKit.isNotEmpty(subPath)) {
+                    items.add(new Item(null, StringKit.addSuffixIfNot(subPath, Symbol.SLASH), 0, file.lastModified()));
+                }
+                return;
+            }
+            for (File childFile : files) {
+                collect(childFile, srcRootDir, filter, items);
+            }
+        } else {
+            items.add(new Item(file, subPath, file.length(), file.lastModified()));
+        }
+    }
+
+    /**
+     * 按顺序提交压缩任务,最多同时保留线程数4倍的分块,并按顺序写出
+     *
+     * @param items    条目列表
+     * @param out      输出
+     * @param executor 线程池
+     * @throws IOException IO异常
+     */
+    private void write(List<Item> items, FileChannel out, ExecutorService executor) throws IOException {
+        final int window = threads * 4;
+        final ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>(window);
+        final List<Item> written = new ArrayList<>(items.size());
+        final ByteBuffer header = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+
+        int itemIndex = 0;
+        long position = 0;
+        long processed = 0;
+        long offset = 0;
+        try {
+            while (true) {
+                // 提交任务直到窗口已满
+                while (pending.size() < window && itemIndex < items.size()) {
+                    final Item item = items.get(itemIndex);
+                    if (null == item.file) {
+                        pending.add(executor.submit(() -> new Chunk(item, true, true, 0, 0, null, 0)));
+                        itemIndex++;
+                        continue;
+                    }
+                    if (null == item.channel) {
+                        // 源文件在最后一块写出后关闭
+                        item.channel = FileChannel.open(item.file.toPath(), StandardOpenOption.READ);
+                        offset = 0;
+                    }
+                    final FileChannel channel = item.channel;
+                    final long start = offset;
+                    final int length = (int) Math.min(chunkSize, item.length - start);
+                    final boolean last = start + length >= item.length;
+                    pending.add(executor.submit(() -> deflate(item, channel, start, length, last)));
+                    offset += length;
+                    if (last) {
+                        itemIndex++;
+                    }
+                }
+                if (pending.isEmpty()) {
+                    break;
+                }
+
+                final Chunk chunk = get(pending.poll());
+                final Item item = chunk.item;
+                if (chunk.first) {
+                    item.offset = position;
+                    position += writeLocalHeader(item, header, out, position);
+                }
+                if (chunk.length > 0) {
+                    position += writeFully(out, ByteBuffer.wrap(chunk.data, 0, chunk.length), position);
+                }
+                item.compressedSize += chunk.length;
+                item.crc = 0 == chunk.rawLength ? item.crc : combine(item.crc, chunk.crc, chunk.rawLength);
+                if (chunk.last) {
+                    IoKit.close(item.channel);
+                    patchLocalHeader(item, header, out);
+                    written.add(item);
+                }
+                if (null != progress && chunk.rawLength > 0) {
+                    processed += chunk.rawLength;
+                    progress.progress(processed);
+                }
+            }
+        } finally {
+            for (Future<Chunk> future : pending) {
+                future.cancel(true);
+            }
+            for (Item item : items) {
+                IoKit.close(item.channel);
+            }
+        }
+        writeCentralDirectory(written, out, position);
+    }
+
+    /**
+     * 压缩一个分块
+     *
+     * @param item    所属条目
+     * @param channel 源文件
+     * @param start   分块起始位置
+     * @param length  分块长度
+     * @param last    是否最后一块
+     * @return 压缩后的分块
+     * @throws IOException IO异常
+     */
+    private Chunk deflate(Item item, FileChannel channel, long start, int length, boolean last) throws IOException {
+        // 连同前一块末尾的字典一起读取
+        final int dictionary = (int) Math.min(DICTIONARY_SIZE, start);
+        final byte[] raw = new byte[dictionary + length];
+        final ByteBuffer buffer = ByteBuffer.wrap(raw);
+        long position = start - dictionary;
+        while (buffer.hasRemaining()) {
+            final int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new IOException(StringKit.format("File [{}] changed while being compressed", item.file));
+            }
+            position += n;
+        }
+
+        final CRC32 crc = new CRC32();
+        crc.update(raw, dictionary, length);
+
+        final Deflater deflater = new Deflater(level, true);
+        try {
+            if (dictionary > 0) {
+                deflater.setDictionary(raw, 0, dictionary);
+            }
+            deflater.setInput(raw, dictionary, length);
+            byte[] out = new byte[length + (length >>> 10) + 64];
+            int size = 0;
+            if (last) {
+                deflater.finish();
+                while (false == deflater.finished()) {
+                    if (size == out.length) {
+                        out = java.util.Arrays.copyOf(out, out.length << 1);
+                    }
+                    size += deflater.deflate(out, size, out.length - size);
+                }
+            } else {
+                // 非末块以SYNC_FLUSH结束,输出按字节对齐,可直接与下一块拼接
+                while (true) {
+                    size += deflater.deflate(out, size, out.length - size, Deflater.SYNC_FLUSH);
+                    if (size < out.length) {
+                        break;
+                    }
+                    out = java.util.Arrays.copyOf(out, out.length << 1);
+                }
+            }
+            return new Chunk(item, 0 == start, last, (int) crc.getValue(), length, out, size);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 写出本地文件头,CRC与大小在条目写完后回填
+     *
+     * @param item     条目
+     * @param header   头缓冲区
+     * @param out      输出
+     * @param position 写出位置
+     * @return 写出的字节数
+     * @throws IOException IO异常
+     */
+    private int writeLocalHeader(Item item, ByteBuffer header, FileChannel out, long position) throws IOException {
+        item.name = item.path.getBytes(charset);
+        item.zip64 = item.length >= ZIP64_LOCAL_THRESHOLD;
+        item.method = null == item.file ? STORED : DEFLATED;
+
+        final ByteBuffer buffer = buffer(header, 30 + item.name.length + 20);
+        buffer.putInt(LOC_SIG);
+        buffer.putShort((short) (item.zip64 ? VERSION_ZIP64 : VERSION));
+        buffer.putShort((short) flag());
+        buffer.putShort((short) item.method);
+        buffer.putInt((int) dosTime(item.time));
+        buffer.putInt(0);
+        buffer.putInt(item.zip64 ? (int) ZIP64_MAGIC : 0);
+        buffer.putInt(item.zip64 ? (int) ZIP64_MAGIC : 0);
+        buffer.putShort((short) item.name.length);
+        buffer.putShort((short) (item.zip64 ? 20 : 0));
+        buffer.put(item.name);
+        if (item.zip64) {
+            buffer.putShort((short) ZIP64_EXTRA_ID);
+            buffer.putShort((short) 16);
+            buffer.putLong(0);
+            buffer.putLong(0);
+        }
+        buffer.flip();
+        return writeFully(out, buffer, position);
+    }
+
+    /**
+     * 回填本地文件头中的CRC与大小
+     *
+     * @param item   条目
+     * @param header 头缓冲区
+     * @param out    输出
+     * @throws IOException IO异常
+     */
+    private void patchLocalHeader(Item item, ByteBuffer header, FileChannel out) throws IOException {
+        if (false == item.zip64 && item.compressedSize >= ZIP64_MAGIC) {
+            throw new IOException(StringKit.format("Entry [{}] expanded beyond 4GB while being compressed", item.path));
+        }
+        ByteBuffer buffer = buffer(header, 12);
+        buffer.putInt(item.crc);
+        if (item.zip64) {
+            buffer.putInt((int) ZIP64_MAGIC).putInt((int) ZIP64_MAGIC);
+        } else {
+            buffer.putInt((int) item.compressedSize).putInt((int) item.length);
+        }
+        buffer.flip();
+        writeFully(out, buffer, item.offset + 14);
+
+        if (item.zip64) {
+            buffer = buffer(header, 16);
+            buffer.putLong(item.length).putLong(item.compressedSize);
+            buffer.flip();
+            writeFully(out, buffer, item.offset + 30 + item.name.length + 4);
+        }
+    }
+
+    /**
+     * 写出中央目录及目录结束标记
+     *
+     * @param items    已写出的条目
+     * @param out      输出
+     * @param position 中央目录起始位置
+     * @throws IOException IO异常
+     */
+    private void writeCentralDirectory(List<Item> items, FileChannel out, long position) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        final long start = position;
+        for (Item item : items) {
+            final boolean sizeZip64 = item.length >= ZIP64_MAGIC || item.compressedSize >= ZIP64_MAGIC;
+            final boolean offsetZip64 = item.offset >= ZIP64_MAGIC;
+            final int extra = (sizeZip64 ? 16 : 0) + (offsetZip64 ? 8 : 0);
+            final boolean zip64 = item.zip64 || extra > 0;
+
+            final ByteBuffer buffer = buffer(header, 46 + item.name.length + (extra > 0 ? extra + 4 : 0));
+            buffer.putInt(CEN_SIG);
+            buffer.putShort((short) (zip64 ? VERSION_ZIP64 : VERSION));
+            buffer.putShort((short) (zip64 ? VERSION_ZIP64 : VERSION));
+            buffer.putShort((short) flag());
+            buffer.putShort((short) item.method);
+            buffer.putInt((int) dosTime(item.time));
+            buffer.putInt(item.crc);
+            buffer.putInt(sizeZip64 ? (int) ZIP64_MAGIC : (int) item.compressedSize);
+            buffer.putInt(sizeZip64 ? (int) ZIP64_MAGIC : (int) item.length);
+            buffer.putShort((short) item.name.length);
+            buffer.putShort((short) (extra > 0 ? extra + 4 : 0));
+            // 注释长度、起始磁盘号、内部属性
+            buffer.putShort((short) 0).putShort((short) 0).putShort((short) 0);
+            buffer.putInt(0);
+            buffer.putInt(offsetZip64 ? (int) ZIP64_MAGIC : (int) item.offset);
+            buffer.put(item.name);
+            if (extra > 0) {
+                buffer.putShort((short) ZIP64_EXTRA_ID);
+                buffer.putShort((short) extra);
+                if (sizeZip64) {
+                    buffer.putLong(item.length).putLong(item.compressedSize);
+                }
+                if (offsetZip64) {
+                    buffer.putLong(item.offset);
+                }
+            }
+            buffer.flip();
+            position += writeFully(out, buffer, position);
+        }
+
+        final long size = position - start;
+        final int count = items.size();
+        final boolean zip64 = count >= ZIP64_MAGIC_COUNT || size >= ZIP64_MAGIC || start >= ZIP64_MAGIC;
+        final ByteBuffer buffer = buffer(header, 56 + 20 + 22);
+        if (zip64) {
+            buffer.putInt(ZIP64_END_SIG);
+            buffer.putLong(44);
+            buffer.putShort((short) VERSION_ZIP64).putShort((short) VERSION_ZIP64);
+            buffer.putInt(0).putInt(0);
+            buffer.putLong(count).putLong(count);
+            buffer.putLong(size).putLong(start);
+
+            buffer.putInt(ZIP64_LOC_SIG);
+            buffer.putInt(0);
+            buffer.putLong(position);
+            buffer.putInt(1);
+        }
+        buffer.putInt(END_SIG);
+        buffer.putShort((short) 0).putShort((short) 0);
+        buffer.putShort((short) Math.min(count, ZIP64_MAGIC_COUNT));
+        buffer.putShort((short) Math.min(count, ZIP64_MAGIC_COUNT));
+        buffer.putInt((int) Math.min(size, ZIP64_MAGIC));
+        buffer.putInt((int) Math.min(start, ZIP64_MAGIC));
+        buffer.putShort((short) 0);
+        buffer.flip();
+        position += writeFully(out, buffer, position);
+        out.truncate(position);
+    }
+
+    private int flag() {
+        return Charset.UTF_8.equals(charset) ? FLAG_UTF8 : 0;
+    }
+
+    /**
+     * 获取指定容量的头缓冲区,不足时新建
+     *
+     * @param header 头缓冲区
+     * @param size   需要的大小
+     * @return 缓冲区
+     */
+    private static ByteBuffer buffer(ByteBuffer header, int size) {
+        if (size > header.capacity()) {
+            return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        header.clear();
+        return header;
+    }
+
+    private static int writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        final int length = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            position += out.write(buffer, position);
+        }
+        return length;
+    }
+
+    private static Chunk get(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InstrumentException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new InstrumentException(cause);
+        }
+    }
+
+    /**
+     * 转换为DOS时间,与{@link java.util.zip.ZipEntry}一致
+     *
+     * @param time 毫秒数
+     * @return DOS时间
+     */
+    private static long dosTime(long time) {
+        final Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        final int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (year - 1980) << 25 | (calendar.get(Calendar.MONTH) + 1) << 21
+                | calendar.get(Calendar.DAY_OF_MONTH) << 16 | calendar.get(Calendar.HOUR_OF_DAY) << 11
+                | calendar.get(Calendar.MINUTE) << 5 | calendar.get(Calendar.SECOND) >> 1;
+    }
+
+    /**
+     * 合并两段数据的CRC32,算法同zlib的crc32_combine
+     *
+     * @param crc1   前一段的CRC32
+     * @param crc2   后一段的CRC32
+     * @param length 后一段的长度
+     * @return 合并后的CRC32
+     */
+    static int combine(int crc1, int crc2, long length) {
+        if (length <= 0) {
+            return crc1;
+        }
+        final int[] even = new int[32];
+        final int[] odd = new int[32];
+
+        // 一个0位的运算矩阵
+        odd[0] = 0xedb88320;
+        int row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        // 两个0位、四个0位的运算矩阵
+        square(even, odd);
+        square(odd, even);
+
+        // 每次将length的一位应用到crc1
+        do {
+            square(even, odd);
+            if ((length & 1) != 0) {
+                crc1 = times(even, crc1);
+            }
+            length >>>= 1;
+            if (0 == length) {
+                break;
+            }
+            square(odd, even);
+            if ((length & 1) != 0) {
+                crc1 = times(odd, crc1);
+            }
+            length >>>= 1;
+        } while (length != 0);
+        return crc1 ^ crc2;
+    }
+
+    private static int times(int[] matrix, int vector) {
+        int sum = 0;
+        int i = 0;
+        while (vector != 0) {
+            if ((vector & 1) != 0) {
+                sum ^= matrix[i];
+            }
+            vector >>>= 1;
+            i++;
+        }
+        return sum;
+    }
+
+    private static void square(int[] square, int[] matrix) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = times(matrix, matrix[n]);
+        }
+    }
+
+    /**
+     * 待压缩的条目
+     */
+    private static final class Item {
+
+        /**
+         * 源文件,目录条目为{@code null}
+         */
+        final File file;
+        final String path;
+        final long length;
+        final long time;
+        FileChannel channel;
+        byte[] name;
+        boolean zip64;
+        int method;
+        long offset;
+        long compressedSize;
+        int crc;
+
+        Item(File file, String path, long length, long time) {
+            this.file = file;
+            this.path = path;
+            this.length = length;
+            this.time = time;
+        }
+    }
+
+    /**
+     * 压缩后的分块
+     */
+    private static final class Chunk {
+
+        final Item item;
+        final boolean first;
+        final boolean last;
+        final int crc;
+        final long rawLength;
+        final byte[] data;
+        final int length;
+
+        Chunk(Item item, boolean first, boolean last, int crc, long rawLength, byte[] data, int length) {
+            this.item = item;
+            this.first = first;
+            this.last = last;
+            this.crc = crc;
+            this.rawLength = rawLength;
+            this.data = data;
+            this.length = length;
+        }
+    }
+
+}
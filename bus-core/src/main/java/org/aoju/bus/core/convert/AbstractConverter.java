@@ -41,6 +41,11 @@ import java.util.Map;
  */
 public abstract class AbstractConverter<T> implements Converter<T> {
 
+    /**
+     * 泛型类型,首次获取时解析
+     */
+    private volatile Class<T> typeArgument;
+
     @Override
     public T convert(Object value, T defaultValue) {
         Class<T> targetType = getTargetType();
@@ -137,7 +142,12 @@ public abstract class AbstractConverter<T> implements Converter<T> {
      * @return 此类的泛型类型, 可能为{@code null}
      */
     public Class<T> getTargetType() {
-        return (Class<T>) ClassKit.getTypeArgument(getClass());
+        Class<T> type = this.typeArgument;
+        if (null == type) {
+            type = (Class<T>) ClassKit.getTypeArgument(getClass());
+            this.typeArgument = type;
+        }
+        return type;
     }
 
 }
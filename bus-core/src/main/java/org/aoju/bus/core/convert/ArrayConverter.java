@@ -95,14 +95,7 @@ public class ArrayConverter extends AbstractConverter<Object> {
             return array;
         }
 
-        final int len = ArrayKit.getLength(array);
-        final Object result = Array.newInstance(targetComponentType, len);
-
-        final ConverterRegistry converter = ConverterRegistry.getInstance();
-        for (int i = 0; i < len; i++) {
-            Array.set(result, i, converter.convert(targetComponentType, Array.get(array, i)));
-        }
-        return result;
+        return ConverterRegistry.getInstance().convertArray(targetComponentType, array);
     }
 
     /**
@@ -718,6 +718,32 @@ public class Convert {
         }
     }
 
+    /**
+     * 批量转换集合中的值为指定类型,同一源类型的元素只查找一次转换器
+     *
+     * @param <T>         目标类型
+     * @param elementType 元素的目标类型
+     * @param values      值
+     * @return 转换后的列表
+     * @throws InstrumentException 转换器不存在
+     */
+    public static <T> List<T> convertAll(Type elementType, Iterable<?> values) throws InstrumentException {
+        return ConverterRegistry.getInstance().convertAll(elementType, values);
+    }
+
+    /**
+     * 批量转换数组中的值为指定类型的数组,数值基本类型数组之间直接转换,不装箱
+     *
+     * @param <A>           目标数组类型
+     * @param componentType 目标数组的元素类型
+     * @param array         数组
+     * @return 转换后的数组
+     * @throws InstrumentException 转换器不存在
+     */
+    public static <A> A convertArray(Class<?> componentType, Object array) throws InstrumentException {
+        return ConverterRegistry.getInstance().convertArray(componentType, array);
+    }
+
     /**
      * 半角转全角
      *
@@ -30,10 +30,13 @@ import org.aoju.bus.core.lang.exception.InstrumentException;
 import org.aoju.bus.core.toolkit.BeanKit;
 import org.aoju.bus.core.toolkit.ObjectKit;
 import org.aoju.bus.core.toolkit.ReflectKit;
+import org.aoju.bus.core.toolkit.StringKit;
 import org.aoju.bus.core.toolkit.TypeKit;
 
 import java.lang.ref.SoftReference;
 import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -54,6 +57,9 @@ import java.util.concurrent.atomic.AtomicReference;
  * 转换器登记中心,将各种类型Convert对象放入登记中心,通过convert方法查找
  * 目标类型对应的转换器,将被转换对象转换之,在此类中,存放着默认转换器和自定义
  * 转换器,默认转换器预定义的一些转换器,自定义转换器存放用户自定的转换器
+ * <p>
+ * 每个(源类型, 目标类型)第一次转换时解析出对应的转换器并缓存,包括Map、集合、数组、Bean等特殊类型,
+ * 以及数值之间不经过字符串中转的直接转换,此后同类转换只需一次查表
  *
  * @author Kimi Liu
  * @version 6.0.8
@@ -61,6 +67,11 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 public class ConverterRegistry {
 
+    /**
+     * 每对(源类型, 目标类)的分派缓存最大条目数(目标类的不同泛型参数各占一个),超出后清空重建
+     */
+    private static final int MAXIMUM_DISPATCH_SIZE = 64;
+
     /**
      * 默认类型转换器
      */
@@ -69,6 +80,10 @@ public class ConverterRegistry {
      * 用户自定义类型转换器
      */
     private volatile Map<Type, Converter<?>> customConverterMap;
+    /**
+     * (源类型, 目标类型)对应的转换器,登记自定义转换器时整体替换
+     */
+    private volatile DispatchCache dispatchCache = new DispatchCache();
 
     public ConverterRegistry() {
         defaultConverter();
@@ -110,6 +125,8 @@ public class ConverterRegistry {
             }
         }
         customConverterMap.put(type, converter);
+        // 自定义转换器可能改变已缓存的分派结果
+        dispatchCache = new DispatchCache();
         return this;
     }
 
@@ -186,35 +203,17 @@ public class ConverterRegistry {
             type = ((Types<?>) type).getType();
         }
 
-        // 标准转换器
-        final Converter<T> converter = getConverter(type, isCustomFirst);
+        final Converter<T> converter = dispatch(value.getClass(), type, isCustomFirst);
         if (null != converter) {
             return converter.convert(value, defaultValue);
         }
 
-        Class<T> rowType = (Class<T>) TypeKit.getClass(type);
-        if (null == rowType) {
-            if (null != defaultValue) {
-                rowType = (Class<T>) defaultValue.getClass();
-            } else {
-                // 无法识别的泛型类型，按照Object处理
-                return (T) value;
-            }
-        }
-
-        // 特殊类型转换，包括Collection、Map、强转、Array等
-        final T result = convertSpecial(type, rowType, value, defaultValue);
-        if (null != result) {
-            return result;
-        }
-
-        // 尝试转Bean
-        if (BeanKit.isBean(rowType)) {
-            return new BeanConverter<T>(type).convert(value, defaultValue);
+        if (null == defaultValue) {
+            // 无法识别的泛型类型，按照Object处理
+            return (T) value;
         }
-
-        // 无法转换
-        throw new InstrumentException("No Converter for type [{}]", rowType.getName());
+        // 无法识别的泛型类型，按照默认值类型转换
+        return special(type, (Class<T>) defaultValue.getClass(), value.getClass()).convert(value, defaultValue);
     }
 
     /**
@@ -246,63 +245,218 @@ public class ConverterRegistry {
     }
 
     /**
-     * 特殊类型转换
-     * 包括：
+     * 批量转换集合中的值为指定类型
+     * 同一源类型的元素只查找一次转换器,自定义转换器优先
      *
-     * <pre>
-     * Collection
-     * Map
-     * 强转(无需转换)
-     * 数组
-     * </pre>
+     * @param <T>         转换的目标类型(转换器转换到的类型)
+     * @param elementType 元素的目标类型
+     * @param values      被转换的值
+     * @return 转换后的列表, null元素转换为null
+     * @throws InstrumentException 转换器不存在
+     */
+    public <T> List<T> convertAll(Type elementType, Iterable<?> values) throws InstrumentException {
+        if (null == values) {
+            return null;
+        }
+        final List<T> result = values instanceof Collection ? new ArrayList<>(((Collection<?>) values).size()) : new ArrayList<>();
+        final Converting<T> converting = new Converting<>(elementType);
+        for (Object value : values) {
+            result.add(converting.convert(value));
+        }
+        return result;
+    }
+
+    /**
+     * 批量转换数组中的值为指定类型的数组
+     * 数值基本类型数组之间直接逐个强转,不装箱;其它情况同一源类型的元素只查找一次转换器,自定义转换器优先
      *
-     * @param <T>          转换的目标类型(转换器转换到的类型)
-     * @param type         类型
-     * @param value        值
-     * @param defaultValue 默认值
-     * @return 转换后的值
+     * @param <A>           目标数组类型
+     * @param componentType 目标数组的元素类型
+     * @param array         被转换的数组
+     * @return 转换后的数组
+     * @throws InstrumentException 转换器不存在
      */
-    private <T> T convertSpecial(Type type, Class<T> rowType, Object value, T defaultValue) {
-        if (null == rowType) {
+    public <A> A convertArray(Class<?> componentType, Object array) throws InstrumentException {
+        if (null == array) {
             return null;
         }
+        if (false == array.getClass().isArray()) {
+            throw new IllegalArgumentException(StringKit.format("[{}] is not an array!", array.getClass()));
+        }
 
-        // 集合转换(不可以默认强转)
-        if (Collection.class.isAssignableFrom(rowType)) {
-            final CollectionConverter collectionConverter = new CollectionConverter(type);
-            return (T) collectionConverter.convert(value, (Collection<?>) defaultValue);
+        final Object direct = DirectConverter.convertArray(array, componentType);
+        if (null != direct) {
+            return (A) direct;
         }
+        final int length = Array.getLength(array);
+        final Object result = Array.newInstance(componentType, length);
+        final Converting<Object> converting = new Converting<>(componentType);
+        for (int i = 0; i < length; i++) {
+            Array.set(result, i, converting.convert(Array.get(array, i)));
+        }
+        return (A) result;
+    }
 
-        // Map类型(不可以默认强转)
-        if (Map.class.isAssignableFrom(rowType)) {
-            final MapConverter mapConverter = new MapConverter(type);
-            return (T) mapConverter.convert(value, (Map<?, ?>) defaultValue);
+    /**
+     * 查找(源类型, 目标类型)对应的转换器,优先从缓存中获取
+     *
+     * @param <T>           转换的目标类型(转换器转换到的类型)
+     * @param sourceClass   源值类型
+     * @param type          目标类型
+     * @param isCustomFirst 是否自定义转换器优先
+     * @return 转换器, 目标类型无法识别时返回{@code null}
+     */
+    private <T> Converter<T> dispatch(Class<?> sourceClass, Type type, boolean isCustomFirst) {
+        if (false == isCacheable(type)) {
+            return resolve(sourceClass, type, isCustomFirst);
         }
+        final Class<?> targetClass = TypeKit.getClass(type);
+        if (null == targetClass) {
+            return resolve(sourceClass, type, isCustomFirst);
+        }
+        final Map<DispatchKey, Converter<?>> cache = dispatchCache.get(sourceClass).get(targetClass);
+        final DispatchKey key = new DispatchKey(type, isCustomFirst);
+        Converter<T> converter = (Converter<T>) cache.get(key);
+        if (null == converter) {
+            converter = resolve(sourceClass, type, isCustomFirst);
+            if (null != converter) {
+                if (cache.size() >= MAXIMUM_DISPATCH_SIZE) {
+                    cache.clear();
+                }
+                cache.put(key, converter);
+            }
+        }
+        return converter;
+    }
 
-        // 默认强转
-        if (rowType.isInstance(value)) {
-            return (T) value;
+    /**
+     * 解析(源类型, 目标类型)对应的转换器
+     *
+     * @param <T>           转换的目标类型(转换器转换到的类型)
+     * @param sourceClass   源值类型
+     * @param type          目标类型
+     * @param isCustomFirst 是否自定义转换器优先
+     * @return 转换器, 目标类型无法识别时返回{@code null}
+     */
+    private <T> Converter<T> resolve(Class<?> sourceClass, Type type, boolean isCustomFirst) {
+        // 标准转换器
+        final Converter<T> converter = getConverter(type, isCustomFirst);
+        if (null != converter) {
+            if (converter == getDefaultConverter(type)) {
+                final Converter<T> direct = direct(sourceClass, type, converter);
+                if (null != direct) {
+                    return direct;
+                }
+            }
+            return converter;
         }
 
-        // 枚举转换
-        if (rowType.isEnum()) {
-            return (T) new EnumConverter(rowType).convert(value, defaultValue);
+        final Class<T> rowType = (Class<T>) TypeKit.getClass(type);
+        if (null == rowType) {
+            return null;
         }
+        return special(type, rowType, sourceClass);
+    }
 
-        // 数组转换
-        if (rowType.isArray()) {
-            final ArrayConverter arrayConverter = new ArrayConverter(rowType);
-            try {
-                return (T) arrayConverter.convert(value, defaultValue);
-            } catch (Exception e) {
-                // 数组转换失败进行下一步
+    /**
+     * 默认转换器的快速路径：数值之间直接转换,已是目标类型的直接返回
+     *
+     * @param <T>         转换的目标类型(转换器转换到的类型)
+     * @param sourceClass 源值类型
+     * @param type        目标类型
+     * @param converter   默认转换器
+     * @return 快速转换器, 不适用时返回{@code null}
+     */
+    private <T> Converter<T> direct(Class<?> sourceClass, Type type, Converter<T> converter) {
+        final Converter<T> direct = (Converter<T>) DirectConverter.of(sourceClass, type, converter);
+        if (null != direct) {
+            return direct;
+        }
+        if (converter instanceof AbstractConverter) {
+            final Class<T> targetType = ((AbstractConverter<T>) converter).getTargetType();
+            if (null != targetType && targetType.isAssignableFrom(sourceClass) && false == Map.class.isAssignableFrom(targetType)) {
+                // 已经是目标类型,与AbstractConverter的处理一致
+                return (value, defaultValue) -> (null == defaultValue || targetType.isInstance(defaultValue))
+                        ? (T) value : converter.convert(value, defaultValue);
             }
         }
-
-        // 表示非需要特殊转换的对象
         return null;
     }
 
+    /**
+     * 特殊类型转换
+     * 包括：
+     * <pre>
+     * Collection
+     * Map
+     * 强转(无需转换)
+     * 数组
+     * Bean
+     * </pre>
+     *
+     * @param <T>         转换的目标类型(转换器转换到的类型)
+     * @param type        类型
+     * @param rowType     目标类型的原始类
+     * @param sourceClass 源值类型
+     * @return 转换器
+     */
+    private <T> Converter<T> special(Type type, Class<T> rowType, Class<?> sourceClass) {
+        final Converter<T> special;
+        if (Collection.class.isAssignableFrom(rowType)) {
+            // 集合转换(不可以默认强转)
+            special = (Converter<T>) new CollectionConverter(type);
+        } else if (Map.class.isAssignableFrom(rowType)) {
+            // Map类型(不可以默认强转)
+            special = (Converter<T>) new MapConverter(type);
+        } else if (rowType.isAssignableFrom(sourceClass)) {
+            // 默认强转
+            special = (value, defaultValue) -> (T) value;
+        } else if (rowType.isEnum()) {
+            // 枚举转换
+            special = (Converter<T>) new EnumConverter(rowType);
+        } else if (rowType.isArray()) {
+            // 数组转换
+            final ArrayConverter arrayConverter = new ArrayConverter(rowType);
+            special = (value, defaultValue) -> {
+                try {
+                    return (T) arrayConverter.convert(value, defaultValue);
+                } catch (Exception e) {
+                    // 数组转换失败进行下一步
+                    return null;
+                }
+            };
+        } else {
+            special = null;
+        }
+
+        // 特殊转换无结果时尝试转Bean
+        final Converter<T> bean = BeanKit.isBean(rowType) ? new BeanConverter<>(type) : null;
+        return (value, defaultValue) -> {
+            if (null != special) {
+                final T result = special.convert(value, defaultValue);
+                if (null != result) {
+                    return result;
+                }
+            }
+            if (null != bean) {
+                return bean.convert(value, defaultValue);
+            }
+            // 无法转换
+            throw new InstrumentException("No Converter for type [{}]", rowType.getName());
+        };
+    }
+
+    /**
+     * 只缓存具有值语义的类型,避免每次新建的泛型类型实例使缓存膨胀
+     *
+     * @param type 类型
+     * @return 是否可缓存
+     */
+    private static boolean isCacheable(Type type) {
+        return type instanceof Class
+                || (type instanceof ParameterizedType && null == type.getClass().getClassLoader());
+    }
+
     /**
      * 注册默认转换器
      *
@@ -382,6 +536,87 @@ public class ConverterRegistry {
         return this;
     }
 
+    /**
+     * 分派缓存,先按源类型再按目标类存放在{@link ClassValue}中,相当于以类为弱引用键,
+     * 缓存的转换器只由相关的类自身持有,不会阻止类加载器卸载
+     */
+    private static final class DispatchCache extends ClassValue<TargetCache> {
+
+        @Override
+        protected TargetCache computeValue(Class<?> sourceClass) {
+            return new TargetCache();
+        }
+    }
+
+    /**
+     * 某个源类型下按目标类存放的分派缓存,不能引用外部的{@link DispatchCache},否则替换后旧缓存无法回收
+     */
+    private static final class TargetCache extends ClassValue<Map<DispatchKey, Converter<?>>> {
+
+        @Override
+        protected Map<DispatchKey, Converter<?>> computeValue(Class<?> targetClass) {
+            return new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * 分派缓存键
+     */
+    private static final class DispatchKey {
+
+        private final Type type;
+        private final boolean isCustomFirst;
+
+        DispatchKey(Type type, boolean isCustomFirst) {
+            this.type = type;
+            this.isCustomFirst = isCustomFirst;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (false == o instanceof DispatchKey) {
+                return false;
+            }
+            final DispatchKey key = (DispatchKey) o;
+            return isCustomFirst == key.isCustomFirst && type.equals(key.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + (isCustomFirst ? 1 : 0);
+        }
+    }
+
+    /**
+     * 批量转换的上下文,记住上一个源类型对应的转换器
+     *
+     * @param <T> 转换的目标类型
+     */
+    private final class Converting<T> {
+
+        private final Type type;
+        private Class<?> lastClass;
+        private Converter<T> lastConverter;
+
+        Converting(Type type) {
+            this.type = type instanceof Types ? ((Types<?>) type).getType() : type;
+        }
+
+        T convert(Object value) {
+            if (null == value || TypeKit.isUnknow(type)) {
+                return (T) value;
+            }
+            if (value.getClass() != lastClass) {
+                lastClass = value.getClass();
+                lastConverter = dispatch(lastClass, type, true);
+            }
+            return null == lastConverter ? (T) value : lastConverter.convert(value, null);
+        }
+    }
+
     /**
      * 类级的内部类，也就是静态的成员式内部类，该内部类的实例与外部类的实例 没有绑定关系，而且只有被调用到才会装载，从而实现了延迟加载
      */
@@ -0,0 +1,266 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.core.convert;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Type;
+
+/**
+ * 数值类型之间的直接转换器
+ * 源值为基本类型的包装类、目标为数值基本类型或其包装类时，直接调用{@link Number}的取值方法，
+ * 不经过字符串中转，结果与{@link PrimitiveConverter}、{@link NumberConverter}一致；
+ * 基本类型数组之间的转换逐个元素强转，不装箱
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+final class DirectConverter implements Converter<Object> {
+
+    private static final int BYTE = 0;
+    private static final int SHORT = 1;
+    private static final int INT = 2;
+    private static final int LONG = 3;
+    private static final int FLOAT = 4;
+    private static final int DOUBLE = 5;
+
+    /**
+     * 目标类型
+     */
+    private final Class<?> targetType;
+    /**
+     * 目标数值种类
+     */
+    private final int kind;
+    /**
+     * 默认值类型不符时交由原转换器处理，保持原有的异常行为
+     */
+    private final Converter<Object> fallback;
+
+    private DirectConverter(Class<?> targetType, int kind, Converter<Object> fallback) {
+        this.targetType = targetType;
+        this.kind = kind;
+        this.fallback = fallback;
+    }
+
+    /**
+     * 获取直接转换器
+     *
+     * @param sourceClass 源值类型
+     * @param targetType  目标类型
+     * @param fallback    目标类型对应的默认转换器
+     * @return 直接转换器，不支持时返回{@code null}
+     */
+    static Converter<Object> of(Class<?> sourceClass, Type targetType, Converter<?> fallback) {
+        // 源值只能是包装类型，基本类型的值总是以包装类型传入
+        final Class<?> sourceType = BasicType.unWrap(sourceClass);
+        if (false == targetType instanceof Class || sourceType == sourceClass || kind(sourceType) < 0) {
+            return null;
+        }
+        final int kind = kind(BasicType.unWrap((Class<?>) targetType));
+        return kind < 0 ? null : new DirectConverter((Class<?>) targetType, kind, (Converter<Object>) fallback);
+    }
+
+    /**
+     * 基本类型数组之间的转换
+     *
+     * @param array         源数组
+     * @param componentType 目标元素类型
+     * @return 转换后的数组，源或目标不是数值基本类型时返回{@code null}
+     */
+    static Object convertArray(Object array, Class<?> componentType) {
+        final Class<?> sourceType = array.getClass().getComponentType();
+        if (false == sourceType.isPrimitive() || false == componentType.isPrimitive()
+                || kind(sourceType) < 0 || kind(componentType) < 0) {
+            return null;
+        }
+        if (array instanceof float[] || array instanceof double[]) {
+            final double[] values = array instanceof float[] ? toDoubles((float[]) array) : (double[]) array;
+            return fromDoubles(values, kind(componentType));
+        }
+        return fromLongs(toLongs(array), kind(componentType));
+    }
+
+    @Override
+    public Object convert(Object value, Object defaultValue) {
+        if (null != defaultValue && false == targetType.isInstance(defaultValue)) {
+            return fallback.convert(value, defaultValue);
+        }
+        if (targetType.isInstance(value)) {
+            // 已经是目标类型
+            return value;
+        }
+        final Number number = (Number) value;
+        switch (kind) {
+            case BYTE:
+                return number.byteValue();
+            case SHORT:
+                return number.shortValue();
+            case INT:
+                return number.intValue();
+            case LONG:
+                return number.longValue();
+            case FLOAT:
+                return number.floatValue();
+            default:
+                return number.doubleValue();
+        }
+    }
+
+    private static int kind(Class<?> clazz) {
+        if (byte.class == clazz) {
+            return BYTE;
+        } else if (short.class == clazz) {
+            return SHORT;
+        } else if (int.class == clazz) {
+            return INT;
+        } else if (long.class == clazz) {
+            return LONG;
+        } else if (float.class == clazz) {
+            return FLOAT;
+        } else if (double.class == clazz) {
+            return DOUBLE;
+        }
+        return -1;
+    }
+
+    private static long[] toLongs(Object array) {
+        if (array instanceof long[]) {
+            return (long[]) array;
+        }
+        final int length = Array.getLength(array);
+        final long[] values = new long[length];
+        if (array instanceof int[]) {
+            final int[] source = (int[]) array;
+            for (int i = 0; i < length; i++) {
+                values[i] = source[i];
+            }
+        } else if (array instanceof short[]) {
+            final short[] source = (short[]) array;
+            for (int i = 0; i < length; i++) {
+                values[i] = source[i];
+            }
+        } else {
+            final byte[] source = (byte[]) array;
+            for (int i = 0; i < length; i++) {
+                values[i] = source[i];
+            }
+        }
+        return values;
+    }
+
+    private static double[] toDoubles(float[] array) {
+        final double[] values = new double[array.length];
+        for (int i = 0; i < array.length; i++) {
+            values[i] = array[i];
+        }
+        return values;
+    }
+
+    private static Object fromLongs(long[] values, int kind) {
+        switch (kind) {
+            case BYTE: {
+                final byte[] result = new byte[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    result[i] = (byte) values[i];
+                }
+                return result;
+            }
+            case SHORT: {
+                final short[] result = new short[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    result[i] = (short) values[i];
+                }
+                return result;
+            }
+            case INT: {
+                final int[] result = new int[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    result[i] = (int) values[i];
+                }
+                return result;
+            }
+            case LONG:
+                return values.clone();
+            case FLOAT: {
+                final float[] result = new float[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    result[i] = values[i];
+                }
+                return result;
+            }
+            default: {
+                final double[] result = new double[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    result[i] = values[i];
+                }
+                return result;
+            }
+        }
+    }
+
+    private static Object fromDoubles(double[] values, int kind) {
+        switch (kind) {
+            case BYTE: {
+                final byte[] result = new byte[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    result[i] = (byte) (int) values[i];
+                }
+                return result;
+            }
+            case SHORT: {
+                final short[] result = new short[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    result[i] = (short) (int) values[i];
+                }
+                return result;
+            }
+            case INT: {
+                final int[] result = new int[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    result[i] = (int) values[i];
+                }
+                return result;
+            }
+            case LONG: {
+                final long[] result = new long[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    result[i] = (long) values[i];
+                }
+                return result;
+            }
+            case FLOAT: {
+                final float[] result = new float[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    result[i] = (float) values[i];
+                }
+                return result;
+            }
+            default:
+                return values.clone();
+        }
+    }
+
+}
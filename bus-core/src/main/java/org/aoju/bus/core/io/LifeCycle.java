@@ -24,9 +24,15 @@
  ********************************************************************************/
 package org.aoju.bus.core.io;
 
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * 这是避免GC搅动和零填充所必需的
  * 这个池是一个线程安全的静态单例
+ * <p>
+ * 按线程分片, 每个分片是一个无锁栈, 分片正被其他线程占用时直接新建或丢弃段, 不做等待;
+ * 池的总容量可通过系统属性{@code bus.io.pool.maxSize}(字节)配置, 平均分配到各分片
  *
  * @author Kimi Liu
  * @version 6.0.8
@@ -34,39 +40,129 @@ package org.aoju.bus.core.io;
  */
 public final class LifeCycle {
 
-    static final long MAX_SIZE = 64 * 1024;
+    /**
+     * 分片数, 取不小于CPU核数的2的幂
+     */
+    static final int SHARD_COUNT = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+
+    /**
+     * 池的总容量
+     */
+    static final long MAX_SIZE = Math.max(Segment.SIZE,
+            Long.getLong("bus.io.pool.maxSize", 64 * 1024L * SHARD_COUNT));
+
+    /**
+     * 单个分片的容量
+     */
+    static final long SHARD_MAX_SIZE = Math.max(Segment.SIZE, MAX_SIZE / SHARD_COUNT);
+
+    /**
+     * 分片正被占用的标记
+     */
+    private static final Segment LOCK = new Segment(new byte[0], 0, 0, false, false);
 
-    static Segment next;
+    /**
+     * 各分片栈顶, 栈顶段的limit记录该分片已缓存的字节数
+     */
+    private static final AtomicReference<Segment>[] SHARDS = new AtomicReference[SHARD_COUNT];
 
-    static long byteCount;
+    private static final LongAdder HIT_COUNT = new LongAdder();
+
+    private static final LongAdder MISS_COUNT = new LongAdder();
+
+    static {
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            SHARDS[i] = new AtomicReference<>();
+        }
+    }
 
     private LifeCycle() {
 
     }
 
     public static Segment take() {
-        synchronized (LifeCycle.class) {
-            if (next != null) {
-                Segment result = next;
-                next = result.next;
-                result.next = null;
-                byteCount -= Segment.SIZE;
-                return result;
-            }
+        final AtomicReference<Segment> shard = shard();
+
+        final Segment first = shard.getAndSet(LOCK);
+        if (first == LOCK) {
+            // 分片正被占用, 不等待
+            MISS_COUNT.increment();
+            return new Segment();
         }
-        return new Segment();
+        if (first == null) {
+            shard.set(null);
+            MISS_COUNT.increment();
+            return new Segment();
+        }
+
+        shard.set(first.next);
+        first.next = null;
+        first.limit = 0;
+        HIT_COUNT.increment();
+        return first;
     }
 
     public static void recycle(Segment segment) {
         if (segment.next != null || segment.prev != null) throw new IllegalArgumentException();
         if (segment.shared) return;
-        synchronized (LifeCycle.class) {
-            if (byteCount + Segment.SIZE > MAX_SIZE) return;
-            byteCount += Segment.SIZE;
-            segment.next = next;
-            segment.pos = segment.limit = 0;
-            next = segment;
+
+        final AtomicReference<Segment> shard = shard();
+
+        final Segment first = shard.getAndSet(LOCK);
+        if (first == LOCK) {
+            // 分片正被占用, 丢弃
+            return;
+        }
+        final int firstLimit = first != null ? first.limit : 0;
+        if (firstLimit >= SHARD_MAX_SIZE) {
+            // 分片已满
+            shard.set(first);
+            return;
+        }
+
+        segment.next = first;
+        segment.pos = 0;
+        segment.limit = firstLimit + Segment.SIZE;
+        shard.set(segment);
+    }
+
+    /**
+     * 池中缓存的字节数
+     *
+     * @return 字节数
+     */
+    public static long byteCount() {
+        long byteCount = 0;
+        for (AtomicReference<Segment> shard : SHARDS) {
+            final Segment first = shard.get();
+            if (first != null && first != LOCK) {
+                byteCount += first.limit;
+            }
         }
+        return byteCount;
+    }
+
+    /**
+     * 从池中取得段的次数
+     *
+     * @return 命中次数
+     */
+    public static long hitCount() {
+        return HIT_COUNT.sum();
+    }
+
+    /**
+     * 池中无可用段而新建的次数
+     *
+     * @return 未命中次数
+     */
+    public static long missCount() {
+        return MISS_COUNT.sum();
+    }
+
+    private static AtomicReference<Segment> shard() {
+        final int hash = (int) (Thread.currentThread().getId() & (SHARD_COUNT - 1L));
+        return SHARDS[hash];
     }
 
 }
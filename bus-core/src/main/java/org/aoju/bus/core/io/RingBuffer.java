@@ -28,6 +28,12 @@ import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * 环形缓冲
+ * <p>
+ * 默认基于锁实现; 通过{@link #RingBuffer(int, EventFactory, WaitStrategy)}构造时
+ * 使用基于序号的无锁实现, 两种实现均支持批量认领及发布
+ *
+ * @param <T> 事件类型
  * @author Kimi Liu
  * @version 6.0.8
  * @since JDK 1.8+
@@ -64,6 +70,10 @@ public final class RingBuffer<T> {
     private volatile boolean needEmptySingle = false;
 
     private EventFactory<T> eventFactory;
+    /**
+     * 无锁实现, 为空时使用锁实现
+     */
+    private final SequenceRing<T> sequenceRing;
 
     public RingBuffer(int capacity, EventFactory<T> factory) {
         if (capacity <= 0)
@@ -73,9 +83,31 @@ public final class RingBuffer<T> {
         notEmpty = lock.newCondition();
         notFull = lock.newCondition();
         this.eventFactory = factory;
+        this.sequenceRing = null;
+    }
+
+    /**
+     * 构造无锁的环形缓冲, 容量向上取整为2的幂, 所有事件对象在构造时创建
+     *
+     * @param capacity     容量
+     * @param factory      事件工厂
+     * @param waitStrategy 槽位不可用时的等待策略
+     */
+    public RingBuffer(int capacity, EventFactory<T> factory, WaitStrategy waitStrategy) {
+        if (capacity <= 0 || null == waitStrategy)
+            throw new IllegalArgumentException();
+        this.items = null;
+        this.lock = null;
+        this.notEmpty = null;
+        this.notFull = null;
+        this.eventFactory = factory;
+        this.sequenceRing = new SequenceRing<>(capacity, factory, waitStrategy);
     }
 
     public int nextWriteIndex() throws InterruptedException {
+        if (sequenceRing != null) {
+            return sequenceRing.nextWriteIndex(1);
+        }
         final ReentrantLock lock = this.lock;
         lock.lockInterruptibly();
         try {
@@ -104,6 +136,9 @@ public final class RingBuffer<T> {
     }
 
     public int tryNextWriteIndex() throws InterruptedException {
+        if (sequenceRing != null) {
+            return sequenceRing.tryNextWriteIndex(1);
+        }
         final ReentrantLock lock = this.lock;
         lock.lockInterruptibly();
         try {
@@ -130,6 +165,10 @@ public final class RingBuffer<T> {
     }
 
     public void publishWriteIndex(int sequence) {
+        if (sequenceRing != null) {
+            sequenceRing.publishWriteIndex(sequence, 1);
+            return;
+        }
         Node<T> node = items[sequence];
         if (node.status != WRITING) {
             throw new RuntimeException("invalid status");
@@ -147,10 +186,16 @@ public final class RingBuffer<T> {
     }
 
     public T get(int sequence) {
+        if (sequenceRing != null) {
+            return sequenceRing.get(sequence);
+        }
         return items[sequence].entity;
     }
 
     public int tryNextReadIndex() {
+        if (sequenceRing != null) {
+            return sequenceRing.tryNextReadIndex(1);
+        }
         final ReentrantLock lock = this.lock;
         lock.lock();
         try {
@@ -171,6 +216,9 @@ public final class RingBuffer<T> {
     }
 
     public int nextReadIndex() throws InterruptedException {
+        if (sequenceRing != null) {
+            return sequenceRing.nextReadIndex(1);
+        }
         final ReentrantLock lock = this.lock;
         lock.lockInterruptibly();
         try {
@@ -204,6 +252,10 @@ public final class RingBuffer<T> {
     }
 
     public void publishReadIndex(int sequence) {
+        if (sequenceRing != null) {
+            sequenceRing.publishReadIndex(sequence, 1);
+            return;
+        }
         Node<T> node = items[sequence];
         if (node.status != READING) {
             throw new RuntimeException("invalid status");
@@ -221,6 +273,223 @@ public final class RingBuffer<T> {
         }
     }
 
+    /**
+     * 批量认领连续n个可写槽位, 槽位不足时等待
+     *
+     * @param n 槽位数
+     * @return 第一个槽位的索引, 第i个槽位为{@code (index + i) % capacity()}
+     * @throws InterruptedException 线程被中断
+     */
+    public int nextWriteIndex(int n) throws InterruptedException {
+        if (sequenceRing != null) {
+            return sequenceRing.nextWriteIndex(n);
+        }
+        checkClaimSize(n);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            notFullSignal();
+            while (!isWriteable(n)) {
+                notFull.await();
+                notFullSignal();
+            }
+            return claimWrite(n);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 批量认领连续n个可写槽位
+     *
+     * @param n 槽位数
+     * @return 第一个槽位的索引, 槽位不足时返回-1
+     */
+    public int tryNextWriteIndex(int n) {
+        if (sequenceRing != null) {
+            return sequenceRing.tryNextWriteIndex(n);
+        }
+        checkClaimSize(n);
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            notFullSignal();
+            return isWriteable(n) ? claimWrite(n) : -1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 批量发布已写入的槽位
+     *
+     * @param index 第一个槽位的索引
+     * @param n     槽位数
+     */
+    public void publishWriteIndex(int index, int n) {
+        if (sequenceRing != null) {
+            sequenceRing.publishWriteIndex(index, n);
+            return;
+        }
+        checkClaimSize(n);
+        for (int i = 0; i < n; i++) {
+            Node<T> node = items[(index + i) % items.length];
+            if (node.status != WRITING) {
+                throw new RuntimeException("invalid status");
+            }
+            node.status = READABLE;
+        }
+        signalAll(notEmpty);
+    }
+
+    /**
+     * 批量认领连续n个可读槽位, 槽位不足时等待
+     *
+     * @param n 槽位数
+     * @return 第一个槽位的索引
+     * @throws InterruptedException 线程被中断
+     */
+    public int nextReadIndex(int n) throws InterruptedException {
+        if (sequenceRing != null) {
+            return sequenceRing.nextReadIndex(n);
+        }
+        checkClaimSize(n);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            notFullSignal();
+            while (!isReadable(n)) {
+                notEmpty.await();
+                notFullSignal();
+            }
+            return claimRead(n);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 批量认领连续n个可读槽位
+     *
+     * @param n 槽位数
+     * @return 第一个槽位的索引, 槽位不足时返回-1
+     */
+    public int tryNextReadIndex(int n) {
+        if (sequenceRing != null) {
+            return sequenceRing.tryNextReadIndex(n);
+        }
+        checkClaimSize(n);
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            notFullSignal();
+            return isReadable(n) ? claimRead(n) : -1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 批量发布已读取的槽位
+     *
+     * @param index 第一个槽位的索引
+     * @param n     槽位数
+     */
+    public void publishReadIndex(int index, int n) {
+        if (sequenceRing != null) {
+            sequenceRing.publishReadIndex(index, n);
+            return;
+        }
+        checkClaimSize(n);
+        for (int i = 0; i < n; i++) {
+            Node<T> node = items[(index + i) % items.length];
+            if (node.status != READING) {
+                throw new RuntimeException("invalid status");
+            }
+            eventFactory.restEntity(node.entity);
+            node.status = WRITEABLE;
+        }
+        signalAll(notFull);
+    }
+
+    /**
+     * 槽位数
+     *
+     * @return 容量
+     */
+    public int capacity() {
+        return sequenceRing != null ? sequenceRing.capacity() : items.length;
+    }
+
+    private void checkClaimSize(int n) {
+        if (n <= 0 || n > capacity()) {
+            throw new IllegalArgumentException("invalid claim size: " + n);
+        }
+    }
+
+    /**
+     * 从putIndex起的n个槽位是否均可写, 需持有锁
+     */
+    private boolean isWriteable(int n) {
+        for (int i = 0; i < n; i++) {
+            int index = (putIndex + i) % items.length;
+            Node<T> node = items[index];
+            if (node == null) {
+                node = new Node<>(eventFactory.newInstance());
+                node.status = WRITEABLE;
+                items[index] = node;
+            }
+            if (node.status != WRITEABLE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int claimWrite(int n) {
+        int index = putIndex;
+        for (int i = 0; i < n; i++) {
+            items[(index + i) % items.length].status = WRITING;
+        }
+        putIndex = (index + n) % items.length;
+        return index;
+    }
+
+    /**
+     * 从takeIndex起的n个槽位是否均可读, 需持有锁
+     */
+    private boolean isReadable(int n) {
+        for (int i = 0; i < n; i++) {
+            Node<T> node = items[(takeIndex + i) % items.length];
+            if (node == null || node.status != READABLE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int claimRead(int n) {
+        int index = takeIndex;
+        for (int i = 0; i < n; i++) {
+            items[(index + i) % items.length].status = READING;
+        }
+        takeIndex = (index + n) % items.length;
+        return index;
+    }
+
+    /**
+     * 批量发布后唤醒全部等待者, 等待多个槽位的线程需要重新检查
+     */
+    private void signalAll(Condition condition) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
     class Node<T1> {
 
         byte status;
@@ -0,0 +1,186 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.core.io;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * 基于序号的无锁环形缓冲, 支持多生产者、多消费者
+ * <p>
+ * 每个槽位记录一个序号: 等于写游标时可写, 等于写游标+1时可读, 读完后推进一圈;
+ * 生产者与消费者分别通过CAS推进各自的游标认领槽位, 游标做了缓存行填充以避免伪共享
+ *
+ * @param <T> 事件类型
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+final class SequenceRing<T> {
+
+    private final Object[] entities;
+
+    private final AtomicLongArray sequences;
+
+    private final int mask;
+
+    private final EventFactory<T> eventFactory;
+
+    private final WaitStrategy waitStrategy;
+
+    private final Cursor writeCursor = new Cursor();
+
+    private final Cursor readCursor = new Cursor();
+
+    SequenceRing(int capacity, EventFactory<T> factory, WaitStrategy waitStrategy) {
+        // 容量向上取整为2的幂
+        final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.entities = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            this.entities[i] = factory.newInstance();
+            this.sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.eventFactory = factory;
+        this.waitStrategy = waitStrategy;
+    }
+
+    int nextWriteIndex(int n) throws InterruptedException {
+        int index;
+        for (int counter = 0; (index = tryNextWriteIndex(n)) < 0; counter++) {
+            waitStrategy.await(counter);
+        }
+        return index;
+    }
+
+    int tryNextWriteIndex(int n) {
+        return claim(writeCursor, n, 0);
+    }
+
+    void publishWriteIndex(int index, int n) {
+        publish(index, n, 1);
+    }
+
+    int nextReadIndex(int n) throws InterruptedException {
+        int index;
+        for (int counter = 0; (index = tryNextReadIndex(n)) < 0; counter++) {
+            waitStrategy.await(counter);
+        }
+        return index;
+    }
+
+    int tryNextReadIndex(int n) {
+        return claim(readCursor, n, 1);
+    }
+
+    void publishReadIndex(int index, int n) {
+        for (int i = 0; i < n; i++) {
+            eventFactory.restEntity(get((index + i) & mask));
+        }
+        publish(index, n, entities.length - 1);
+    }
+
+    T get(int index) {
+        return (T) entities[index];
+    }
+
+    int capacity() {
+        return entities.length;
+    }
+
+    /**
+     * 认领连续n个槽位
+     *
+     * @param cursor 写游标或读游标
+     * @param n      槽位数
+     * @param offset 槽位可认领时序号相对游标的偏移, 写为0, 读为1
+     * @return 第一个槽位的索引, 槽位不足时返回-1
+     */
+    private int claim(Cursor cursor, int n, int offset) {
+        if (n <= 0 || n > entities.length) {
+            throw new IllegalArgumentException("invalid claim size: " + n);
+        }
+        for (; ; ) {
+            final long position = cursor.get();
+            boolean available = true;
+            for (int i = 0; i < n; i++) {
+                final long delta = sequences.get((int) (position + i) & mask) - (position + i + offset);
+                if (delta < 0) {
+                    // 写满或读空
+                    return -1;
+                }
+                if (delta > 0) {
+                    // 已被其他线程认领, 重新读取游标
+                    available = false;
+                    break;
+                }
+            }
+            if (available && cursor.compareAndSet(position, position + n)) {
+                return (int) position & mask;
+            }
+        }
+    }
+
+    private void publish(int index, int n, int increment) {
+        for (int i = 0; i < n; i++) {
+            final int slot = (index + i) & mask;
+            sequences.lazySet(slot, sequences.get(slot) + increment);
+        }
+    }
+
+    /**
+     * 左侧填充
+     */
+    static class LeftPadding {
+        long p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    /**
+     * 游标值
+     */
+    static class Value extends LeftPadding {
+        volatile long value;
+    }
+
+    /**
+     * 缓存行填充的游标
+     */
+    static final class Cursor extends Value {
+
+        private static final AtomicLongFieldUpdater<Value> UPDATER = AtomicLongFieldUpdater.newUpdater(Value.class, "value");
+
+        long p9, p10, p11, p12, p13, p14, p15;
+
+        long get() {
+            return value;
+        }
+
+        boolean compareAndSet(long expect, long update) {
+            return UPDATER.compareAndSet(this, expect, update);
+        }
+    }
+
+}
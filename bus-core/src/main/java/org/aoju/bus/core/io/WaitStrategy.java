@@ -0,0 +1,93 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.core.io;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 无锁{@link RingBuffer}在槽位不可用时的等待策略
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+public enum WaitStrategy {
+
+    /**
+     * 忙等, 延迟最低但持续占用CPU, 适用于线程数不超过CPU核数的场景
+     */
+    BUSY_SPIN {
+        @Override
+        void idle(int counter) {
+            // 忙等
+        }
+    },
+    /**
+     * 自旋一段时间后让出CPU
+     */
+    YIELD {
+        @Override
+        void idle(int counter) {
+            if (counter > SPIN_TRIES) {
+                Thread.yield();
+            }
+        }
+    },
+    /**
+     * 自旋、让出CPU后短暂休眠, CPU占用最低
+     */
+    PARK {
+        @Override
+        void idle(int counter) {
+            if (counter > SPIN_TRIES + YIELD_TRIES) {
+                LockSupport.parkNanos(PARK_NANOS);
+            } else if (counter > SPIN_TRIES) {
+                Thread.yield();
+            }
+        }
+    };
+
+    private static final int SPIN_TRIES = 100;
+
+    private static final int YIELD_TRIES = 100;
+
+    private static final long PARK_NANOS = 1000L;
+
+    /**
+     * 等待一次
+     *
+     * @param counter 已等待的次数
+     * @throws InterruptedException 线程被中断
+     */
+    void await(int counter) throws InterruptedException {
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        idle(counter);
+    }
+
+    abstract void idle(int counter);
+
+}
@@ -29,6 +29,8 @@ import org.aoju.bus.core.toolkit.StringKit;
 
 import java.io.Serializable;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * 0 - 0000000000 0000000000 0000000000 0000000000 0 - 00000 - 00000 - 000000000000
@@ -40,6 +42,8 @@ import java.util.Date;
  * 加起来刚好64位,为一个Long型
  * SnowFlake的优点是,整体上按照时间自增排序,并且整个分布式系统内不会产生ID碰撞
  * (由数据中心ID和机器ID作区分),并且效率较高,经测试,SnowFlake每秒能够产生26万ID左右
+ * 时间戳与序列号打包在一个{@link AtomicLong}中, 通过CAS分配, 不加锁;
+ * 可通过{@link #nextIds(int)}一次CAS预留一段ID, 开启借用后序列号用尽时可预支未来的毫秒
  *
  * @author Kimi Liu
  * @version 6.0.8
@@ -66,11 +70,22 @@ public class Snowflake implements Serializable {
     private final long timestampLeftShift = sequenceBits + workerIdBits + dataCenterIdBits;
     private final long sequenceMask = -1L ^ (-1L << sequenceBits);// 4095
 
+    /**
+     * 容忍的时钟回拨毫秒数
+     */
+    private static final long ROLLBACK_TOLERANCE = 2000L;
+
     private long workerId;
     private long dataCenterId;
-    private long sequence = 0L;
-    private long lastTimestamp = -1L;
     private boolean useSystemClock;
+    /**
+     * 序列号用尽时最多可预支的未来毫秒数, 0表示不预支
+     */
+    private final long borrowMillis;
+    /**
+     * 最近一次分配的(时间戳差值 &lt;&lt; 序列号位数) | 序列号
+     */
+    private final AtomicLong state = new AtomicLong();
 
     /**
      * 构造
@@ -100,6 +115,21 @@ public class Snowflake implements Serializable {
      * @param isUseSystemClock 是否使用{@link SystemClock} 获取当前时间戳
      */
     public Snowflake(Date epochDate, long workerId, long dataCenterId, boolean isUseSystemClock) {
+        this(epochDate, workerId, dataCenterId, isUseSystemClock, 0L);
+    }
+
+    /**
+     * @param epochDate        初始化时间起点(null表示默认起始日期),后期修改会导致id重复,如果要修改连workerId dataCenterId，慎用
+     * @param workerId         工作机器节点id
+     * @param dataCenterId     数据中心id
+     * @param isUseSystemClock 是否使用{@link SystemClock} 获取当前时间戳
+     * @param borrowMillis     序列号用尽时最多可预支的未来毫秒数, 0表示等待下一毫秒
+     */
+    public Snowflake(Date epochDate, long workerId, long dataCenterId, boolean isUseSystemClock, long borrowMillis) {
+        if (borrowMillis < 0) {
+            throw new IllegalArgumentException("borrow millis can't be less than 0");
+        }
+        this.borrowMillis = borrowMillis;
         if (null != epochDate) {
             this.twepoch = epochDate.getTime();
         } else {
@@ -151,30 +181,30 @@ public class Snowflake implements Serializable {
      *
      * @return ID
      */
-    public synchronized long nextId() {
-        long timestamp = genTime();
-        if (timestamp < lastTimestamp) {
-            if (lastTimestamp - timestamp < 2000) {
-                // 容忍2秒内的回拨，避免NTP校时造成的异常
-                timestamp = lastTimestamp;
-            } else {
-                // 如果服务器时间有问题(时钟后退) 报错。
-                throw new IllegalStateException(StringKit.format("Clock moved backwards. Refusing to generate id for {}ms", lastTimestamp - timestamp));
-            }
-        }
+    public long nextId() {
+        return toId(reserve(1));
+    }
 
-        if (timestamp == lastTimestamp) {
-            sequence = (sequence + 1) & sequenceMask;
-            if (sequence == 0) {
-                timestamp = tilNextMillis(lastTimestamp);
+    /**
+     * 批量获取ID, 每次CAS预留当前毫秒内尽可能多的序列号
+     *
+     * @param n ID数量
+     * @return 递增的ID
+     */
+    public long[] nextIds(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n can't be less than 0");
+        }
+        final long[] ids = new long[n];
+        int filled = 0;
+        while (filled < n) {
+            final long first = reserve(n - filled);
+            final long count = reservedCount(first, n - filled);
+            for (long packed = first; packed < first + count; packed++) {
+                ids[filled++] = toId(packed);
             }
-        } else {
-            sequence = 0L;
         }
-
-        lastTimestamp = timestamp;
-
-        return ((timestamp - twepoch) << timestampLeftShift) | (dataCenterId << dataCenterIdShift) | (workerId << workerIdShift) | sequence;
+        return ids;
     }
 
     /**
@@ -187,17 +217,61 @@ public class Snowflake implements Serializable {
     }
 
     /**
-     * 循环等待下一个时间
+     * 预留最多n个连续的序列号
      *
-     * @param lastTimestamp 上次记录的时间
-     * @return 下一个时间
+     * @param n 期望数量
+     * @return 预留的第一个(时间戳差值, 序列号), 数量为{@link #reservedCount(long, int)}
+     */
+    private long reserve(int n) {
+        for (int spins = 0; ; spins++) {
+            final long current = state.get();
+            final long lastTimestamp = current >>> sequenceBits;
+            final long timestamp = genTime() - twepoch;
+
+            final long first;
+            if (timestamp > lastTimestamp) {
+                first = timestamp << sequenceBits;
+            } else if (lastTimestamp - timestamp >= ROLLBACK_TOLERANCE + borrowMillis) {
+                // 如果服务器时间有问题(时钟后退) 报错。
+                throw new IllegalStateException(StringKit.format("Clock moved backwards. Refusing to generate id for {}ms", lastTimestamp - timestamp));
+            } else if ((current & sequenceMask) < sequenceMask) {
+                // 同一毫秒或容忍范围内的回拨，沿用上次的时间戳
+                first = current + 1;
+            } else if (lastTimestamp + 1 - timestamp <= borrowMillis) {
+                // 序列号用尽，预支下一毫秒
+                first = (lastTimestamp + 1) << sequenceBits;
+            } else {
+                // 序列号用尽，只让当前线程等待下一毫秒
+                waitNextMillis(spins);
+                continue;
+            }
+
+            if (state.compareAndSet(current, first + reservedCount(first, n) - 1)) {
+                return first;
+            }
+        }
+    }
+
+    /**
+     * 计算{@link #reserve(int)}实际预留的数量
+     */
+    private long reservedCount(long first, int n) {
+        return Math.min(n, sequenceMask - (first & sequenceMask) + 1);
+    }
+
+    /**
+     * 组装ID
      */
-    private long tilNextMillis(long lastTimestamp) {
-        long timestamp = genTime();
-        while (timestamp <= lastTimestamp) {
-            timestamp = genTime();
+    private long toId(long packed) {
+        return ((packed >>> sequenceBits) << timestampLeftShift) | (dataCenterId << dataCenterIdShift) | (workerId << workerIdShift) | (packed & sequenceMask);
+    }
+
+    private void waitNextMillis(int spins) {
+        if (spins < 64) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(100_000L);
         }
-        return timestamp;
     }
 
     /**
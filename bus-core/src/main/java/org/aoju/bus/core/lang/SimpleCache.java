@@ -25,13 +25,20 @@
 package org.aoju.bus.core.lang;
 
 import java.io.Serializable;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.WeakHashMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * 简单缓存,无超时实现,使用{@link WeakHashMap}实现缓存自动清理
+ * 简单缓存,无超时实现,默认使用弱引用键实现缓存自动清理
+ * <p>
+ * 基于{@link ConcurrentHashMap}实现, 读取无锁;
+ * {@link #get(Object, Func.Func0)}只对同一个key加锁, 不同key的值可以并行生产
  *
  * @param <K> 键类型
  * @param <V> 值类型
@@ -46,28 +53,63 @@ public class SimpleCache<K, V> implements Iterable<Map.Entry<K, V>>, Serializabl
     /**
      * 缓存池
      */
-    private final Map<K, V> cache;
+    private final Map<Key<K>, V> cache = new ConcurrentHashMap<>();
     /**
-     * 乐观读写锁
+     * 正在生产值的key对应的锁, 引用计数归零时移除
      */
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Key<K>, KeyLock> keyLocks = new ConcurrentHashMap<>();
+    /**
+     * 键引用类型
+     */
+    private final KeyType keyType;
+    /**
+     * 最大条目数, 小于等于0表示不限制
+     */
+    private final int maximumSize;
+    /**
+     * 命中次数
+     */
+    private final LongAdder hitCount = new LongAdder();
+    /**
+     * 未命中次数
+     */
+    private final LongAdder missCount = new LongAdder();
+    /**
+     * 已被回收的键引用队列
+     */
+    private transient ReferenceQueue<K> queue;
 
     /**
-     * 构造，默认使用{@link WeakHashMap}实现缓存自动清理
+     * 构造，默认使用弱引用键实现缓存自动清理
      */
     public SimpleCache() {
-        this(new WeakHashMap<>());
+        this(KeyType.WEAK, 0);
     }
 
     /**
-     * 通过自定义Map初始化，可以自定义缓存实现
-     * 比如使用{@link WeakHashMap}则会自动清理key，使用HashMap则不会清理
-     * 同时，传入的Map对象也可以自带初始化的键值对，防止在get时创建
+     * 通过自定义Map初始化
+     * 传入{@link WeakHashMap}时使用弱引用键自动清理，其它Map使用强引用键不会清理
+     * 同时，传入的Map中的键值对会复制到缓存中，防止在get时创建
      *
-     * @param initMap 初始Map，用于定义Map类型
+     * @param initMap 初始Map，用于定义键引用类型
      */
     public SimpleCache(Map<K, V> initMap) {
-        this.cache = initMap;
+        this(initMap instanceof WeakHashMap ? KeyType.WEAK : KeyType.STRONG, 0);
+        initMap.forEach(this::put);
+    }
+
+    /**
+     * 构造
+     *
+     * @param keyType     键引用类型，弱引用或软引用键可避免缓存阻止类加载器卸载
+     * @param maximumSize 最大条目数，超出时淘汰任意条目，小于等于0表示不限制
+     */
+    public SimpleCache(KeyType keyType, int maximumSize) {
+        this.keyType = null == keyType ? KeyType.STRONG : keyType;
+        this.maximumSize = maximumSize;
+        if (KeyType.STRONG != this.keyType) {
+            this.queue = new ReferenceQueue<>();
+        }
     }
 
     /**
@@ -77,16 +119,19 @@ public class SimpleCache<K, V> implements Iterable<Map.Entry<K, V>>, Serializabl
      * @return 值
      */
     public V get(K key) {
-        lock.readLock().lock();
-        try {
-            return cache.get(key);
-        } finally {
-            lock.readLock().unlock();
+        purge();
+        V v = cache.get(new StrongKey<>(key));
+        if (null == v) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
         }
+        return v;
     }
 
     /**
      * 从缓存中获得对象，当对象不在缓存中或已经过期返回Func0回调产生的对象
+     * 同一个key同时只有一个线程执行回调，其余线程等待并共享其结果
      *
      * @param key      键
      * @param supplier 如果不存在回调方法，用于生产值对象
@@ -94,41 +139,70 @@ public class SimpleCache<K, V> implements Iterable<Map.Entry<K, V>>, Serializabl
      */
     public V get(K key, Func.Func0<V> supplier) {
         V v = get(key);
+        if (null != v || null == supplier) {
+            return v;
+        }
 
-        if (null == v && null != supplier) {
-            lock.writeLock().lock();
-            try {
-                v = cache.get(key);
-                // 双重检查，防止在竞争锁的过程中已经有其它线程写入
-                if (null == v) {
-                    try {
-                        v = supplier.call();
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
-                    cache.put(key, v);
+        final Key<K> lockKey = new StrongKey<>(key);
+        final KeyLock keyLock = acquire(lockKey);
+        keyLock.lock();
+        try {
+            // 双重检查，防止在竞争锁的过程中已经有其它线程写入
+            v = cache.get(lockKey);
+            if (null == v) {
+                try {
+                    v = supplier.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
                 }
-            } finally {
-                lock.writeLock().unlock();
+                put(key, v);
             }
+        } finally {
+            keyLock.unlock();
+            release(lockKey);
         }
-
         return v;
     }
 
     /**
-     * 放入缓存
+     * 获取key对应的锁并增加引用计数, 同一key的所有线程(包括回调中的重入)共用同一把锁
+     */
+    private KeyLock acquire(Key<K> lockKey) {
+        return keyLocks.compute(lockKey, (k, lock) -> {
+            if (null == lock) {
+                lock = new KeyLock();
+            }
+            lock.refs++;
+            return lock;
+        });
+    }
+
+    /**
+     * 减少引用计数, 最后一个使用者释放后才移除锁, 避免其它线程创建新锁并发生产
+     */
+    private void release(Key<K> lockKey) {
+        keyLocks.computeIfPresent(lockKey, (k, lock) -> --lock.refs == 0 ? null : lock);
+    }
+
+    /**
+     * 放入缓存，值为null时移除此键
      *
      * @param key   键
      * @param value 值
      * @return 值
      */
     public V put(K key, V value) {
-        lock.writeLock().lock();
-        try {
-            cache.put(key, value);
-        } finally {
-            lock.writeLock().unlock();
+        purge();
+        if (null == value) {
+            cache.remove(new StrongKey<>(key));
+            return null;
+        }
+
+        cache.put(wrap(key), value);
+        if (maximumSize > 0 && cache.size() > maximumSize) {
+            evict();
         }
         return value;
     }
@@ -140,29 +214,236 @@ public class SimpleCache<K, V> implements Iterable<Map.Entry<K, V>>, Serializabl
      * @return 移除的值
      */
     public V remove(K key) {
-        lock.writeLock().lock();
-        try {
-            return cache.remove(key);
-        } finally {
-            lock.writeLock().unlock();
-        }
+        purge();
+        return cache.remove(new StrongKey<>(key));
     }
 
     /**
      * 清空缓存池
      */
     public void clear() {
-        lock.writeLock().lock();
-        try {
-            this.cache.clear();
-        } finally {
-            lock.writeLock().unlock();
-        }
+        this.cache.clear();
+        purge();
+    }
+
+    /**
+     * 缓存条目数，可能包含已被回收但尚未清理的键
+     *
+     * @return 条目数
+     */
+    public int size() {
+        purge();
+        return this.cache.size();
+    }
+
+    /**
+     * 命中次数
+     *
+     * @return 命中次数
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * 未命中次数
+     *
+     * @return 未命中次数
+     */
+    public long getMissCount() {
+        return missCount.sum();
     }
 
     @Override
     public Iterator<Map.Entry<K, V>> iterator() {
-        return this.cache.entrySet().iterator();
+        purge();
+        return new EntryIterator();
+    }
+
+    private Key<K> wrap(K key) {
+        if (null == key || null == queue) {
+            return new StrongKey<>(key);
+        }
+        return KeyType.SOFT == keyType ? new SoftKey<>(key, queue) : new WeakKey<>(key, queue);
+    }
+
+    /**
+     * 清理已被回收的键
+     */
+    private void purge() {
+        if (null == queue) {
+            return;
+        }
+        Reference<? extends K> ref;
+        while (null != (ref = queue.poll())) {
+            cache.remove(ref);
+        }
+    }
+
+    /**
+     * 超出最大条目数时淘汰任意条目
+     */
+    private void evict() {
+        final Iterator<Key<K>> iterator = cache.keySet().iterator();
+        while (cache.size() > maximumSize && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 遍历缓存条目, 跳过已被回收的键, 支持移除
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+        private final Iterator<Map.Entry<Key<K>, V>> iterator = cache.entrySet().iterator();
+
+        private Map.Entry<K, V> next;
+
+        @Override
+        public boolean hasNext() {
+            while (null == next && iterator.hasNext()) {
+                final Map.Entry<Key<K>, V> entry = iterator.next();
+                final K key = entry.getKey().get();
+                if (null != key || entry.getKey() instanceof StrongKey) {
+                    next = new AbstractMap.SimpleImmutableEntry<>(key, entry.getValue());
+                }
+            }
+            return null != next;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Map.Entry<K, V> entry = next;
+            next = null;
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 键引用类型
+     */
+    public enum KeyType {
+        /**
+         * 强引用，键不会被回收
+         */
+        STRONG,
+        /**
+         * 弱引用，键不再被引用时回收
+         */
+        WEAK,
+        /**
+         * 软引用，内存不足时回收
+         */
+        SOFT
+    }
+
+    /**
+     * 缓存键，不同引用类型的键按被引用对象比较
+     */
+    private interface Key<K> {
+
+        K get();
+
+    }
+
+    /**
+     * 带引用计数的锁, 计数只在{@link ConcurrentHashMap}的原子操作中修改
+     */
+    private static final class KeyLock extends ReentrantLock {
+
+        private static final long serialVersionUID = 1L;
+
+        private int refs;
+
+    }
+
+    private static final class StrongKey<K> implements Key<K>, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final K key;
+
+        StrongKey(K key) {
+            this.key = key;
+        }
+
+        @Override
+        public K get() {
+            return key;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return this == obj || (obj instanceof Key && Objects.equals(key, ((Key<?>) obj).get()));
+        }
+    }
+
+    private static final class WeakKey<K> extends WeakReference<K> implements Key<K> {
+
+        private final int hash;
+
+        WeakKey(K key, ReferenceQueue<K> queue) {
+            super(key, queue);
+            this.hash = key.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return referentEquals(this, obj);
+        }
+    }
+
+    private static final class SoftKey<K> extends SoftReference<K> implements Key<K> {
+
+        private final int hash;
+
+        SoftKey(K key, ReferenceQueue<K> queue) {
+            super(key, queue);
+            this.hash = key.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return referentEquals(this, obj);
+        }
+    }
+
+    /**
+     * 引用键比较，已被回收的键只与自身相等
+     */
+    private static boolean referentEquals(Key<?> self, Object obj) {
+        if (self == obj) {
+            return true;
+        }
+        if (!(obj instanceof Key)) {
+            return false;
+        }
+        final Object key = self.get();
+        return null != key && key.equals(((Key<?>) obj).get());
     }
 
 }
@@ -0,0 +1,156 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.core.text.csv;
+
+import org.aoju.bus.core.beans.BeanDesc;
+import org.aoju.bus.core.convert.Convert;
+import org.aoju.bus.core.lang.SimpleCache;
+import org.aoju.bus.core.toolkit.BeanKit;
+import org.aoju.bus.core.toolkit.ReflectKit;
+import org.aoju.bus.core.toolkit.StringKit;
+import org.aoju.bus.core.toolkit.TypeKit;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CSV行转Bean的映射计划
+ * <p>
+ * 按(Bean类型, 标题)生成一次并缓存, 预先确定每个属性对应的列号及注入类型,
+ * 属性名不在标题中时尝试下划线形式, 与{@link CsvRow#toBean(Class)}的匹配规则一致
+ *
+ * @param <T> Bean类型
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+final class CsvBeanPlan<T> {
+
+    /**
+     * 每个Bean类型最多缓存的映射计划数(不同标题各占一个)
+     */
+    private static final int MAXIMUM_SIZE = 16;
+
+    /**
+     * 按Bean类型存放在{@link ClassValue}中, 相当于以类为弱引用键, 映射计划不会阻止类加载器卸载
+     */
+    private static final ClassValue<SimpleCache<Map<String, Integer>, CsvBeanPlan<?>>> PLANS = new ClassValue<SimpleCache<Map<String, Integer>, CsvBeanPlan<?>>>() {
+        @Override
+        protected SimpleCache<Map<String, Integer>, CsvBeanPlan<?>> computeValue(Class<?> beanClass) {
+            return new SimpleCache<>(SimpleCache.KeyType.STRONG, MAXIMUM_SIZE);
+        }
+    };
+
+    private final Class<T> beanClass;
+    /**
+     * 参与映射的列
+     */
+    private final Column[] columns;
+
+    private CsvBeanPlan(Class<T> beanClass, Column[] columns) {
+        this.beanClass = beanClass;
+        this.columns = columns;
+    }
+
+    /**
+     * 获取映射计划
+     *
+     * @param <T>       Bean类型
+     * @param beanClass Bean类型
+     * @param headerMap 标题Map
+     * @return 映射计划
+     * @throws IllegalStateException CSV文件无标题行抛出此异常
+     */
+    static <T> CsvBeanPlan<T> of(Class<T> beanClass, Map<String, Integer> headerMap) {
+        if (null == headerMap) {
+            throw new IllegalStateException("No header available");
+        }
+        return (CsvBeanPlan<T>) PLANS.get(beanClass).get(headerMap, () -> build(beanClass, headerMap));
+    }
+
+    private static <T> CsvBeanPlan<T> build(Class<T> beanClass, Map<String, Integer> headerMap) {
+        final List<Column> columns = new ArrayList<>();
+        for (BeanDesc.PropDesc prop : BeanKit.getBeanDesc(beanClass).getProps()) {
+            final Method setter = prop.getSetter();
+            if (null == setter && false == BeanKit.isPublic(prop.getField())) {
+                continue;
+            }
+            final String fieldName = prop.getFieldName();
+            Integer index = headerMap.get(fieldName);
+            if (null == index) {
+                // 检查下划线模式
+                index = headerMap.get(StringKit.toUnderlineCase(fieldName));
+            }
+            if (null != index) {
+                final Type valueType = null == setter ? TypeKit.getType(prop.getField()) : TypeKit.getFirstParamType(setter);
+                columns.add(new Column(index, prop, valueType));
+            }
+        }
+        return new CsvBeanPlan<>(beanClass, columns.toArray(new Column[0]));
+    }
+
+    /**
+     * 行数据转换为Bean对象,转换或注入失败的属性忽略
+     *
+     * @param line 行视图
+     * @return Bean
+     */
+    T toBean(CsvLine line) {
+        final T bean = ReflectKit.newInstance(beanClass);
+        for (Column column : columns) {
+            if (column.index >= line.size) {
+                continue;
+            }
+            final String value = line.getString(column.index);
+            try {
+                column.prop.setValue(bean, String.class == column.valueType ? value
+                        : Convert.convertWithCheck(column.valueType, value, null, true));
+            } catch (Exception e) {
+                // 忽略注入失败
+            }
+        }
+        return bean;
+    }
+
+    /**
+     * 列与属性的对应关系
+     */
+    private static final class Column {
+
+        final int index;
+        final BeanDesc.PropDesc prop;
+        final Type valueType;
+
+        Column(int index, BeanDesc.PropDesc prop, Type valueType) {
+            this.index = index;
+            this.prop = prop;
+            this.valueType = valueType;
+        }
+    }
+
+}
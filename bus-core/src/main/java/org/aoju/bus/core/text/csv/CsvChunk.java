@@ -0,0 +1,176 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.core.text.csv;
+
+import org.aoju.bus.core.lang.Charset;
+import org.aoju.bus.core.lang.Symbol;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 内存映射的CSV文件分块,用于并行解析
+ * <p>
+ * 分块时顺序扫描一遍字节, 跟踪引号状态, 只在引号外的换行处切分, 保证每块都从一条完整记录开始;
+ * 同时统计换行数, 使每块解析出的行号与顺序读取一致
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+final class CsvChunk {
+
+    /**
+     * 最小分块大小
+     */
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+    /**
+     * 最大分块大小,单块解码后整体驻留内存
+     */
+    private static final long MAX_CHUNK_SIZE = 32L << 20;
+    /**
+     * 扫描时每次映射的大小
+     */
+    private static final long WINDOW_SIZE = 64L << 20;
+
+    /**
+     * 起始位置
+     */
+    final long start;
+    /**
+     * 结束位置(不包含)
+     */
+    final long end;
+    /**
+     * 首行行号
+     */
+    final long lineNo;
+
+    private CsvChunk(long start, long end, long lineNo) {
+        this.start = start;
+        this.end = end;
+        this.lineNo = lineNo;
+    }
+
+    /**
+     * 是否可以按字节切分,要求编码兼容ASCII且分隔符、包装符为单字节
+     *
+     * @param charset 编码
+     * @param config  配置
+     * @return 是否可以切分
+     */
+    static boolean isSplittable(java.nio.charset.Charset charset, CsvConfig config) {
+        return (Charset.UTF_8.equals(charset) || Charset.US_ASCII.equals(charset) || Charset.ISO_8859_1.equals(charset))
+                && config.fieldSeparator < 0x80 && config.textDelimiter < 0x80;
+    }
+
+    /**
+     * 将文件切分为若干块
+     *
+     * @param channel     文件通道
+     * @param config      配置
+     * @param parallelism 并行度
+     * @return 分块列表, 空文件返回空列表
+     * @throws IOException IO异常
+     */
+    static List<CsvChunk> split(FileChannel channel, CsvConfig config, int parallelism) throws IOException {
+        final long size = channel.size();
+        final long chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, size / (parallelism * 4L)));
+        final byte delimiter = (byte) config.textDelimiter;
+
+        final List<CsvChunk> chunks = new ArrayList<>();
+        long chunkStart = 0;
+        long chunkLineNo = 1;
+        long lineNo = 1;
+        boolean inQuotes = false;
+        // 在CR处切分时,需看下一个字节是否为LF
+        boolean pending = false;
+        byte preByte = 0;
+        for (long windowStart = 0; windowStart < size; windowStart += WINDOW_SIZE) {
+            final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW_SIZE, size - windowStart));
+            for (int i = 0, n = window.limit(); i < n; i++) {
+                final byte b = window.get(i);
+                final long position = windowStart + i;
+                if (pending) {
+                    pending = false;
+                    final long end = b == Symbol.C_LF ? position + 1 : position;
+                    chunks.add(new CsvChunk(chunkStart, end, chunkLineNo));
+                    chunkStart = end;
+                    chunkLineNo = lineNo;
+                    if (b == Symbol.C_LF) {
+                        preByte = b;
+                        continue;
+                    }
+                }
+
+                if (b == delimiter) {
+                    inQuotes = false == inQuotes;
+                } else if (b == Symbol.C_CR || (b == Symbol.C_LF && preByte != Symbol.C_CR)) {
+                    lineNo++;
+                    if (false == inQuotes && position + 1 - chunkStart >= chunkSize) {
+                        if (b == Symbol.C_CR) {
+                            pending = true;
+                        } else {
+                            chunks.add(new CsvChunk(chunkStart, position + 1, chunkLineNo));
+                            chunkStart = position + 1;
+                            chunkLineNo = lineNo;
+                        }
+                    }
+                }
+                preByte = b;
+            }
+        }
+        if (chunkStart < size) {
+            chunks.add(new CsvChunk(chunkStart, size, chunkLineNo));
+        }
+        return chunks;
+    }
+
+    /**
+     * 映射并解码本块
+     *
+     * @param channel 文件通道
+     * @param charset 编码
+     * @return 解码后的字符
+     * @throws IOException IO异常
+     */
+    CharBuffer decode(FileChannel channel, java.nio.charset.Charset charset) throws IOException {
+        final long length = end - start;
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Record starting at " + start + " is too large to be parsed in parallel");
+        }
+        final MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .decode(bytes);
+    }
+
+}
@@ -0,0 +1,281 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.core.text.csv;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CSV行视图,字段以{@link CharSequence}的形式直接引用读取缓冲区,不为每个字段创建字符串
+ * 视图只在{@link CsvLineHandler#handle(CsvLine)}回调内有效,读取下一行后内容会被覆盖,
+ * 需要保留的字段请调用{@link #getString(int)}或{@link #toList()}
+ * 被引号包围的字段在访问时去除引号并将连续的两个引号还原为一个(RFC 4180),
+ * 与{@link CsvParser}只去除包围的引号不同
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+public final class CsvLine {
+
+    private static final int DEFAULT_FIELD_CAPACITY = 16;
+
+    /**
+     * 文本包装符
+     */
+    private final char textDelimiter;
+    /**
+     * 读取缓冲区
+     */
+    char[] buf;
+    /**
+     * 标题Map
+     */
+    Map<String, Integer> headerMap;
+    /**
+     * 原始行号
+     */
+    long lineNumber;
+    /**
+     * 字段数
+     */
+    int size;
+    /**
+     * 各字段在缓冲区中的起始位置
+     */
+    private int[] starts = new int[DEFAULT_FIELD_CAPACITY];
+    /**
+     * 各字段在缓冲区中的结束位置(不包含)
+     */
+    private int[] ends = new int[DEFAULT_FIELD_CAPACITY];
+    /**
+     * 各字段的视图,按位置复用
+     */
+    private Field[] fields = new Field[DEFAULT_FIELD_CAPACITY];
+
+    CsvLine(char textDelimiter) {
+        this.textDelimiter = textDelimiter;
+    }
+
+    /**
+     * 获取原始行号,多行情况下为首行行号
+     *
+     * @return 行号
+     */
+    public long getOriginalLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * 获取字段数
+     *
+     * @return 字段数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取字段视图,包装符已去除,包装内的双写包装符还原为一个
+     *
+     * @param index 字段位置
+     * @return 字段视图
+     */
+    public CharSequence get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        Field field = fields[index];
+        if (null == field) {
+            field = fields[index] = new Field();
+        }
+        field.reset(buf, starts[index], ends[index], textDelimiter);
+        return field;
+    }
+
+    /**
+     * 获取字段值
+     *
+     * @param index 字段位置
+     * @return 字段值
+     */
+    public String getString(int index) {
+        return get(index).toString();
+    }
+
+    /**
+     * 获取标题对应的字段视图
+     *
+     * @param name 标题名
+     * @return 字段视图, null表示无此字段值
+     * @throws IllegalStateException CSV文件无标题行抛出此异常
+     */
+    public CharSequence getByName(String name) {
+        if (null == headerMap) {
+            throw new IllegalStateException("No header available");
+        }
+        final Integer col = headerMap.get(name);
+        if (null != col && col < size) {
+            return get(col);
+        }
+        return null;
+    }
+
+    /**
+     * 复制本行所有字段值
+     *
+     * @return 字段值列表
+     */
+    public List<String> toList() {
+        final List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(getString(i));
+        }
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+
+    /**
+     * 是否为空行
+     *
+     * @return 是否为空行
+     */
+    boolean isEmptyRow() {
+        return size == 1 && get(0).length() == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void add(int start, int end) {
+        if (size == starts.length) {
+            final int capacity = size << 1;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            fields = Arrays.copyOf(fields, capacity);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    /**
+     * 缓冲区整理后平移已记录的字段位置
+     *
+     * @param shift 平移量
+     */
+    void shift(int shift) {
+        for (int i = 0; i < size; i++) {
+            starts[i] -= shift;
+            ends[i] -= shift;
+        }
+    }
+
+    /**
+     * 字段视图
+     */
+    private static final class Field implements CharSequence {
+
+        private char[] value;
+        private int offset;
+        private int count;
+        /**
+         * 包含双写包装符时还原使用的缓冲
+         */
+        private char[] unescaped;
+
+        void reset(char[] buf, int start, int end, char textDelimiter) {
+            if (end - start >= 2 && buf[start] == textDelimiter && buf[end - 1] == textDelimiter) {
+                // 去除包装符
+                start++;
+                end--;
+                for (int i = start; i < end; i++) {
+                    if (buf[i] == textDelimiter) {
+                        unescape(buf, i, start, end, textDelimiter);
+                        return;
+                    }
+                }
+            }
+            this.value = buf;
+            this.offset = start;
+            this.count = end - start;
+        }
+
+        /**
+         * 将双写的包装符还原为一个
+         */
+        private void unescape(char[] buf, int from, int start, int end, char textDelimiter) {
+            if (null == unescaped || unescaped.length < end - start) {
+                unescaped = new char[end - start];
+            }
+            int n = from - start;
+            System.arraycopy(buf, start, unescaped, 0, n);
+            for (int i = from; i < end; i++) {
+                final char c = buf[i];
+                unescaped[n++] = c;
+                if (c == textDelimiter && i + 1 < end && buf[i + 1] == textDelimiter) {
+                    i++;
+                }
+            }
+            this.value = unescaped;
+            this.offset = 0;
+            this.count = n;
+        }
+
+        @Override
+        public int length() {
+            return count;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= count) {
+                throw new StringIndexOutOfBoundsException(index);
+            }
+            return value[offset + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > count || start > end) {
+                throw new StringIndexOutOfBoundsException("begin " + start + ", end " + end + ", length " + count);
+            }
+            return new String(value, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(value, offset, count);
+        }
+    }
+
+}
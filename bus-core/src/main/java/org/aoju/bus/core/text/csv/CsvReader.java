@@ -35,11 +35,19 @@ import org.aoju.bus.core.toolkit.StringKit;
 import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * CSV文件读取器,参考：FastCSV
@@ -242,6 +250,25 @@ public final class CsvReader {
         return result;
     }
 
+    /**
+     * 从Reader中流式读取CSV数据并逐行转换为Bean，读取后关闭Reader
+     * 此方法默认识别首行为标题行，不在内存中保留已读取的行
+     * 字段按{@link CsvLine}的规则解析：去除包围字段的引号并将其中连续的两个引号还原为一个，
+     * 文件末尾的字段同样处理；{@link #read(Reader, Class)}只去除包围的引号且不处理末尾字段，
+     * 含转义引号或以引号字段结尾的文件两者结果可能不同
+     *
+     * @param <T>      Bean类型
+     * @param reader   Reader
+     * @param clazz    Bean类型
+     * @param consumer Bean处理器
+     */
+    public <T> void read(Reader reader, Class<T> clazz, Consumer<T> consumer) {
+        // 此方法必须包含标题
+        this.config.setContainsHeader(true);
+
+        read(reader, clazz, 1, consumer);
+    }
+
     /**
      * 构建 {@link CsvParser}
      *
@@ -279,4 +306,183 @@ public final class CsvReader {
         return result;
     }
 
+    /**
+     * 从Reader中逐行读取CSV数据，读取后关闭Reader
+     * 字段以视图形式提供，不为每行创建字段列表，适用于大文件
+     *
+     * @param reader  Reader
+     * @param handler 行视图处理器
+     */
+    public void scan(Reader reader, CsvLineHandler handler) {
+        final CsvTokenizer tokenizer = new CsvTokenizer(reader, config);
+        try {
+            drain(tokenizer, handler);
+        } finally {
+            IoKit.close(reader);
+        }
+    }
+
+    /**
+     * 逐行读取CSV文件
+     * 字段以视图形式提供，不为每行创建字段列表，适用于大文件
+     *
+     * @param path    CSV文件
+     * @param charset 文件编码
+     * @param handler 行视图处理器
+     * @throws InstrumentException IO异常
+     */
+    public void scan(Path path, java.nio.charset.Charset charset, CsvLineHandler handler) throws InstrumentException {
+        Assert.notNull(path, "path must not be null");
+        scan(FileKit.getReader(path, charset), handler);
+    }
+
+    /**
+     * 并行读取CSV文件
+     * 文件通过内存映射按记录边界切分为多块，在{@link ForkJoinPool#commonPool()}中并行解析，
+     * 处理器会被多个线程同时调用，须保证线程安全，调用顺序与行顺序无关
+     * 编码不兼容ASCII时退化为顺序读取
+     *
+     * @param path    CSV文件
+     * @param charset 文件编码
+     * @param handler 行视图处理器
+     * @throws InstrumentException IO异常
+     */
+    public void scanParallel(Path path, java.nio.charset.Charset charset, CsvLineHandler handler) throws InstrumentException {
+        if (false == CsvChunk.isSplittable(charset, config)) {
+            scan(path, charset, handler);
+            return;
+        }
+        parallel(path, charset, tokenizer -> {
+            drain(tokenizer, handler);
+            return null;
+        });
+    }
+
+    /**
+     * 并行读取CSV文件并转换为Bean列表，列表顺序与文件中行的顺序一致
+     * 此方法默认识别首行为标题行，字段解析规则同{@link #read(Reader, Class, Consumer)}
+     *
+     * @param <T>     Bean类型
+     * @param path    CSV文件
+     * @param charset 文件编码
+     * @param clazz   Bean类型
+     * @return Bean列表
+     * @throws InstrumentException IO异常
+     */
+    public <T> List<T> readParallel(Path path, java.nio.charset.Charset charset, Class<T> clazz) throws InstrumentException {
+        // 此方法必须包含标题
+        this.config.setContainsHeader(true);
+
+        if (false == CsvChunk.isSplittable(charset, config)) {
+            final List<T> result = new ArrayList<>();
+            read(FileKit.getReader(path, charset), clazz, result::add);
+            return result;
+        }
+        final List<List<T>> parts = parallel(path, charset, tokenizer -> {
+            final List<T> part = new ArrayList<>();
+            final CsvBeanPlan<T> plan = CsvBeanPlan.of(clazz, tokenizer.getHeaderMap());
+            CsvLine line;
+            while (null != (line = tokenizer.nextLine())) {
+                part.add(plan.toBean(line));
+            }
+            return part;
+        });
+
+        final List<T> result = new ArrayList<>(parts.stream().mapToInt(List::size).sum());
+        parts.forEach(result::addAll);
+        return result;
+    }
+
+    /**
+     * 从Reader中流式读取起始行号之后的CSV数据并逐行转换为Bean，读取后关闭Reader
+     *
+     * @param <T>            Bean类型
+     * @param reader         Reader
+     * @param clazz          Bean类型
+     * @param startLineIndex 起始行号
+     * @param consumer       Bean处理器
+     */
+    private <T> void read(Reader reader, Class<T> clazz, int startLineIndex, Consumer<T> consumer) {
+        final CsvTokenizer tokenizer = new CsvTokenizer(reader, config);
+        try {
+            CsvBeanPlan<T> plan = null;
+            CsvLine line;
+            while (null != (line = tokenizer.nextLine())) {
+                if (line.getOriginalLineNumber() >= startLineIndex) {
+                    if (null == plan) {
+                        plan = CsvBeanPlan.of(clazz, tokenizer.getHeaderMap());
+                    }
+                    consumer.accept(plan.toBean(line));
+                }
+            }
+        } finally {
+            IoKit.close(reader);
+        }
+    }
+
+    /**
+     * 将所有行交给处理器
+     *
+     * @param tokenizer 扫描器
+     * @param handler   行视图处理器
+     */
+    private static void drain(CsvTokenizer tokenizer, CsvLineHandler handler) {
+        CsvLine line;
+        while (null != (line = tokenizer.nextLine())) {
+            handler.handle(line);
+        }
+    }
+
+    /**
+     * 切分文件并在每块上并行解析
+     * 首块先在当前线程读出标题与第一行，其余块沿用首块的标题与字段数
+     *
+     * @param <R>     每块的结果类型
+     * @param path    CSV文件
+     * @param charset 文件编码
+     * @param worker  每块的解析逻辑
+     * @return 按块顺序排列的结果
+     * @throws InstrumentException IO异常
+     */
+    private <R> List<R> parallel(Path path, java.nio.charset.Charset charset, Function<CsvTokenizer, R> worker) throws InstrumentException {
+        Assert.notNull(path, "path must not be null");
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final List<CsvChunk> chunks = CsvChunk.split(channel, config, ForkJoinPool.getCommonPoolParallelism());
+            if (chunks.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            final CsvTokenizer first = tokenizer(channel, charset, chunks.get(0));
+            if (null != first.nextLine()) {
+                first.pushBack();
+            }
+            return IntStream.range(0, chunks.size()).parallel().mapToObj(i -> {
+                if (i == 0) {
+                    return worker.apply(first);
+                }
+                try {
+                    return worker.apply(tokenizer(channel, charset, chunks.get(i)).inherit(first));
+                } catch (IOException e) {
+                    throw new InstrumentException(e);
+                }
+            }).collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new InstrumentException(e);
+        }
+    }
+
+    /**
+     * 构建分块的扫描器
+     *
+     * @param channel 文件通道
+     * @param charset 文件编码
+     * @param chunk   分块
+     * @return 扫描器
+     * @throws IOException IO异常
+     */
+    private CsvTokenizer tokenizer(FileChannel channel, java.nio.charset.Charset charset, CsvChunk chunk) throws IOException {
+        final CharBuffer chars = chunk.decode(channel, charset);
+        return new CsvTokenizer(chars.array(), chars.limit(), config, chunk.lineNo);
+    }
+
 }
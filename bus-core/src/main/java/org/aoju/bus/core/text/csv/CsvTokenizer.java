@@ -0,0 +1,348 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.core.text.csv;
+
+import org.aoju.bus.core.lang.Symbol;
+import org.aoju.bus.core.lang.exception.InstrumentException;
+import org.aoju.bus.core.toolkit.IoKit;
+import org.aoju.bus.core.toolkit.StringKit;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+
+/**
+ * CSV记录扫描器,只记录字段在缓冲区中的位置,不拷贝字段内容
+ * 既可以从{@link Reader}流式读取,也可以扫描已解码的字符块(并行解析时每块一个扫描器)
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+final class CsvTokenizer {
+
+    private final Reader reader;
+    private final CsvReadConfig config;
+    private final char fieldSeparator;
+    private final char textDelimiter;
+    /**
+     * 当前行视图
+     */
+    private final CsvLine line;
+
+    private char[] buf;
+    /**
+     * 当前位置
+     */
+    private int pos;
+    /**
+     * 缓冲区有效数据长度
+     */
+    private int limit;
+    /**
+     * 当前记录起始位置
+     */
+    private int recordStart;
+    /**
+     * 当前字段起始位置
+     */
+    private int fieldStart;
+    /**
+     * 上一条记录以CR结束,需跳过紧随的LF
+     */
+    private boolean skipLF;
+    /**
+     * 是否读取结束
+     */
+    private boolean finished;
+    /**
+     * 当前行号
+     */
+    private long lineNo;
+    /**
+     * 标题行
+     */
+    private List<String> header;
+    /**
+     * 标题是否已确定
+     */
+    private boolean headerResolved;
+    /**
+     * 第一行字段数,用于检查每行字段数是否一致
+     */
+    private int firstLineFieldCount = -1;
+    /**
+     * 当前行是否被退回,下次读取时直接返回
+     */
+    private boolean pushedBack;
+
+    /**
+     * 从Reader流式读取
+     *
+     * @param reader Reader
+     * @param config 配置
+     */
+    CsvTokenizer(Reader reader, CsvReadConfig config) {
+        this(reader, new char[IoKit.DEFAULT_LARGE_BUFFER_SIZE], 0, config, 1);
+    }
+
+    /**
+     * 扫描已解码的字符块
+     *
+     * @param chars  字符块
+     * @param length 有效长度
+     * @param config 配置
+     * @param lineNo 字符块首行的行号
+     */
+    CsvTokenizer(char[] chars, int length, CsvReadConfig config, long lineNo) {
+        this(null, chars, length, config, lineNo);
+    }
+
+    private CsvTokenizer(Reader reader, char[] buf, int limit, CsvReadConfig config, long lineNo) {
+        this.reader = reader;
+        this.buf = buf;
+        this.limit = limit;
+        this.config = config;
+        this.fieldSeparator = config.fieldSeparator;
+        this.textDelimiter = config.textDelimiter;
+        this.line = new CsvLine(config.textDelimiter);
+        this.lineNo = lineNo;
+        this.headerResolved = false == config.containsHeader;
+    }
+
+    /**
+     * 沿用其它扫描器解析出的标题与字段数,用于并行解析时的非首块
+     *
+     * @param first 首块的扫描器
+     * @return this
+     */
+    CsvTokenizer inherit(CsvTokenizer first) {
+        this.header = first.header;
+        this.line.headerMap = first.line.headerMap;
+        this.headerResolved = true;
+        this.firstLineFieldCount = first.firstLineFieldCount;
+        return this;
+    }
+
+    /**
+     * 获取标题行,无标题时返回null
+     *
+     * @return 标题行
+     */
+    List<String> getHeader() {
+        return header;
+    }
+
+    /**
+     * 获取标题Map,无标题时返回null
+     *
+     * @return 标题Map
+     */
+    Map<String, Integer> getHeaderMap() {
+        return line.headerMap;
+    }
+
+    /**
+     * 退回当前行,下次{@link #nextLine()}时再次返回
+     */
+    void pushBack() {
+        this.pushedBack = true;
+    }
+
+    /**
+     * 读取下一行数据,按配置跳过空行、识别标题行并检查字段数
+     *
+     * @return 行视图, 读取结束返回null
+     * @throws InstrumentException IO异常或字段数不一致
+     */
+    CsvLine nextLine() throws InstrumentException {
+        if (pushedBack) {
+            pushedBack = false;
+            return line;
+        }
+        while (next()) {
+            // 跳过空行
+            if (config.skipEmptyRows && line.isEmptyRow()) {
+                continue;
+            }
+
+            // 检查每行的字段数是否一致
+            final int fieldCount = line.size;
+            if (config.errorOnDifferentFieldCount) {
+                if (firstLineFieldCount == -1) {
+                    firstLineFieldCount = fieldCount;
+                } else if (fieldCount != firstLineFieldCount) {
+                    throw new InstrumentException(String.format("Line %d has %d fields, but first line has %d fields", line.lineNumber, fieldCount, firstLineFieldCount));
+                }
+            }
+
+            // 初始化标题,此行跳过,下一行做为第一行
+            if (false == headerResolved) {
+                initHeader();
+                continue;
+            }
+            return line;
+        }
+        return null;
+    }
+
+    /**
+     * 当前行做为标题行
+     */
+    private void initHeader() {
+        final List<String> fields = line.toList();
+        final Map<String, Integer> headerMap = new LinkedHashMap<>(fields.size());
+        for (int i = 0; i < fields.size(); i++) {
+            final String field = fields.get(i);
+            if (StringKit.isNotEmpty(field) && false == headerMap.containsKey(field)) {
+                headerMap.put(field, i);
+            }
+        }
+        this.header = Collections.unmodifiableList(fields);
+        this.line.headerMap = Collections.unmodifiableMap(headerMap);
+        this.headerResolved = true;
+    }
+
+    /**
+     * 扫描下一条记录,记录各字段位置
+     *
+     * @return 是否读取到记录
+     * @throws InstrumentException IO异常
+     */
+    private boolean next() throws InstrumentException {
+        if (finished) {
+            return false;
+        }
+        final CsvLine line = this.line;
+        line.clear();
+        line.lineNumber = lineNo;
+
+        final char separator = this.fieldSeparator;
+        final char delimiter = this.textDelimiter;
+        char[] localBuf = this.buf;
+        int localPos = this.pos;
+        int localLimit = this.limit;
+        int localFieldStart = localPos;
+        boolean inQuotes = false;
+        int preChar = -1;
+        recordStart = localPos;
+
+        while (true) {
+            if (localPos >= localLimit) {
+                // 此段读取结束,保留当前记录并读取下一段
+                this.pos = localPos;
+                this.fieldStart = localFieldStart;
+                final boolean more = fill();
+                localBuf = this.buf;
+                localPos = this.pos;
+                localLimit = this.limit;
+                localFieldStart = this.fieldStart;
+                if (false == more) {
+                    finished = true;
+                    if (localPos > recordStart || line.size > 0) {
+                        // 剩余部分作为一个字段
+                        line.add(localFieldStart, localPos);
+                        line.buf = localBuf;
+                        return true;
+                    }
+                    return false;
+                }
+                continue;
+            }
+
+            final char c = localBuf[localPos++];
+            if (skipLF) {
+                skipLF = false;
+                if (c == Symbol.C_LF) {
+                    recordStart = localFieldStart = localPos;
+                    continue;
+                }
+            }
+
+            if (inQuotes) {
+                // 引号内,做为内容,直到引号结束
+                if (c == delimiter) {
+                    inQuotes = false;
+                } else if (c == Symbol.C_CR || (c == Symbol.C_LF && preChar != Symbol.C_CR)) {
+                    lineNo++;
+                }
+            } else if (c == separator) {
+                // 一个字段结束
+                line.add(localFieldStart, localPos - 1);
+                localFieldStart = localPos;
+            } else if (c == delimiter) {
+                // 引号开始
+                inQuotes = true;
+            } else if (c == Symbol.C_CR || c == Symbol.C_LF) {
+                // 一行结束
+                line.add(localFieldStart, localPos - 1);
+                lineNo++;
+                skipLF = c == Symbol.C_CR;
+                this.pos = localPos;
+                line.buf = localBuf;
+                return true;
+            }
+            preChar = c;
+        }
+    }
+
+    /**
+     * 读取下一段数据,先将当前记录移动到缓冲区头部,记录超出缓冲区时扩容
+     *
+     * @return 是否读取到数据
+     * @throws InstrumentException IO异常
+     */
+    private boolean fill() throws InstrumentException {
+        if (null == reader) {
+            return false;
+        }
+        final int shift = recordStart;
+        if (shift > 0) {
+            System.arraycopy(buf, shift, buf, 0, limit - shift);
+            limit -= shift;
+            pos -= shift;
+            fieldStart -= shift;
+            recordStart = 0;
+            line.shift(shift);
+        } else if (limit == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length << 1);
+        }
+
+        try {
+            int n;
+            do {
+                n = reader.read(buf, limit, buf.length - limit);
+            } while (n == 0);
+            if (n < 0) {
+                return false;
+            }
+            limit += n;
+            return true;
+        } catch (IOException e) {
+            throw new InstrumentException(e);
+        }
+    }
+
+}
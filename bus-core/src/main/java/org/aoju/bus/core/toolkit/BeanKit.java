@@ -310,12 +310,7 @@ public class BeanKit {
      * @return {@link BeanDesc}
      */
     public static BeanDesc getBeanDesc(Class<?> clazz) {
-        BeanDesc beanDesc = BeanDescCache.INSTANCE.getBeanDesc(clazz);
-        if (null == beanDesc) {
-            beanDesc = new BeanDesc(clazz);
-            BeanDescCache.INSTANCE.putBeanDesc(clazz, beanDesc);
-        }
-        return beanDesc;
+        return BeanDescCache.INSTANCE.getBeanDesc(clazz, () -> new BeanDesc(clazz));
     }
 
     /**
@@ -32,10 +32,16 @@ import org.aoju.bus.core.lang.exception.InstrumentException;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 拼音工具类
  * 注意：部分拼音并不准确,例如：怡
+ * <p>
+ * 字典在类加载时编译为按字符索引的数组与多音词组的紧凑Trie,
+ * 转换时一次遍历完成简繁转换、词组最长匹配及单字查表,不再逐字创建字符串;
+ * 因此加载后再修改{@link #DICT_CHINESE}等字典不会影响转换结果
  *
  * @author Kimi Liu
  * @version 6.0.8
@@ -54,6 +60,57 @@ public class PinyinKit {
     public static final Properties DICT_PINYIN = getDict("pinyin");
     public static final Properties DICT_POLYPHONE = getDict("polyphone");
 
+    /**
+     * 批量转换时启用并行的最小数量
+     */
+    private static final int PARALLEL_THRESHOLD = 1024;
+    /**
+     * 多音词组的最小、最大长度
+     */
+    private static final int MIN_PHRASE_LENGTH = 2;
+    private static final int MAX_PHRASE_LENGTH = 4;
+    /**
+     * 按字符索引的简体字, 0表示非繁体字
+     */
+    private static final char[] SIMPLIFIED = new char[Character.MAX_VALUE + 1];
+    /**
+     * 按字符索引的繁体字, 0表示无对应繁体字
+     */
+    private static final char[] TRADITIONAL = new char[Character.MAX_VALUE + 1];
+    /**
+     * 按字符索引的带声调拼音, null表示无拼音
+     */
+    private static final String[] PINYIN = new String[Character.MAX_VALUE + 1];
+    /**
+     * 多音词组
+     */
+    private static final Trie POLYPHONE;
+
+    static {
+        DICT_CHINESE.forEach((key, value) -> {
+            final char traditional = key.toString().charAt(0);
+            final char simplified = value.toString().charAt(0);
+            SIMPLIFIED[traditional] = simplified;
+            // 多个繁体字对应同一简体字时取第一个
+            if (0 == TRADITIONAL[simplified]) {
+                TRADITIONAL[simplified] = traditional;
+            }
+        });
+        DICT_PINYIN.forEach((key, value) -> {
+            if (false == Normal.NULL.equals(value)) {
+                PINYIN[key.toString().charAt(0)] = value.toString();
+            }
+        });
+        final Map<String, String> phrases = new TreeMap<>();
+        DICT_POLYPHONE.forEach((key, value) -> {
+            final String phrase = key.toString();
+            if (phrase.length() >= MIN_PHRASE_LENGTH && phrase.length() <= MAX_PHRASE_LENGTH) {
+                phrases.put(phrase, value.toString());
+            }
+        });
+        POLYPHONE = new Trie(phrases);
+    }
+
     /**
      * 将单个汉字转换为相应格式的拼音
      *
@@ -65,9 +122,9 @@ public class PinyinKit {
      * @return 汉字的拼音
      */
     public static String[] convert(char c, String format) {
-        String pinyin = DICT_PINYIN.getProperty(String.valueOf(c));
-        if ((pinyin != null) && (!pinyin.equals(Normal.NULL))) {
-            return format(pinyin, format);
+        final String[][] table = table(format);
+        if (null != table && null != table[c]) {
+            return table[c].clone();
         }
         return null;
     }
@@ -94,36 +151,29 @@ public class PinyinKit {
      * @return 字符串的拼音
      */
     public static String convert(String str, String separator, String format) {
-        str = convertSimplified(str);
-        StringBuilder sb = new StringBuilder();
+        final String[][] table = table(format);
+        final StringBuilder sb = new StringBuilder(str.length() << 2);
         for (int i = 0, len = str.length(); i < len; i++) {
-            char c = str.charAt(i);
+            final char c = convertSimplified(str.charAt(i));
 
             if (isChinese(c) || c == '〇') {
-                boolean isFoundFlag = false;
-                int rightMove = 3;
-
-                for (int rightIndex = (i + rightMove) < len ? (i + rightMove) : (len - 1); rightIndex > i; rightIndex--) {
-                    String cizu = str.substring(i, rightIndex + 1);
-                    if (DICT_POLYPHONE.containsKey(cizu)) {
-                        String[] pinyinArray = format(DICT_POLYPHONE.getProperty(cizu), format);
-                        for (int j = 0, l = pinyinArray.length; j < l; j++) {
-                            sb.append(pinyinArray[j]);
-                            if (j < l - 1) {
-                                sb.append(separator);
-                            }
+                // 多音词组最长匹配
+                final int matched = POLYPHONE.match(str, i, Math.min(i + MAX_PHRASE_LENGTH, len));
+                final String[] phraseArray = matched < 0 ? null : format(POLYPHONE.value(matched), format);
+                if (null != phraseArray) {
+                    for (int j = 0, l = phraseArray.length; j < l; j++) {
+                        sb.append(phraseArray[j]);
+                        if (j < l - 1) {
+                            sb.append(separator);
                         }
-                        i = rightIndex;
-                        isFoundFlag = true;
-                        break;
                     }
-                }
-                if (!isFoundFlag) {
-                    String[] pinyinArray = convert(str.charAt(i), format);
-                    if (pinyinArray != null) {
+                    i += POLYPHONE.depth(matched) - 1;
+                } else {
+                    final String[] pinyinArray = null == table ? null : table[c];
+                    if (null != pinyinArray) {
                         sb.append(pinyinArray[0]);
                     } else {
-                        sb.append(str.charAt(i));
+                        sb.append(c);
                     }
                 }
                 if (i < len - 1) {
@@ -131,7 +181,7 @@ public class PinyinKit {
                 }
             } else {
                 sb.append(c);
-                if ((i + 1) < len && isChinese(str.charAt(i + 1))) {
+                if ((i + 1) < len && isChinese(convertSimplified(str.charAt(i + 1)))) {
                     sb.append(separator);
                 }
             }
@@ -139,6 +189,31 @@ public class PinyinKit {
         return sb.toString();
     }
 
+    /**
+     * 批量将字符串转换成相应格式的拼音,数据量较大时并行转换,结果顺序与输入一致
+     *
+     * @param list      需要转换的字符串列表
+     * @param separator 拼音分隔符
+     * @param format    拼音格式
+     *                  WITH_TONE_NUMBER 数字声调
+     *                  WITH_OUT_TONE 不带声调
+     *                  WITH_TONE_MARK 带声调
+     * @return 拼音列表, 原字符串为null时对应结果为null
+     */
+    public static List<String> convertAll(List<String> list, String separator, String format) {
+        return convertAll(list, str -> convert(str, separator, format));
+    }
+
+    /**
+     * 批量获取字符串对应拼音的首字母,数据量较大时并行转换,结果顺序与输入一致
+     *
+     * @param list 需要转换的字符串列表
+     * @return 首字母列表, 原字符串为null时对应结果为null
+     */
+    public static List<String> convertAll(List<String> list) {
+        return convertAll(list, PinyinKit::convert);
+    }
+
     /**
      * 将字符串转换成带声调格式的拼音
      *
@@ -210,10 +285,8 @@ public class PinyinKit {
      * @return 转换后的简体字
      */
     public static char convertSimplified(char c) {
-        if (isTraditional(c)) {
-            return DICT_CHINESE.getProperty(String.valueOf(c)).charAt(0);
-        }
-        return c;
+        final char simplified = SIMPLIFIED[c];
+        return 0 == simplified ? c : simplified;
     }
 
     /**
@@ -238,17 +311,8 @@ public class PinyinKit {
      * @return 转换后的繁字体
      */
     public static char convertTraditional(char c) {
-        String hanzi = String.valueOf(c);
-        if (DICT_CHINESE.containsValue(hanzi)) {
-            Iterator<Map.Entry<Object, Object>> itr = DICT_CHINESE.entrySet().iterator();
-            while (itr.hasNext()) {
-                Map.Entry<Object, Object> e = itr.next();
-                if (e.getValue().toString().equals(hanzi)) {
-                    return e.getKey().toString().charAt(0);
-                }
-            }
-        }
-        return c;
+        final char traditional = TRADITIONAL[c];
+        return 0 == traditional ? c : traditional;
     }
 
     /**
@@ -261,7 +325,7 @@ public class PinyinKit {
         String[] pinyinArray = array.split(Symbol.COMMA);
         for (int i = pinyinArray.length - 1; i >= 0; i--) {
             boolean hasMarkedChar = false;
-            String originalPinyin = pinyinArray[i].replaceAll("ü", "v");
+            String originalPinyin = pinyinArray[i].replace('ü', 'v');
 
             for (int j = originalPinyin.length() - 1; j >= 0; j--) {
                 char originalChar = originalPinyin.charAt(j);
@@ -270,7 +334,7 @@ public class PinyinKit {
                     int indexInAllMarked = ALL_MARKED_VOWEL.indexOf(originalChar);
                     int toneNumber = indexInAllMarked % 4 + 1;
                     char replaceChar = ALL_UNMARKED_VOWEL.charAt(((indexInAllMarked - indexInAllMarked % 4)) / 4);
-                    pinyinArray[i] = originalPinyin.replaceAll(String.valueOf(originalChar), String.valueOf(replaceChar)) + toneNumber;
+                    pinyinArray[i] = originalPinyin.replace(originalChar, replaceChar) + toneNumber;
                     hasMarkedChar = true;
                     break;
                 }
@@ -290,13 +354,16 @@ public class PinyinKit {
      * @return 不带声调的拼音
      */
     private static String[] convertWithoutTone(String array) {
-        String[] pinyinArray;
-        for (int i = ALL_MARKED_VOWEL.length() - 1; i >= 0; i--) {
-            char originalChar = ALL_MARKED_VOWEL.charAt(i);
-            char replaceChar = ALL_UNMARKED_VOWEL.charAt(((i - i % 4)) / 4);
-            array = array.replaceAll(String.valueOf(originalChar), String.valueOf(replaceChar));
+        final char[] chars = array.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            final int indexInAllMarked = ALL_MARKED_VOWEL.indexOf(chars[i]);
+            if (indexInAllMarked >= 0) {
+                chars[i] = ALL_UNMARKED_VOWEL.charAt(indexInAllMarked / 4);
+            } else if (chars[i] == 'ü') {
+                chars[i] = 'v';
+            }
         }
-        pinyinArray = array.replaceAll("ü", "v").split(Symbol.COMMA);
+        String[] pinyinArray = new String(chars).split(Symbol.COMMA);
 
         Set<String> pinyinSet = new LinkedHashSet<>();
         for (String pinyin : pinyinArray) {
@@ -331,7 +398,7 @@ public class PinyinKit {
      * @return 是繁体字返回true, 否则返回false
      */
     public static boolean isTraditional(char c) {
-        return DICT_CHINESE.containsKey(String.valueOf(c));
+        return 0 != SIMPLIFIED[c];
     }
 
     /**
@@ -341,8 +408,7 @@ public class PinyinKit {
      * @return 是汉字返回true, 否则返回false
      */
     public static boolean isChinese(String c) {
-        String regex = "[\\u4e00-\\u9fa5]";
-        return String.valueOf(c).matches(regex);
+        return null != c && c.length() == 1 && isChinese(c.charAt(0));
     }
 
     /**
@@ -352,8 +418,7 @@ public class PinyinKit {
      * @return 是汉字返回true, 否则返回false
      */
     public static boolean isChinese(char c) {
-        String regex = "[\\u4e00-\\u9fa5]";
-        return String.valueOf(c).matches(regex);
+        return c >= '\u4e00' && c <= '\u9fa5';
     }
 
     /**
@@ -367,6 +432,55 @@ public class PinyinKit {
         return pinyinArray != null && pinyinArray.length > 1;
     }
 
+    /**
+     * 获取指定格式的单字拼音表
+     *
+     * @param format 拼音格式
+     * @return 按字符索引的拼音表, 格式不支持时返回null
+     */
+    private static String[][] table(String format) {
+        if (WITH_TONE_MARK.equals(format)) {
+            return ToneMarkTable.TABLE;
+        } else if (WITH_TONE_NUMBER.equals(format)) {
+            return ToneNumberTable.TABLE;
+        } else if (WITH_OUT_TONE.equals(format)) {
+            return WithoutToneTable.TABLE;
+        }
+        return null;
+    }
+
+    /**
+     * 将所有单字拼音格式化为指定格式
+     *
+     * @param format 拼音格式
+     * @return 按字符索引的拼音表
+     */
+    private static String[][] compile(String format) {
+        final String[][] table = new String[PINYIN.length][];
+        for (int c = 0; c < PINYIN.length; c++) {
+            if (null != PINYIN[c]) {
+                table[c] = format(PINYIN[c], format);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * 批量转换,超过阈值时使用并行流
+     *
+     * @param list      字符串列表
+     * @param converter 转换方法
+     * @return 转换结果
+     */
+    private static List<String> convertAll(List<String> list, Function<String, String> converter) {
+        if (null == list) {
+            return null;
+        }
+        return (list.size() < PARALLEL_THRESHOLD ? list.stream() : list.parallelStream())
+                .map(str -> null == str ? null : converter.apply(str))
+                .collect(Collectors.toList());
+    }
+
     /**
      * 获取汉字对应的ascii码
      *
@@ -412,4 +526,143 @@ public class PinyinKit {
         return p;
     }
 
+    /**
+     * 带声调的单字拼音表,首次使用时生成
+     */
+    private static class ToneMarkTable {
+        private static final String[][] TABLE = compile(WITH_TONE_MARK);
+    }
+
+    /**
+     * 数字声调的单字拼音表,首次使用时生成
+     */
+    private static class ToneNumberTable {
+        private static final String[][] TABLE = compile(WITH_TONE_NUMBER);
+    }
+
+    /**
+     * 不带声调的单字拼音表,首次使用时生成
+     */
+    private static class WithoutToneTable {
+        private static final String[][] TABLE = compile(WITH_OUT_TONE);
+    }
+
+    /**
+     * 多音词组的紧凑Trie
+     * 节点按层存放在平行数组中,同一节点的子节点连续且按字符排序,查找子节点使用二分查找
+     */
+    private static final class Trie {
+
+        /**
+         * 节点对应的字符
+         */
+        private final char[] labels;
+        /**
+         * 第一个子节点的位置
+         */
+        private final int[] firstChild;
+        /**
+         * 子节点数量
+         */
+        private final int[] childCount;
+        /**
+         * 节点深度,即词组长度
+         */
+        private final int[] depths;
+        /**
+         * 词组的拼音, 非词组结尾的节点为null
+         */
+        private final String[] values;
+
+        Trie(Map<String, String> dict) {
+            final String[] keys = dict.keySet().toArray(new String[0]);
+            final String[] vals = dict.values().toArray(new String[0]);
+            int capacity = 1;
+            for (String key : keys) {
+                capacity += key.length();
+            }
+            this.labels = new char[capacity];
+            this.firstChild = new int[capacity];
+            this.childCount = new int[capacity];
+            this.depths = new int[capacity];
+            this.values = new String[capacity];
+
+            // 按层构建, 有序的keys中相同前缀的词组相邻, 每个节点对应keys中的一段[lo, hi)
+            final Deque<int[]> queue = new ArrayDeque<>();
+            queue.add(new int[]{0, 0, keys.length});
+            int size = 1;
+            while (false == queue.isEmpty()) {
+                final int[] range = queue.poll();
+                final int node = range[0];
+                final int depth = depths[node];
+                int i = range[1];
+                final int hi = range[2];
+                if (i < hi && keys[i].length() == depth) {
+                    values[node] = vals[i++];
+                }
+                firstChild[node] = size;
+                while (i < hi) {
+                    final char c = keys[i].charAt(depth);
+                    int j = i + 1;
+                    while (j < hi && keys[j].charAt(depth) == c) {
+                        j++;
+                    }
+                    labels[size] = c;
+                    depths[size] = depth + 1;
+                    queue.add(new int[]{size, i, j});
+                    size++;
+                    childCount[node]++;
+                    i = j;
+                }
+            }
+        }
+
+        /**
+         * 最长匹配,字符先转换为简体
+         *
+         * @param str  字符串
+         * @param from 开始位置
+         * @param to   结束位置(不包含)
+         * @return 匹配到的最长词组的节点, 未匹配返回-1
+         */
+        int match(String str, int from, int to) {
+            int node = 0;
+            int matched = -1;
+            for (int i = from; i < to; i++) {
+                node = child(node, convertSimplified(str.charAt(i)));
+                if (node < 0) {
+                    break;
+                }
+                if (null != values[node]) {
+                    matched = node;
+                }
+            }
+            return matched;
+        }
+
+        String value(int node) {
+            return values[node];
+        }
+
+        int depth(int node) {
+            return depths[node];
+        }
+
+        private int child(int node, char c) {
+            int low = firstChild[node];
+            int high = low + childCount[node] - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                if (labels[mid] < c) {
+                    low = mid + 1;
+                } else if (labels[mid] > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+    }
+
 }
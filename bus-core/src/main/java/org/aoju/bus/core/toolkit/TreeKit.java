@@ -30,8 +30,7 @@ import org.aoju.bus.core.lang.tree.TreeNode;
 import org.aoju.bus.core.lang.tree.parser.DefaultNodeParser;
 import org.aoju.bus.core.lang.tree.parser.NodeParser;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
 
 /**
@@ -98,58 +97,105 @@ public class TreeKit {
      * @return List
      */
     public static <T, E> List<TreeMap<E>> build(List<T> list, E parentId, TreeEntity treeEntity, NodeParser<T, E> nodeParser) {
-        List<TreeMap<E>> treeMapNodes = CollKit.newArrayList();
-        TreeMap<E> treeMap;
-        for (T obj : list) {
-            treeMap = new TreeMap<>(treeEntity);
-            nodeParser.parse(obj, treeMap);
-            treeMapNodes.add(treeMap);
-        }
-
-        List<TreeMap<E>> finalTreeMapNodes = CollKit.newArrayList();
-        for (TreeMap<E> node : treeMapNodes) {
-            if (parentId.equals(node.getParentId())) {
-                finalTreeMapNodes.add(node);
-                innerBuild(treeMapNodes, node, 0, treeEntity.getDeep());
-            }
-        }
-        // 内存每层已经排过了 这是最外层排序
-        finalTreeMapNodes = finalTreeMapNodes.stream().sorted().collect(Collectors.toList());
-        return finalTreeMapNodes;
+        return build(list, parentId, treeEntity, nodeParser, false);
     }
 
     /**
-     * 递归处理
+     * 树构建
+     * 节点按父id一次性分组, 每组兄弟节点只排序一次, 构建耗时与节点数成线性关系
      *
-     * @param treeMapNodes 数据集合
-     * @param parentNode   当前节点
-     * @param deep         已递归深度
-     * @param maxDeep      最大递归深度 可能为null即不限制
+     * @param <T>        转换的实体 为数据源里的对象类型
+     * @param <E>        ID类型
+     * @param list       源数据集合
+     * @param parentId   最顶层父id值 一般为 0 之类
+     * @param treeEntity 配置
+     * @param nodeParser 转换器, 并行解析时须线程安全
+     * @param parallel   是否并行解析节点, 适用于数据量较大的场景
+     * @return List
      */
-    private static <T> void innerBuild(List<TreeMap<T>> treeMapNodes, TreeMap<T> parentNode, int deep, Integer maxDeep) {
+    public static <T, E> List<TreeMap<E>> build(List<T> list, E parentId, TreeEntity treeEntity,
+                                                NodeParser<T, E> nodeParser, boolean parallel) {
+        final List<TreeMap<E>> treeMapNodes = parse(list, treeEntity, nodeParser, parallel);
 
-        if (CollKit.isEmpty(treeMapNodes)) {
-            return;
+        // 按父id分组, 保持源数据顺序
+        final Map<E, List<TreeMap<E>>> childrenMap = new HashMap<>(Math.max(16, (int) (treeMapNodes.size() / 0.75f) + 1));
+        for (TreeMap<E> node : treeMapNodes) {
+            childrenMap.computeIfAbsent(node.getParentId(), key -> new ArrayList<>()).add(node);
+        }
+
+        final List<TreeMap<E>> roots = childrenMap.get(parentId);
+        if (null == roots) {
+            return CollKit.newArrayList();
         }
-        //maxDeep 可能为空
-        if (maxDeep != null && deep >= maxDeep) {
-            return;
+        // 每组兄弟节点只排序一次, 排序稳定, 相同权重的节点保持源数据顺序
+        for (List<TreeMap<E>> group : childrenMap.values()) {
+            Collections.sort(group);
+        }
+
+        // 未限制深度时以节点数为上限, 避免父子id成环时无限构建
+        final Integer maxDeep = treeEntity.getDeep();
+        final int limit = null == maxDeep ? treeMapNodes.size() : maxDeep;
+        final Deque<TreeMap<E>> stack = new ArrayDeque<>();
+        final Deque<Integer> deeps = new ArrayDeque<>();
+        for (TreeMap<E> root : roots) {
+            stack.push(root);
+            deeps.push(0);
         }
 
-        // 每层排序 TreeNodeMap 实现了Comparable接口
-        treeMapNodes = treeMapNodes.stream().sorted().collect(Collectors.toList());
-        for (TreeMap<T> childNode : treeMapNodes) {
-            if (parentNode.getId().equals(childNode.getParentId())) {
-                List<TreeMap<T>> children = parentNode.getChildren();
-                if (children == null) {
-                    children = CollKit.newArrayList();
-                    parentNode.setChildren(children);
-                }
+        while (!stack.isEmpty()) {
+            final TreeMap<E> parentNode = stack.pop();
+            final int deep = deeps.pop();
+            if (deep >= limit) {
+                continue;
+            }
+
+            final List<TreeMap<E>> group = childrenMap.get(parentNode.getId());
+            if (CollKit.isEmpty(group)) {
+                continue;
+            }
+
+            List<TreeMap<E>> children = parentNode.getChildren();
+            if (null == children) {
+                children = CollKit.newArrayList();
+                parentNode.setChildren(children);
+            }
+            for (TreeMap<E> childNode : group) {
                 children.add(childNode);
                 childNode.setParent(parentNode);
-                innerBuild(treeMapNodes, childNode, deep + 1, maxDeep);
+                stack.push(childNode);
+                deeps.push(deep + 1);
             }
         }
+        return roots;
+    }
+
+    /**
+     * 解析节点, 保持源数据顺序
+     *
+     * @param list       源数据集合
+     * @param treeEntity 配置
+     * @param nodeParser 转换器
+     * @param parallel   是否并行解析
+     * @return 节点集合
+     */
+    private static <T, E> List<TreeMap<E>> parse(List<T> list, TreeEntity treeEntity,
+                                                 NodeParser<T, E> nodeParser, boolean parallel) {
+        if (parallel) {
+            return list.parallelStream().map(obj -> {
+                TreeMap<E> treeMap = new TreeMap<>(treeEntity);
+                nodeParser.parse(obj, treeMap);
+                return treeMap;
+            }).collect(Collectors.toList());
+        }
+
+        final List<TreeMap<E>> treeMapNodes = new ArrayList<>(list.size());
+        TreeMap<E> treeMap;
+        for (T obj : list) {
+            treeMap = new TreeMap<>(treeEntity);
+            nodeParser.parse(obj, treeMap);
+            treeMapNodes.add(treeMap);
+        }
+        return treeMapNodes;
     }
 
     /**
@@ -24,6 +24,9 @@
  ********************************************************************************/
 package org.aoju.bus.core.toolkit;
 
+import org.aoju.bus.core.compress.ParallelUnzipper;
+import org.aoju.bus.core.compress.ParallelZipper;
+import org.aoju.bus.core.io.StreamProgress;
 import org.aoju.bus.core.io.streams.ByteArrayOutputStream;
 import org.aoju.bus.core.lang.Charset;
 import org.aoju.bus.core.lang.Console;
@@ -237,6 +240,41 @@ public class ZipKit {
         }
     }
 
+    /**
+     * 并行压缩文件或目录,使用CPU核数个线程及默认压缩级别
+     *
+     * @param zipFile    生成的Zip文件,包括文件名 注意：zipPath不能是srcPath路径下的子文件夹
+     * @param withSrcDir 是否包含被打包目录,只针对压缩目录有效 若为false,则只压缩目录下的文件或目录,为true则将本目录也压缩
+     * @param srcFiles   要压缩的源文件或目录
+     * @return 压缩文件
+     * @throws InstrumentException IO异常
+     */
+    public static File zipParallel(File zipFile, boolean withSrcDir, File... srcFiles) throws InstrumentException {
+        return zipParallel(zipFile, DEFAULT_CHARSET, withSrcDir, null, Deflater.DEFAULT_COMPRESSION, 0, null, srcFiles);
+    }
+
+    /**
+     * 并行压缩文件或目录
+     * 大文件按块分给多个线程压缩后按顺序拼接,生成标准的Zip文件,超出4GB时使用Zip64格式
+     *
+     * @param zipFile    生成的Zip文件,包括文件名 注意：zipPath不能是srcPath路径下的子文件夹
+     * @param charset    编码
+     * @param withSrcDir 是否包含被打包目录,只针对压缩目录有效 若为false,则只压缩目录下的文件或目录,为true则将本目录也压缩
+     * @param filter     文件过滤器,自定义要过滤的文件,{@code null}表示不过滤
+     * @param level      压缩级别,0~9,-1为默认级别
+     * @param threads    压缩线程数,小于1时使用CPU核数
+     * @param progress   进度条,回调已压缩的源文件大小,可以为{@code null}
+     * @param srcFiles   要压缩的源文件或目录
+     * @return 压缩文件
+     * @throws InstrumentException IO异常
+     */
+    public static File zipParallel(File zipFile, java.nio.charset.Charset charset, boolean withSrcDir, FileFilter filter,
+                                   int level, int threads, StreamProgress progress, File... srcFiles) throws InstrumentException {
+        validateFiles(zipFile, srcFiles);
+        return new ParallelZipper(charset, level, threads, ParallelZipper.DEFAULT_CHUNK_SIZE, progress)
+                .zip(zipFile, withSrcDir, filter, srcFiles);
+    }
+
     /**
      * 递归压缩文件夹
      * srcRootDir决定了路径截取的位置
@@ -486,6 +524,33 @@ public class ZipKit {
         return outFile;
     }
 
+    /**
+     * 并行解压,使用CPU核数个线程
+     *
+     * @param zipFile zip文件
+     * @param outFile 解压到的目录
+     * @return 解压的目录
+     * @throws InstrumentException IO异常
+     */
+    public static File unzipParallel(File zipFile, File outFile) throws InstrumentException {
+        return unzipParallel(zipFile, outFile, DEFAULT_CHARSET, 0, null);
+    }
+
+    /**
+     * 并行解压,各文件条目在多个线程中解压,通过内存映射写出
+     *
+     * @param zipFile  zip文件
+     * @param outFile  解压到的目录
+     * @param charset  编码
+     * @param threads  解压线程数,小于1时使用CPU核数
+     * @param progress 进度条,回调已解压的大小,可以为{@code null}
+     * @return 解压的目录
+     * @throws InstrumentException IO异常
+     */
+    public static File unzipParallel(File zipFile, File outFile, java.nio.charset.Charset charset, int threads, StreamProgress progress) throws InstrumentException {
+        return new ParallelUnzipper(charset, threads, progress).unzip(zipFile, outFile);
+    }
+
     /**
      * 解压
      *
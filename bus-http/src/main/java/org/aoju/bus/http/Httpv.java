@@ -36,6 +36,7 @@ import org.aoju.bus.http.socket.WebSocket;
 import org.aoju.bus.http.socket.WebSocketCover;
 import org.aoju.bus.http.socket.WebSocketListener;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.nio.charset.Charset;
@@ -107,6 +108,18 @@ public class Httpv {
         return new SyncHttp(this, urlPath(url, false));
     }
 
+    /**
+     * 分段并行下载文件
+     *
+     * @param url      下载地址
+     * @param file     下载到的文件
+     * @param segments 并行的段数
+     * @return 下载过程 #Download
+     */
+    public Download download(String url, File file, int segments) {
+        return executor.download(httpd, new Request.Builder().url(urlPath(url, false)).build(), file, segments);
+    }
+
     public WebSocketCover webSocket(String url) {
         return new WebSocketCover(this, urlPath(url, true));
     }
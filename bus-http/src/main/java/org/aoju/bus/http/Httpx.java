@@ -35,6 +35,7 @@ import org.aoju.bus.http.bodys.FormBody;
 import org.aoju.bus.http.bodys.MultipartBody;
 import org.aoju.bus.http.bodys.RequestBody;
 import org.aoju.bus.http.magic.HttpProxy;
+import org.aoju.bus.http.metric.CachingDns;
 import org.aoju.bus.http.metric.Dispatcher;
 import org.aoju.bus.http.secure.X509TrustManager;
 import org.aoju.bus.logger.Logger;
@@ -123,7 +124,7 @@ public class Httpx {
     /**
      * 构建一个自定义配置的 HTTP Client 类
      *
-     * @param dns                DNS 信息
+     * @param dns                DNS 信息,可传入{@link CachingDns}缓存解析结果
      * @param httpProxy          代理信息
      * @param connTimeout        连接
      * @param readTimeout        读取
@@ -149,7 +150,7 @@ public class Httpx {
     /**
      * 构建一个自定义配置的 HTTP Client 类
      *
-     * @param dns                DNS 信息
+     * @param dns                DNS 信息,可传入{@link CachingDns}缓存解析结果
      * @param httpProxy          代理信息
      * @param connTimeout        连接
      * @param readTimeout        读取
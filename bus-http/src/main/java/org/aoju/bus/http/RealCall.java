@@ -248,6 +248,16 @@ public final class RealCall implements NewCall {
             }
         }
 
+        /**
+         * 调度器拒绝排队时通知调用失败,此时调用尚未进入运行队列
+         *
+         * @param e 失败原因
+         */
+        public void reject(IOException e) {
+            eventListener.callFailed(RealCall.this, e);
+            responseCallback.onFailure(RealCall.this, e);
+        }
+
         @Override
         protected void execute() {
             boolean signalledCallback = false;
@@ -25,9 +25,12 @@
 package org.aoju.bus.http.cache;
 
 import org.aoju.bus.core.io.*;
+import org.aoju.bus.core.lang.Algorithm;
+import org.aoju.bus.core.lang.Charset;
 import org.aoju.bus.core.lang.Header;
 import org.aoju.bus.core.lang.Http;
 import org.aoju.bus.core.lang.MediaType;
+import org.aoju.bus.core.lang.Normal;
 import org.aoju.bus.core.lang.Symbol;
 import org.aoju.bus.core.toolkit.IoKit;
 import org.aoju.bus.http.*;
@@ -45,11 +48,14 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.Flushable;
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 缓存HTTP和HTTPS对文件系统的响应，以便可以重用它们，从而节省时间和带宽.
@@ -64,12 +70,22 @@ public final class Cache implements Closeable, Flushable {
     private static final int ENTRY_METADATA = 0;
     private static final int ENTRY_BODY = 1;
     private static final int ENTRY_COUNT = 2;
-    final DiskLruCache cache;
+    /**
+     * 每个线程复用的MD5摘要
+     */
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance(Algorithm.MD5);
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    });
+    final ShardedDiskLruCache cache;
     int writeSuccessCount;
     int writeAbortCount;
-    private int networkCount;
-    private int hitCount;
-    private int requestCount;
+    private final AtomicInteger networkCount = new AtomicInteger();
+    private final AtomicInteger hitCount = new AtomicInteger();
+    private final AtomicInteger requestCount = new AtomicInteger();
     public final InternalCache internalCache = new InternalCache() {
 
         @Override
@@ -104,7 +120,7 @@ public final class Cache implements Closeable, Flushable {
     };
 
     /**
-     * 在{@code directory}中创建最多{@code maxSize}字节的缓存
+     * 在{@code directory}中创建最多{@code maxSize}字节的缓存，不分片
      *
      * @param directory 目录
      * @param maxSize   缓存的最大大小(以字节为单位)
@@ -113,12 +129,36 @@ public final class Cache implements Closeable, Flushable {
         this(directory, maxSize, FileSystem.SYSTEM);
     }
 
+    /**
+     * 在{@code directory}中创建最多{@code maxSize}字节的缓存，条目按键分布到{@code shardCount}个分片，
+     * 各分片独立加锁，容量平均分配；分片数变化时删除原有的缓存
+     *
+     * @param directory  目录
+     * @param maxSize    缓存的最大大小(以字节为单位)
+     * @param shardCount 分片数，为1时与单个{@link DiskLruCache}的目录结构相同
+     */
+    public Cache(File directory, long maxSize, int shardCount) {
+        this(directory, maxSize, shardCount, FileSystem.SYSTEM);
+    }
+
     Cache(File directory, long maxSize, FileSystem fileSystem) {
-        this.cache = DiskLruCache.create(fileSystem, directory, VERSION, ENTRY_COUNT, maxSize);
+        this(directory, maxSize, 1, fileSystem);
+    }
+
+    Cache(File directory, long maxSize, int shardCount, FileSystem fileSystem) {
+        this.cache = ShardedDiskLruCache.create(fileSystem, directory, VERSION, ENTRY_COUNT, maxSize, shardCount);
     }
 
     public static String key(UnoUrl url) {
-        return ByteString.encodeUtf8(url.toString()).md5().hex();
+        // 与 ByteString.encodeUtf8(url).md5().hex() 结果相同，复用摘要实例，省去中间对象
+        byte[] hash = MD5.get().digest(url.toString().getBytes(Charset.UTF_8));
+        char[] result = new char[hash.length * 2];
+        int c = 0;
+        for (byte b : hash) {
+            result[c++] = Normal.DIGITS_16_LOWER[(b >> 4) & 0xf];
+            result[c++] = Normal.DIGITS_16_LOWER[b & 0xf];
+        }
+        return new String(result);
     }
 
     static int readInt(BufferSource source) throws IOException {
@@ -347,32 +387,32 @@ public final class Cache implements Closeable, Flushable {
         return cache.isClosed();
     }
 
-    synchronized void trackResponse(CacheStrategy cacheStrategy) {
-        requestCount++;
+    void trackResponse(CacheStrategy cacheStrategy) {
+        requestCount.incrementAndGet();
 
         if (cacheStrategy.networkRequest != null) {
             // 如果这是一个条件请求，我们将增加hitCount如果/当它命中。
-            networkCount++;
+            networkCount.incrementAndGet();
         } else if (cacheStrategy.cacheResponse != null) {
             // 此响应使用缓存而不是网络。这就是缓存命中
-            hitCount++;
+            hitCount.incrementAndGet();
         }
     }
 
-    synchronized void trackConditionalCacheHit() {
-        hitCount++;
+    void trackConditionalCacheHit() {
+        hitCount.incrementAndGet();
     }
 
-    public synchronized int networkCount() {
-        return networkCount;
+    public int networkCount() {
+        return networkCount.get();
     }
 
-    public synchronized int hitCount() {
-        return hitCount;
+    public int hitCount() {
+        return hitCount.get();
     }
 
-    public synchronized int requestCount() {
-        return requestCount;
+    public int requestCount() {
+        return requestCount.get();
     }
 
     private static final class Entry {
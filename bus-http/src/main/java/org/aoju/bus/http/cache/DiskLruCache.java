@@ -28,6 +28,7 @@ import org.aoju.bus.core.io.FileSystem;
 import org.aoju.bus.core.io.*;
 import org.aoju.bus.core.lang.Normal;
 import org.aoju.bus.core.lang.Symbol;
+import org.aoju.bus.core.toolkit.FileKit;
 import org.aoju.bus.core.toolkit.IoKit;
 import org.aoju.bus.http.Builder;
 import org.aoju.bus.logger.Logger;
@@ -58,6 +59,10 @@ public final class DiskLruCache implements Closeable, Flushable {
     static final String MAGIC = "libcore.io.DiskLruCache";
     static final String VERSION_1 = Symbol.ONE;
     static final long ANY_SEQUENCE_NUMBER = -1;
+    /**
+     * 不小于此长度的文件使用内存映射读取
+     */
+    static final long MAP_THRESHOLD = 64 * 1024;
     static final Pattern LEGAL_KEY_PATTERN = Pattern.compile("[a-z0-9_-]{1,120}");
     private static final String CLEAN = "CLEAN";
     private static final String DIRTY = "DIRTY";
@@ -643,6 +648,29 @@ public final class DiskLruCache implements Closeable, Flushable {
         mostRecentTrimFailed = false;
     }
 
+    /**
+     * 打开缓存文件,本地文件系统上较大的文件使用内存映射读取
+     * Windows下被映射的文件无法删除或替换,因此不使用映射;无法解除映射的JVM上同样按流读取
+     *
+     * @param file   文件
+     * @param length 文件长度
+     * @return 数据源
+     * @throws FileNotFoundException 文件不存在
+     */
+    private Source source(File file, long length) throws FileNotFoundException {
+        if (fileSystem == FileSystem.SYSTEM && length >= MAP_THRESHOLD && !FileKit.isWindows()
+                && MappedSource.isSupported()) {
+            try {
+                return MappedSource.open(file);
+            } catch (FileNotFoundException e) {
+                throw e;
+            } catch (IOException e) {
+                // 映射失败时按流读取
+            }
+        }
+        return fileSystem.source(file);
+    }
+
     private void validateKey(String key) {
         Matcher matcher = LEGAL_KEY_PATTERN.matcher(key);
         if (!matcher.matches()) {
@@ -934,7 +962,7 @@ public final class DiskLruCache implements Closeable, Flushable {
             long[] lengths = this.lengths.clone();
             try {
                 for (int i = 0; i < valueCount; i++) {
-                    sources[i] = fileSystem.source(cleanFiles[i]);
+                    sources[i] = source(cleanFiles[i], lengths[i]);
                 }
                 return new Snapshot(key, sequenceNumber, sources, lengths);
             } catch (FileNotFoundException e) {
@@ -0,0 +1,158 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.http.cache;
+
+import org.aoju.bus.core.io.Buffer;
+import org.aoju.bus.core.io.Source;
+import org.aoju.bus.core.io.Timeout;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 以内存映射方式读取缓存文件
+ * 数据从页缓存直接复制到{@link Buffer}的分段中,不经过read系统调用和中间缓冲区;
+ * 缓存文件提交后不再原地修改,映射期间文件被替换或删除不影响已映射的内容;
+ * 关闭时立即解除映射,被淘汰的文件能及时释放磁盘空间,也不会累积映射数量,
+ * 读取与关闭互斥,其它线程的关闭会等待进行中的读取完成后再解除映射,
+ * 当前JVM无法解除映射时不使用映射
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+final class MappedSource implements Source {
+
+    /**
+     * 解除映射的方法, JDK 9及以上为Unsafe.invokeCleaner, JDK 8为DirectBuffer.cleaner().clean()
+     */
+    private static final Unmapper UNMAPPER = unmapper();
+
+    private MappedByteBuffer buffer;
+
+    private MappedSource(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * 映射整个文件
+     *
+     * @param file 文件
+     * @return 数据源
+     * @throws IOException 文件无法打开或映射
+     */
+    static Source open(File file) throws IOException {
+        if (null == UNMAPPER) {
+            throw new IOException("unmapping is not supported");
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            // 映射建立后即可关闭通道
+            return new MappedSource(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    @Override
+    public synchronized long read(Buffer sink, long byteCount) throws IOException {
+        if (byteCount < 0) throw new IllegalArgumentException("byteCount < 0: " + byteCount);
+        if (buffer == null) throw new IllegalStateException("closed");
+        if (!buffer.hasRemaining()) return -1;
+        if (byteCount == 0) return 0;
+
+        int toRead = (int) Math.min(byteCount, buffer.remaining());
+        int limit = buffer.limit();
+        buffer.limit(buffer.position() + toRead);
+        try {
+            sink.write(buffer);
+        } finally {
+            buffer.limit(limit);
+        }
+        return toRead;
+    }
+
+    @Override
+    public Timeout timeout() {
+        return Timeout.NONE;
+    }
+
+    @Override
+    public synchronized void close() {
+        final MappedByteBuffer mapped = buffer;
+        if (null == mapped) {
+            return;
+        }
+        buffer = null;
+        try {
+            UNMAPPER.unmap(mapped);
+        } catch (Throwable ignored) {
+            // 解除失败时映射随缓冲区被回收后释放
+        }
+    }
+
+    /**
+     * @return 当前JVM是否支持解除映射
+     */
+    static boolean isSupported() {
+        return null != UNMAPPER;
+    }
+
+    private static Unmapper unmapper() {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            final Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            final Object unsafe = field.get(null);
+            return buffer -> invokeCleaner.invoke(unsafe, buffer);
+        } catch (Throwable ignored) {
+            // JDK 8
+        }
+        try {
+            final Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            final Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return buffer -> {
+                final Object instance = cleaner.invoke(buffer);
+                if (null != instance) {
+                    clean.invoke(instance);
+                }
+            };
+        } catch (Throwable ignored) {
+            return null;
+        }
+    }
+
+    private interface Unmapper {
+
+        void unmap(ByteBuffer buffer) throws Throwable;
+
+    }
+
+}
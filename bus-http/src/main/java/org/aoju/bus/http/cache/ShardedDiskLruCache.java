@@ -0,0 +1,294 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.http.cache;
+
+import org.aoju.bus.core.io.FileSystem;
+import org.aoju.bus.http.Builder;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 按键分片的磁盘缓存,每个分片是一个独立的{@link DiskLruCache},拥有各自的索引、锁和日志
+ * 不同分片上的读写互不阻塞;各分片的日志分别压缩,每次只重写一个分片的日志,
+ * 压缩任务在同一个后台线程中依次执行
+ * 容量平均分配给各分片,淘汰在分片内按LRU进行,单个条目不能超过分片的容量
+ * <pre>
+ *    分片数为1时直接使用缓存目录,与{@link DiskLruCache}的目录结构相同,初始化时删除以前分片遗留的子目录
+ *    分片数大于1时第i个分片位于子目录"分片数-i"中,初始化时删除单目录缓存及其它分片数遗留的文件
+ * </pre>
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+public final class ShardedDiskLruCache implements Closeable, Flushable {
+
+    /**
+     * 单目录缓存及其它分片数的缓存遗留的文件
+     */
+    private static final Pattern STALE_FILE_PATTERN = Pattern.compile(
+            "journal(\\.tmp|\\.bkp)?|[a-z0-9_-]{1,120}\\.\\d+(\\.tmp)?|\\d+-\\d+");
+    /**
+     * 分片子目录
+     */
+    private static final Pattern SHARD_DIRECTORY_PATTERN = Pattern.compile("\\d+-\\d+");
+
+    final FileSystem fileSystem;
+    final File directory;
+    private final DiskLruCache[] shards;
+    private volatile boolean initialized;
+
+    ShardedDiskLruCache(FileSystem fileSystem, File directory, int appVersion, int valueCount,
+                        long maxSize, int shardCount, Executor executor) {
+        this.fileSystem = fileSystem;
+        this.directory = directory;
+        this.shards = new DiskLruCache[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            File shardDirectory = shardCount == 1 ? directory : new File(directory, shardCount + "-" + i);
+            shards[i] = new DiskLruCache(fileSystem, shardDirectory, appVersion, valueCount,
+                    shardSize(maxSize, shardCount, i), executor);
+        }
+    }
+
+    /**
+     * 创建分片缓存
+     *
+     * @param fileSystem 文件系统
+     * @param directory  缓存目录
+     * @param appVersion 应用版本，版本变化时清空缓存
+     * @param valueCount 每个条目的值数量
+     * @param maxSize    全部分片的最大字节数
+     * @param shardCount 分片数
+     * @return 缓存
+     */
+    public static ShardedDiskLruCache create(FileSystem fileSystem, File directory, int appVersion,
+                                             int valueCount, long maxSize, int shardCount) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        if (valueCount <= 0) {
+            throw new IllegalArgumentException("valueCount <= 0");
+        }
+        if (shardCount <= 0 || shardCount > maxSize) {
+            throw new IllegalArgumentException("shardCount out of range: " + shardCount);
+        }
+
+        // 所有分片共用一个清理线程，日志压缩逐个分片进行
+        Executor executor = new ThreadPoolExecutor(0, 1, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), Builder.threadFactory("Httpd DiskLruCache", true));
+
+        return new ShardedDiskLruCache(fileSystem, directory, appVersion, valueCount, maxSize,
+                shardCount, executor);
+    }
+
+    private static long shardSize(long maxSize, int shardCount, int index) {
+        long size = maxSize / shardCount;
+        return index < maxSize % shardCount ? size + 1 : size;
+    }
+
+    /**
+     * 初始化全部分片
+     *
+     * @throws IOException 读取日志异常
+     */
+    public void initialize() throws IOException {
+        if (initialized) return;
+        synchronized (this) {
+            if (initialized) return;
+            deleteStaleFiles();
+            for (DiskLruCache shard : shards) {
+                shard.initialize();
+            }
+            initialized = true;
+        }
+    }
+
+    private void deleteStaleFiles() throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            String name = file.getName();
+            if (shards.length == 1) {
+                // 缓存目录本身就是唯一的分片,只删除以前分片遗留的子目录
+                if (!file.isDirectory() || !SHARD_DIRECTORY_PATTERN.matcher(name).matches()) {
+                    continue;
+                }
+            } else if (!STALE_FILE_PATTERN.matcher(name).matches() || name.startsWith(shards.length + "-")) {
+                continue;
+            }
+            if (file.isDirectory()) {
+                fileSystem.deleteContents(file);
+            }
+            fileSystem.delete(file);
+        }
+    }
+
+    /**
+     * @param key 键
+     * @return 键所在的分片
+     * @throws IOException 初始化异常
+     */
+    DiskLruCache shard(String key) throws IOException {
+        initialize();
+        if (shards.length == 1) return shards[0];
+        int h = key.hashCode();
+        return shards[((h ^ (h >>> 16)) & Integer.MAX_VALUE) % shards.length];
+    }
+
+    public DiskLruCache.Snapshot get(String key) throws IOException {
+        return shard(key).get(key);
+    }
+
+    public DiskLruCache.Editor edit(String key) throws IOException {
+        return shard(key).edit(key);
+    }
+
+    public boolean remove(String key) throws IOException {
+        return shard(key).remove(key);
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    public long getMaxSize() {
+        long result = 0;
+        for (DiskLruCache shard : shards) {
+            result += shard.getMaxSize();
+        }
+        return result;
+    }
+
+    public void setMaxSize(long maxSize) {
+        for (int i = 0; i < shards.length; i++) {
+            shards[i].setMaxSize(shardSize(maxSize, shards.length, i));
+        }
+    }
+
+    public long size() throws IOException {
+        long result = 0;
+        for (DiskLruCache shard : shards) {
+            result += shard.size();
+        }
+        return result;
+    }
+
+    public boolean isClosed() {
+        return shards[0].isClosed();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        for (DiskLruCache shard : shards) {
+            shard.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (DiskLruCache shard : shards) {
+            try {
+                shard.close();
+            } catch (IOException e) {
+                if (failure == null) failure = e;
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * 关闭缓存并删除缓存目录中的所有内容
+     *
+     * @throws IOException 删除异常
+     */
+    public void delete() throws IOException {
+        close();
+        fileSystem.deleteContents(directory);
+    }
+
+    public void evictAll() throws IOException {
+        for (DiskLruCache shard : shards) {
+            shard.evictAll();
+        }
+    }
+
+    /**
+     * 依次遍历各分片的快照，支持{@link Iterator#remove}
+     *
+     * @return 快照迭代器
+     * @throws IOException 初始化异常
+     */
+    public Iterator<DiskLruCache.Snapshot> snapshots() throws IOException {
+        initialize();
+        return new Iterator<DiskLruCache.Snapshot>() {
+            int index;
+            Iterator<DiskLruCache.Snapshot> current;
+            Iterator<DiskLruCache.Snapshot> removeFrom;
+
+            @Override
+            public boolean hasNext() {
+                while (current == null || !current.hasNext()) {
+                    if (index == shards.length) return false;
+                    try {
+                        current = shards[index++].snapshots();
+                    } catch (IOException e) {
+                        current = null;
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            public DiskLruCache.Snapshot next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                removeFrom = current;
+                return current.next();
+            }
+
+            @Override
+            public void remove() {
+                if (removeFrom == null) throw new IllegalStateException("remove() before next()");
+                removeFrom.remove();
+                removeFrom = null;
+            }
+        };
+    }
+
+}
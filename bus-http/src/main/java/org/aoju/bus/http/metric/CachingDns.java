@@ -0,0 +1,416 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.http.metric;
+
+import org.aoju.bus.http.DnsX;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带缓存的DNS服务,可以包装任意{@link DnsX},例如{@link DnsX#SYSTEM}或{@link DnsOverHttps}
+ * <pre>
+ *    1. 解析成功的结果按正向TTL缓存,解析失败按负向TTL缓存
+ *    2. 缓存即将过期时若仍被访问,在后台提前刷新,调用方继续使用旧结果
+ *    3. 同一主机名同时只有一个解析在进行,其它调用方等待同一结果
+ *    4. 记录命中、未命中、刷新、失败次数及解析耗时
+ * </pre>
+ * A与AAAA记录是否并行查询取决于被包装的服务：{@link DnsOverHttps}并行发出两种查询,
+ * 系统解析一次调用同时返回两种地址
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+public final class CachingDns implements DnsX {
+
+    private final DnsX delegate;
+    private final long positiveTtlNanos;
+    private final long negativeTtlNanos;
+    private final long refreshAheadNanos;
+    private final int maxEntries;
+    private final Executor executor;
+
+    private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Entry>> inflight = new ConcurrentHashMap<>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder negativeHitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder refreshCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final LongAdder lookupCount = new LongAdder();
+    private final LongAdder lookupNanos = new LongAdder();
+
+    CachingDns(Builder builder) {
+        if (builder.dns == null) {
+            throw new NullPointerException("dns == null");
+        }
+        this.delegate = builder.dns;
+        this.positiveTtlNanos = builder.positiveTtlNanos;
+        this.negativeTtlNanos = builder.negativeTtlNanos;
+        this.refreshAheadNanos = Math.min(builder.refreshAheadNanos, builder.positiveTtlNanos);
+        this.maxEntries = builder.maxEntries;
+        if (builder.executor != null) {
+            this.executor = builder.executor;
+        } else {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(4, 4, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), org.aoju.bus.http.Builder.threadFactory("Httpd CachingDns", true));
+            executor.allowCoreThreadTimeOut(true);
+            this.executor = executor;
+        }
+    }
+
+    @Override
+    public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+        if (hostname == null) throw new UnknownHostException("hostname == null");
+
+        final long now = System.nanoTime();
+        final Entry entry = cache.get(hostname);
+        if (entry != null && now - entry.expiresAt < 0) {
+            if (entry.failure != null) {
+                negativeHitCount.increment();
+                throw failure(hostname, entry.failure);
+            }
+            hitCount.increment();
+            // 访问到即将过期的条目,说明仍在使用,后台提前刷新
+            if (now - entry.refreshAt >= 0 && entry.refreshing.compareAndSet(false, true)) {
+                refreshCount.increment();
+                executor.execute(() -> resolve(hostname, true));
+            }
+            return entry.addresses;
+        }
+
+        missCount.increment();
+        final Entry resolved = resolve(hostname, false);
+        if (resolved.failure != null) {
+            throw failure(hostname, resolved.failure);
+        }
+        return resolved.addresses;
+    }
+
+    /**
+     * 在后台预先解析主机名,用于预热缓存
+     *
+     * @param hostnames 主机名
+     */
+    public void prefetch(String... hostnames) {
+        for (String hostname : hostnames) {
+            if (hostname != null && !cache.containsKey(hostname)) {
+                executor.execute(() -> resolve(hostname, false));
+            }
+        }
+    }
+
+    /**
+     * 移除主机名的缓存
+     *
+     * @param hostname 主机名
+     */
+    public void invalidate(String hostname) {
+        cache.remove(hostname);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void evictAll() {
+        cache.clear();
+    }
+
+    /**
+     * 解析主机名,同一主机名同时只有一个解析在进行
+     *
+     * @param hostname 主机名
+     * @param refresh  是否为提前刷新,刷新失败时保留原有结果至过期
+     * @return 解析结果
+     */
+    private Entry resolve(String hostname, boolean refresh) {
+        final CompletableFuture<Entry> future = new CompletableFuture<>();
+        final CompletableFuture<Entry> existing = inflight.putIfAbsent(hostname, future);
+        if (existing != null) {
+            return await(hostname, existing);
+        }
+
+        Entry entry;
+        try {
+            entry = query(hostname);
+            if (entry.failure == null || !refresh) {
+                put(hostname, entry);
+            } else {
+                entry = refreshFailed(hostname, entry);
+            }
+        } catch (RuntimeException e) {
+            entry = new Entry(null, unknownHost(hostname, e), System.nanoTime() + negativeTtlNanos, Long.MAX_VALUE);
+            if (refresh) {
+                entry = refreshFailed(hostname, entry);
+            }
+        } finally {
+            inflight.remove(hostname, future);
+        }
+        future.complete(entry);
+        return entry;
+    }
+
+    /**
+     * 提前刷新失败,保留原有结果至过期,并允许之后的访问再次刷新
+     *
+     * @param hostname 主机名
+     * @param failure  失败的解析结果
+     * @return 原有结果, 没有可用的原有结果时返回失败的结果
+     */
+    private Entry refreshFailed(String hostname, Entry failure) {
+        final Entry previous = cache.get(hostname);
+        if (previous == null || previous.failure != null) {
+            return failure;
+        }
+        previous.refreshing.set(false);
+        return previous;
+    }
+
+    /**
+     * 调用被包装的服务解析
+     *
+     * @param hostname 主机名
+     * @return 解析结果
+     */
+    private Entry query(String hostname) {
+        final long start = System.nanoTime();
+        try {
+            final List<InetAddress> addresses = delegate.lookup(hostname);
+            final long now = System.nanoTime();
+            record(now - start);
+            if (addresses == null || addresses.isEmpty()) {
+                failureCount.increment();
+                return new Entry(null, new UnknownHostException("No address for " + hostname),
+                        now + negativeTtlNanos, Long.MAX_VALUE);
+            }
+            return new Entry(Collections.unmodifiableList(new ArrayList<>(addresses)), null,
+                    now + positiveTtlNanos, now + positiveTtlNanos - refreshAheadNanos);
+        } catch (UnknownHostException e) {
+            final long now = System.nanoTime();
+            record(now - start);
+            failureCount.increment();
+            return new Entry(null, e, now + negativeTtlNanos, Long.MAX_VALUE);
+        }
+    }
+
+    private void record(long nanos) {
+        lookupCount.increment();
+        lookupNanos.add(nanos);
+    }
+
+    /**
+     * 放入缓存,超出容量时先清理过期条目,仍超出则随意移除部分条目
+     *
+     * @param hostname 主机名
+     * @param entry    解析结果
+     */
+    private void put(String hostname, Entry entry) {
+        if (cache.size() >= maxEntries && !cache.containsKey(hostname)) {
+            final long now = System.nanoTime();
+            cache.values().removeIf(e -> now - e.expiresAt >= 0);
+            final Iterator<String> it = cache.keySet().iterator();
+            while (cache.size() >= maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        cache.put(hostname, entry);
+    }
+
+    private static Entry await(String hostname, CompletableFuture<Entry> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Entry(null, unknownHost(hostname, e), 0, Long.MAX_VALUE);
+        } catch (ExecutionException e) {
+            return new Entry(null, unknownHost(hostname, e.getCause()), 0, Long.MAX_VALUE);
+        }
+    }
+
+    private static UnknownHostException unknownHost(String hostname, Throwable cause) {
+        final UnknownHostException exception = new UnknownHostException("Failed to resolve " + hostname);
+        exception.initCause(cause);
+        return exception;
+    }
+
+    /**
+     * 每次抛出新的异常,保留调用方的堆栈
+     *
+     * @param hostname 主机名
+     * @param cached   缓存的异常
+     * @return 异常
+     */
+    private static UnknownHostException failure(String hostname, UnknownHostException cached) {
+        final UnknownHostException exception = new UnknownHostException(
+                cached.getMessage() != null ? cached.getMessage() : hostname);
+        exception.initCause(cached.getCause() != null ? cached.getCause() : cached);
+        return exception;
+    }
+
+    public DnsX delegate() {
+        return delegate;
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    public long negativeHitCount() {
+        return negativeHitCount.sum();
+    }
+
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    public long refreshCount() {
+        return refreshCount.sum();
+    }
+
+    public long failureCount() {
+        return failureCount.sum();
+    }
+
+    /**
+     * @return 调用被包装服务的次数
+     */
+    public long lookupCount() {
+        return lookupCount.sum();
+    }
+
+    /**
+     * @return 调用被包装服务的总耗时(纳秒)
+     */
+    public long lookupNanos() {
+        return lookupNanos.sum();
+    }
+
+    /**
+     * @return 命中率, 包括负向命中
+     */
+    public double hitRate() {
+        final long hits = hitCount.sum() + negativeHitCount.sum();
+        final long total = hits + missCount.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * 缓存的解析结果
+     */
+    private static final class Entry {
+
+        final List<InetAddress> addresses;
+        final UnknownHostException failure;
+        final long expiresAt;
+        final long refreshAt;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(List<InetAddress> addresses, UnknownHostException failure, long expiresAt, long refreshAt) {
+            this.addresses = addresses;
+            this.failure = failure;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+        }
+    }
+
+    public static final class Builder {
+
+        DnsX dns = DnsX.SYSTEM;
+        long positiveTtlNanos = TimeUnit.SECONDS.toNanos(60);
+        long negativeTtlNanos = TimeUnit.SECONDS.toNanos(5);
+        long refreshAheadNanos = TimeUnit.SECONDS.toNanos(10);
+        int maxEntries = 1024;
+        Executor executor = null;
+
+        public Builder() {
+        }
+
+        public CachingDns build() {
+            return new CachingDns(this);
+        }
+
+        /**
+         * @param dns 被包装的DNS服务,默认为{@link DnsX#SYSTEM}
+         * @return this
+         */
+        public Builder dns(DnsX dns) {
+            this.dns = dns;
+            return this;
+        }
+
+        public Builder positiveTtl(long ttl, TimeUnit unit) {
+            this.positiveTtlNanos = unit.toNanos(ttl);
+            return this;
+        }
+
+        public Builder negativeTtl(long ttl, TimeUnit unit) {
+            this.negativeTtlNanos = unit.toNanos(ttl);
+            return this;
+        }
+
+        /**
+         * @param time 过期前多久开始提前刷新,0表示不提前刷新
+         * @param unit 时间单位
+         * @return this
+         */
+        public Builder refreshAhead(long time, TimeUnit unit) {
+            this.refreshAheadNanos = unit.toNanos(time);
+            return this;
+        }
+
+        public Builder maxEntries(int maxEntries) {
+            if (maxEntries <= 0) {
+                throw new IllegalArgumentException("maxEntries <= 0");
+            }
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * @param executor 执行提前刷新与预解析的线程池
+         * @return this
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+    }
+
+}
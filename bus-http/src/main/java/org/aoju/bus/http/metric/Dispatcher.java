@@ -29,16 +29,23 @@ import org.aoju.bus.http.NewCall;
 import org.aoju.bus.http.RealCall;
 import org.aoju.bus.http.RealCall.AsyncCall;
 
+import java.io.InterruptedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 
 /**
  * 关于何时执行异步请求的策略
  * 每个dispatcher使用一个{@link ExecutorService}在内部运行调用。
  * 如果您提供自己的执行程序，它应该能够并发地运行{@linkplain #getMaxRequests 配置的最大调用数}
+ * <pre>
+ *    1. 默认按需创建线程,空闲60秒后回收
+ *    2. {@link #ofVirtualThreads()} 运行时支持虚拟线程(JDK 21+)时每个调用一个虚拟线程,否则同默认
+ *    3. {@link #ofBoundedPool(int, int)} 固定数量的线程,等待队列有上限,队列满时拒绝新的调用
+ * </pre>
+ * 等待的调用按主机分组,各主机轮流获得执行机会,某个主机的大量请求不会阻塞其它主机;
+ * 开启{@linkplain #setFairShare 公平分配}后,每个主机的并发上限随活跃主机数调整
  *
  * @author Kimi Liu
  * @version 6.0.8
@@ -47,9 +54,18 @@ import java.util.concurrent.TimeUnit;
 public final class Dispatcher {
 
     /**
-     * 准备异步调用的顺序，他们将被运行
+     * JDK 21+ 的{@code Executors.newVirtualThreadPerTaskExecutor()}
      */
-    private final Deque<AsyncCall> readyAsyncCalls = new ArrayDeque<>();
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = virtualThreadExecutorMethod();
+
+    /**
+     * 有调用在排队或运行的主机
+     */
+    private final Map<String, Host> hosts = new HashMap<>();
+    /**
+     * 有调用在排队的主机，按轮转顺序排列
+     */
+    private final Deque<Host> readyHosts = new ArrayDeque<>();
     /**
      * 运行异步调用。包括尚未结束的已取消调用
      */
@@ -58,8 +74,11 @@ public final class Dispatcher {
      * 运行同步调用。包括尚未结束的已取消调用
      */
     private final Deque<RealCall> runningSyncCalls = new ArrayDeque<>();
+    private int readyCallsCount;
     private int maxRequests = 64;
     private int maxRequestsPerHost = 5;
+    private int maxQueuedRequests = Integer.MAX_VALUE;
+    private boolean fairShare;
     private Runnable idleCallback;
     /**
      * 执行调用
@@ -73,6 +92,87 @@ public final class Dispatcher {
     public Dispatcher() {
     }
 
+    /**
+     * 每个调用使用一个虚拟线程的调度器，运行时不支持虚拟线程时使用默认的线程池
+     *
+     * @return 调度器
+     */
+    public static Dispatcher ofVirtualThreads() {
+        return new Dispatcher(virtualThreadExecutor());
+    }
+
+    /**
+     * 固定线程数的调度器，同时开启公平分配
+     *
+     * @param maxRequests       最大并发请求数，也是线程数
+     * @param maxQueuedRequests 最大排队请求数，超出时新的调用立即失败
+     * @return 调度器
+     */
+    public static Dispatcher ofBoundedPool(int maxRequests, int maxQueuedRequests) {
+        if (maxQueuedRequests < 0) {
+            throw new IllegalArgumentException("max < 0: " + maxQueuedRequests);
+        }
+        Dispatcher dispatcher = new Dispatcher(boundedExecutor(maxRequests));
+        dispatcher.maxRequests = maxRequests;
+        dispatcher.maxQueuedRequests = maxQueuedRequests;
+        dispatcher.fairShare = true;
+        return dispatcher;
+    }
+
+    /**
+     * @return 运行时是否支持虚拟线程
+     */
+    public static boolean isVirtualThreadSupported() {
+        ExecutorService executor = virtualThreadExecutor();
+        if (executor == null) {
+            return false;
+        }
+        executor.shutdown();
+        return true;
+    }
+
+    /**
+     * 每个任务一个虚拟线程的执行器
+     *
+     * @return 执行器，运行时不支持虚拟线程时返回{@code null}
+     */
+    public static ExecutorService virtualThreadExecutor() {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            // JDK 19、20 未开启预览特性时不可用
+            return null;
+        }
+    }
+
+    /**
+     * 固定线程数的执行器，空闲线程60秒后回收
+     * 调度器不会同时提交超过{@linkplain #getMaxRequests 最大请求数}的调用，线程数与其一致即可
+     *
+     * @param threads 线程数
+     * @return 执行器
+     */
+    public static ExecutorService boundedExecutor(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads < 1: " + threads);
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), Builder.threadFactory("Httpd Dispatcher", false));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static Method virtualThreadExecutorMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
     public synchronized ExecutorService executorService() {
         if (executorService == null) {
             executorService = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
@@ -109,6 +209,7 @@ public final class Dispatcher {
      * 设置每个主机并发执行的最大请求数。这将根据URL的主机名限制请求。
      * 注意，对单个IP地址的并发请求仍然可能超过这个限制:多个主机名可能共享一个IP地址，或者通过相同的HTTP代理进行路由
      * 如果在调用它时有超过{@code maxRequestsPerHost}的请求在运行，那么这些请求将保持运行状态
+     * 开启公平分配时，这是每个主机至少可以使用的并发数
      *
      * @param maxRequestsPerHost 最大请求数
      */
@@ -122,6 +223,47 @@ public final class Dispatcher {
         promoteAndExecute();
     }
 
+    public synchronized boolean isFairShare() {
+        return fairShare;
+    }
+
+    /**
+     * 设置是否按活跃主机数分配并发数。开启后每个主机的并发上限为
+     * {@code max(maxRequestsPerHost, ceil(maxRequests / 活跃主机数))}，
+     * 只访问一个主机时可以使用全部并发数，多个主机同时访问时平均分配
+     *
+     * @param fairShare 是否开启
+     */
+    public void setFairShare(boolean fairShare) {
+        synchronized (this) {
+            this.fairShare = fairShare;
+        }
+        promoteAndExecute();
+    }
+
+    public synchronized int getMaxQueuedRequests() {
+        return maxQueuedRequests;
+    }
+
+    /**
+     * 设置排队等待的最大异步请求数。队列已满且新的调用无法立即执行时，该调用立即以{@link InterruptedIOException}失败，
+     * 调用方可以据此降低请求速率；为0时不排队，只接受能立即执行的调用
+     *
+     * @param maxQueuedRequests 最大排队请求数
+     */
+    public synchronized void setMaxQueuedRequests(int maxQueuedRequests) {
+        if (maxQueuedRequests < 0) {
+            throw new IllegalArgumentException("max < 0: " + maxQueuedRequests);
+        }
+        this.maxQueuedRequests = maxQueuedRequests;
+    }
+
+    /**
+     * @return 排队队列是否已满且没有空闲的运行名额，为true时新的异步调用将被拒绝(不考虑单个主机的上限)
+     */
+    public synchronized boolean isSaturated() {
+        return readyCallsCount >= maxQueuedRequests && runningAsyncCalls.size() >= maxRequests;
+    }
 
     /**
      * 设置一个回调，以便每次调度程序变为空闲时调用(当运行的调用数量返回零时)
@@ -133,20 +275,55 @@ public final class Dispatcher {
     }
 
     public void enqueue(AsyncCall call) {
+        boolean rejected;
         synchronized (this) {
-            readyAsyncCalls.add(call);
+            // 能立即执行的调用不占用排队名额
+            rejected = readyCallsCount >= maxQueuedRequests && !canRunImmediately(call);
+            if (!rejected) {
+                Host host = hosts.computeIfAbsent(call.host(), Host::new);
+                if (host.readyCalls.isEmpty()) {
+                    readyHosts.add(host);
+                }
+                host.readyCalls.add(call);
+                readyCallsCount++;
+            }
+        }
+        if (rejected) {
+            call.reject(new InterruptedIOException("dispatcher queue full"));
+            return;
         }
         promoteAndExecute();
     }
 
+    /**
+     * 调用加入后是否会被{@link #promoteAndExecute()}立即提升：仍有空闲的运行名额，
+     * 且所属主机没有排队的调用、未达到主机上限
+     *
+     * @param call 异步调用
+     * @return 是否能立即执行
+     */
+    private boolean canRunImmediately(AsyncCall call) {
+        if (runningAsyncCalls.size() >= maxRequests) {
+            return false;
+        }
+        Host host = hosts.get(call.host());
+        if (host == null) {
+            return true;
+        }
+        return host.readyCalls.isEmpty()
+                && (call.get().forWebSocket || host.runningCalls < maxRequestsPerHost());
+    }
+
     /**
      * 取消当前排队或执行的所有调用。包括同步执行的
      * {@linkplain NewCall#execute()}和异步
      * 执行的{@linkplain NewCall#enqueue}。
      */
     public synchronized void cancelAll() {
-        for (AsyncCall call : readyAsyncCalls) {
-            call.get().cancel();
+        for (Host host : readyHosts) {
+            for (AsyncCall call : host.readyCalls) {
+                call.get().cancel();
+            }
         }
 
         for (AsyncCall call : runningAsyncCalls) {
@@ -159,8 +336,9 @@ public final class Dispatcher {
     }
 
     /**
-     * 将符合条件的调用从{@link #readyAsyncCalls}提升到{@link #runningAsyncCalls}，
+     * 将符合条件的调用从等待队列提升到{@link #runningAsyncCalls}，
      * 并在executor服务上运行它们。必须不与同步调用，因为执行调用可以调用到用户代码
+     * 各主机轮流提升一个调用，达到主机上限的主机暂时跳过
      *
      * @return 如果调度程序当前正在运行调用，则为true
      */
@@ -170,15 +348,31 @@ public final class Dispatcher {
         List<AsyncCall> executableCalls = new ArrayList<>();
         boolean isRunning;
         synchronized (this) {
-            for (Iterator<AsyncCall> i = readyAsyncCalls.iterator(); i.hasNext(); ) {
-                AsyncCall asyncCall = i.next();
-
-                if (runningAsyncCalls.size() >= maxRequests) break; // Max capacity.
-                if (runningCallsForHost(asyncCall) >= maxRequestsPerHost) continue; // Host max capacity.
-
-                i.remove();
+            int limit = maxRequestsPerHost();
+            int skipped = 0;
+            while (runningAsyncCalls.size() < maxRequests && skipped < readyHosts.size()) {
+                Host host = readyHosts.poll();
+                if (host.runningCalls >= limit) {
+                    // Host max capacity.
+                    readyHosts.add(host);
+                    skipped++;
+                    continue;
+                }
+
+                AsyncCall asyncCall = host.readyCalls.poll();
+                readyCallsCount--;
+                if (!asyncCall.get().forWebSocket) {
+                    host.runningCalls++;
+                }
                 executableCalls.add(asyncCall);
                 runningAsyncCalls.add(asyncCall);
+
+                if (!host.readyCalls.isEmpty()) {
+                    readyHosts.add(host);
+                } else if (host.runningCalls == 0) {
+                    hosts.remove(host.name);
+                }
+                skipped = 0;
             }
             isRunning = runningCallsCount() > 0;
         }
@@ -192,16 +386,14 @@ public final class Dispatcher {
     }
 
     /**
-     * @param call 回调信息
-     * @return 与{@code call}共享主机的运行调用的数量
+     * @return 当前每个主机的并发上限
      */
-    private int runningCallsForHost(AsyncCall call) {
-        int result = 0;
-        for (AsyncCall c : runningAsyncCalls) {
-            if (c.get().forWebSocket) continue;
-            if (c.host().equals(call.host())) result++;
+    private int maxRequestsPerHost() {
+        if (!fairShare || hosts.isEmpty()) {
+            return maxRequestsPerHost;
         }
-        return result;
+        int share = (maxRequests + hosts.size() - 1) / hosts.size();
+        return Math.max(maxRequestsPerHost, share);
     }
 
     public synchronized void executed(RealCall call) {
@@ -209,20 +401,33 @@ public final class Dispatcher {
     }
 
     public void finished(AsyncCall call) {
-        finished(runningAsyncCalls, call);
-    }
+        Runnable idleCallback;
+        synchronized (this) {
+            if (!runningAsyncCalls.remove(call)) throw new AssertionError("Call wasn't in-flight!");
+            Host host = hosts.get(call.host());
+            if (host != null && !call.get().forWebSocket) {
+                host.runningCalls--;
+                if (host.runningCalls == 0 && host.readyCalls.isEmpty()) {
+                    hosts.remove(host.name);
+                }
+            }
+            idleCallback = this.idleCallback;
+        }
 
-    public void finished(RealCall call) {
-        finished(runningSyncCalls, call);
+        idle(idleCallback);
     }
 
-    private <T> void finished(Deque<T> calls, T call) {
+    public void finished(RealCall call) {
         Runnable idleCallback;
         synchronized (this) {
-            if (!calls.remove(call)) throw new AssertionError("Call wasn't in-flight!");
+            if (!runningSyncCalls.remove(call)) throw new AssertionError("Call wasn't in-flight!");
             idleCallback = this.idleCallback;
         }
 
+        idle(idleCallback);
+    }
+
+    private void idle(Runnable idleCallback) {
         boolean isRunning = promoteAndExecute();
 
         if (!isRunning && idleCallback != null) {
@@ -232,8 +437,10 @@ public final class Dispatcher {
 
     public synchronized List<NewCall> queuedCalls() {
         List<NewCall> result = new ArrayList<>();
-        for (AsyncCall asyncCall : readyAsyncCalls) {
-            result.add(asyncCall.get());
+        for (Host host : readyHosts) {
+            for (AsyncCall asyncCall : host.readyCalls) {
+                result.add(asyncCall.get());
+            }
         }
         return Collections.unmodifiableList(result);
     }
@@ -248,11 +455,28 @@ public final class Dispatcher {
     }
 
     public synchronized int queuedCallsCount() {
-        return readyAsyncCalls.size();
+        return readyCallsCount;
     }
 
     public synchronized int runningCallsCount() {
         return runningAsyncCalls.size() + runningSyncCalls.size();
     }
 
+    /**
+     * 单个主机的排队调用及运行中的调用数
+     */
+    private static final class Host {
+
+        final String name;
+        final Deque<AsyncCall> readyCalls = new ArrayDeque<>();
+        /**
+         * 运行中的调用数，不含WebSocket调用
+         */
+        int runningCalls;
+
+        Host(String name) {
+            this.name = name;
+        }
+    }
+
 }
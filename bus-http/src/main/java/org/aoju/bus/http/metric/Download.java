@@ -24,15 +24,33 @@
  ********************************************************************************/
 package org.aoju.bus.http.metric;
 
+import org.aoju.bus.core.lang.Header;
 import org.aoju.bus.core.lang.exception.InstrumentException;
 import org.aoju.bus.core.toolkit.IoKit;
+import org.aoju.bus.http.Httpd;
 import org.aoju.bus.http.OnBack;
 import org.aoju.bus.http.Process;
+import org.aoju.bus.http.Request;
+import org.aoju.bus.http.Response;
+import org.aoju.bus.http.bodys.ResponseBody;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 文件下载
+ * <p>
+ * 除了从响应流顺序写入文件外,还支持分段并行下载：先以HEAD请求探测{@code Accept-Ranges}与{@code Content-Length},
+ * 再通过同一个{@link Httpd}并发发出多个{@code Range}请求,各段写入预分配文件的对应区域;
+ * 各段的进度记录在旁路的检查点文件中,中断后再次下载同一文件时从各段已完成的位置继续
  *
  * @author Kimi Liu
  * @version 6.0.8
@@ -40,6 +58,19 @@ import java.io.*;
  */
 public class Download {
 
+    /**
+     * 每段的最小大小
+     */
+    private static final long MIN_SEGMENT_SIZE = 1024 * 1024;
+    /**
+     * 检查点文件的后缀
+     */
+    private static final String CHECKPOINT_SUFFIX = ".segments";
+    /**
+     * 检查点的最小保存间隔(毫秒)
+     */
+    private static final long CHECKPOINT_INTERVAL = 1000;
+
     private final Object lock = new Object();
     protected boolean nextOnIO = false;
     private File file;
@@ -47,7 +78,8 @@ public class Download {
     private OnBack<File> onSuccess;
     private OnBack<Failure> onFailure;
     private TaskExecutor taskExecutor;
-    private long doneBytes;
+    private final AtomicLong doneBytes = new AtomicLong();
+    private volatile long totalBytes = -1;
     private int buffSize = 0;
     private long seekBytes = 0;
     private boolean appended;
@@ -57,6 +89,22 @@ public class Download {
 
     private Ctrl ctrl;
 
+    /**
+     * 分段下载使用的客户端及请求
+     */
+    private Httpd httpd;
+    private Request request;
+    private int segmentCount;
+    private List<Segment> segments;
+    private String validator;
+    private FileChannel channel;
+    private AtomicInteger runningSegments;
+    /**
+     * 有段收到了完整内容(200),放弃分段改为顺序下载
+     */
+    private volatile boolean fallback;
+    private volatile long checkpointAt;
+
     public Download(File file, InputStream input, TaskExecutor taskExecutor, long skipBytes) {
         this.file = file;
         this.input = input;
@@ -65,6 +113,24 @@ public class Download {
         this.ctrl = new Ctrl();
     }
 
+    /**
+     * 分段并行下载,服务端不支持Range请求或文件大小未知时退化为顺序下载
+     *
+     * @param file         下载到的文件
+     * @param httpd        发出请求的客户端
+     * @param request      下载请求
+     * @param segments     并行的段数
+     * @param taskExecutor 执行器,各段在其IO线程中下载
+     */
+    public Download(File file, Httpd httpd, Request request, int segments, TaskExecutor taskExecutor) {
+        this.file = file;
+        this.httpd = httpd;
+        this.request = request;
+        this.segmentCount = Math.max(1, segments);
+        this.taskExecutor = taskExecutor;
+        this.ctrl = new Ctrl();
+    }
+
     /**
      * 设置缓冲区大小，默认 2K（2048）
      *
@@ -145,6 +211,11 @@ public class Download {
         if (buffSize == 0) {
             buffSize = Process.DEFAULT_STEP_BYTES;
         }
+        if (null != httpd) {
+            status = Ctrl.STATUS__DOWNLOADING;
+            taskExecutor.execute(this::doRanged, true);
+            return ctrl;
+        }
         RandomAccessFile raFile = randomAccessFile();
         status = Ctrl.STATUS__DOWNLOADING;
         taskExecutor.execute(() -> {
@@ -172,16 +243,26 @@ public class Download {
         }
     }
 
+    /**
+     * 分段下载时打开目标文件,失败时由调用方按下载出错处理
+     *
+     * @return 目标文件
+     * @throws FileNotFoundException 文件无法打开
+     */
+    private RandomAccessFile openFile() throws FileNotFoundException {
+        return new RandomAccessFile(file, "rw");
+    }
+
     private void doDownload(RandomAccessFile raFile) {
         try {
             if (appended && seekBytes > 0) {
                 long length = raFile.length();
                 if (seekBytes <= length) {
                     raFile.seek(seekBytes);
-                    doneBytes = seekBytes;
+                    doneBytes.set(seekBytes);
                 } else {
                     raFile.seek(length);
-                    doneBytes = length;
+                    doneBytes.set(length);
                 }
             }
             while (status != Ctrl.STATUS__CANCELED && status != Ctrl.STATUS__DONE) {
@@ -190,7 +271,7 @@ public class Download {
                     int len = -1;
                     while ((len = input.read(buff)) != -1) {
                         raFile.write(buff, 0, len);
-                        doneBytes += len;
+                        doneBytes.addAndGet(len);
                         if (status == Ctrl.STATUS__CANCELED
                                 || status == Ctrl.STATUS__PAUSED) {
                             break;
@@ -227,6 +308,349 @@ public class Download {
         }
     }
 
+    /**
+     * 探测文件大小及是否支持Range请求,并分段下载
+     */
+    private void doRanged() {
+        try {
+            // 不接受压缩编码,使Content-Length为文件的实际大小
+            final Response head = httpd.newCall(request.newBuilder().head()
+                    .header(Header.ACCEPT_ENCODING, "identity").build()).execute();
+            final long length;
+            final boolean ranged;
+            try {
+                length = parseLength(head.header(Header.CONTENT_LENGTH));
+                ranged = head.isSuccessful() && "bytes".equalsIgnoreCase(head.header(Header.ACCEPT_RANGES));
+                validator = validator(head);
+            } finally {
+                head.close();
+            }
+            if (false == ranged || length <= 0) {
+                doSequential();
+                return;
+            }
+
+            totalBytes = length;
+            segments = loadCheckpoint(length);
+            if (null == segments) {
+                segments = split(length);
+            }
+            final RandomAccessFile raFile = openFile();
+            // 关闭通道时一并关闭文件
+            channel = raFile.getChannel();
+            if (raFile.length() != length) {
+                raFile.setLength(length);
+            }
+
+            final List<Segment> pending = new ArrayList<>();
+            for (Segment segment : segments) {
+                doneBytes.addAndGet(segment.done);
+                if (segment.done < segment.length) {
+                    pending.add(segment);
+                }
+            }
+            runningSegments = new AtomicInteger(pending.size());
+            if (pending.isEmpty()) {
+                finishRanged();
+                return;
+            }
+            for (Segment segment : pending) {
+                taskExecutor.execute(() -> doSegment(segment), true);
+            }
+        } catch (IOException | RuntimeException e) {
+            IoKit.close(channel);
+            onError(e);
+        }
+    }
+
+    /**
+     * 服务端不支持分段时,以普通GET请求顺序下载
+     *
+     * @throws IOException IO异常
+     */
+    private void doSequential() throws IOException {
+        final Response response = httpd.newCall(request).execute();
+        final ResponseBody body = response.body();
+        if (false == response.isSuccessful() || null == body) {
+            response.close();
+            throw new IOException("Unexpected response code " + response.code() + " for " + request.url());
+        }
+        if (body.contentLength() > 0) {
+            totalBytes = body.contentLength();
+        }
+        final RandomAccessFile raFile;
+        try {
+            raFile = openFile();
+        } catch (IOException e) {
+            response.close();
+            throw e;
+        }
+        input = body.byteStream();
+        appended = false;
+        doDownload(raFile);
+    }
+
+    /**
+     * 下载一段,暂停时关闭连接,恢复后从已完成的位置重新发出Range请求
+     *
+     * @param segment 段
+     */
+    private void doSegment(Segment segment) {
+        final byte[] buff = new byte[buffSize];
+        try {
+            while (segment.done < segment.length && false == fallback && awaitDownloading()) {
+                final long from = segment.start + segment.done;
+                final Request.Builder builder = request.newBuilder()
+                        .header("Range", "bytes=" + from + "-" + (segment.start + segment.length - 1));
+                if (null != validator) {
+                    // 文件已变化时服务端返回完整内容而非206
+                    builder.header("If-Range", validator);
+                }
+                try (Response response = httpd.newCall(builder.build()).execute()) {
+                    final ResponseBody body = response.body();
+                    if (response.code() == 200) {
+                        // 文件已变化或服务端忽略了Range,已下载的段不再可用,所有段结束后改为顺序下载
+                        fallback = true;
+                        break;
+                    }
+                    if (response.code() != 206 || null == body) {
+                        throw new IOException("Server did not honour range request for " + request.url() + ", response code " + response.code());
+                    }
+                    final InputStream in = body.byteStream();
+                    while (segment.done < segment.length && status == Ctrl.STATUS__DOWNLOADING && false == fallback) {
+                        final int len = in.read(buff, 0, (int) Math.min(buff.length, segment.length - segment.done));
+                        if (len == -1) {
+                            throw new IOException("Unexpected end of range response at " + (segment.start + segment.done));
+                        }
+                        final ByteBuffer buffer = ByteBuffer.wrap(buff, 0, len);
+                        long position = segment.start + segment.done;
+                        while (buffer.hasRemaining()) {
+                            position += channel.write(buffer, position);
+                        }
+                        segment.done += len;
+                        doneBytes.addAndGet(len);
+                        saveCheckpoint(false);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            onError(e);
+        } finally {
+            if (runningSegments.decrementAndGet() == 0) {
+                finishRanged();
+            }
+        }
+    }
+
+    /**
+     * 等待暂停结束
+     *
+     * @return 是否继续下载
+     */
+    private boolean awaitDownloading() {
+        synchronized (lock) {
+            while (status == Ctrl.STATUS__PAUSED) {
+                saveCheckpoint(true);
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return status == Ctrl.STATUS__DOWNLOADING;
+        }
+    }
+
+    /**
+     * 所有段结束后收尾：完成时删除检查点,取消时删除文件,出错时保留检查点以便继续
+     */
+    private void finishRanged() {
+        IoKit.close(channel);
+        if (fallback && status == Ctrl.STATUS__DOWNLOADING) {
+            fallbackSequential();
+            return;
+        }
+        synchronized (lock) {
+            if (status == Ctrl.STATUS__DOWNLOADING) {
+                status = Ctrl.STATUS__DONE;
+            }
+        }
+        final File checkpoint = checkpointFile();
+        if (status == Ctrl.STATUS__DONE) {
+            checkpoint.delete();
+            if (onSuccess != null) {
+                taskExecutor.execute(() -> onSuccess.on(file), sOnIO);
+            }
+        } else if (status == Ctrl.STATUS__CANCELED) {
+            checkpoint.delete();
+            file.delete();
+        } else {
+            saveCheckpoint(true);
+        }
+    }
+
+    /**
+     * 放弃已下载的段,清空文件后以普通GET请求重新顺序下载
+     */
+    private void fallbackSequential() {
+        checkpointFile().delete();
+        doneBytes.set(0);
+        totalBytes = -1;
+        try {
+            try (RandomAccessFile raFile = openFile()) {
+                raFile.setLength(0);
+            }
+            doSequential();
+        } catch (IOException | RuntimeException e) {
+            onError(e);
+        }
+    }
+
+    /**
+     * 取得用于If-Range的校验标识,弱ETag永远不会匹配(RFC 7233),此时改用Last-Modified
+     *
+     * @param head HEAD请求的响应
+     * @return 校验标识, 都没有时返回null
+     */
+    private static String validator(Response head) {
+        final String etag = head.header("ETag");
+        if (null != etag && false == etag.startsWith("W/")) {
+            return etag;
+        }
+        return head.header("Last-Modified");
+    }
+
+    /**
+     * 分段下载出错,只回调第一个错误
+     *
+     * @param e 异常,非IO异常包装为{@link IOException}
+     */
+    private void onError(Exception e) {
+        final IOException cause = e instanceof IOException ? (IOException) e : new IOException(e.getMessage(), e);
+        synchronized (lock) {
+            if (status == Ctrl.STATUS__ERROR || status == Ctrl.STATUS__CANCELED) {
+                return;
+            }
+            status = Ctrl.STATUS__ERROR;
+            lock.notifyAll();
+        }
+        if (onFailure != null) {
+            taskExecutor.execute(() -> onFailure.on(new Failure(cause)), fOnIO);
+        }
+    }
+
+    /**
+     * 按段数及最小段大小切分
+     *
+     * @param length 文件大小
+     * @return 段列表
+     */
+    private List<Segment> split(long length) {
+        final int count = (int) Math.max(1, Math.min(segmentCount, length / MIN_SEGMENT_SIZE));
+        final long size = length / count;
+        final List<Segment> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final long start = i * size;
+            list.add(new Segment(start, i == count - 1 ? length - start : size, 0));
+        }
+        return list;
+    }
+
+    private File checkpointFile() {
+        return new File(file.getPath() + CHECKPOINT_SUFFIX);
+    }
+
+    /**
+     * 读取检查点,文件大小或校验标识与服务端不一致时视为无效
+     *
+     * @param length 文件大小
+     * @return 段列表, 无有效检查点时返回null
+     */
+    private List<Segment> loadCheckpoint(long length) {
+        final File checkpoint = checkpointFile();
+        if (false == checkpoint.isFile() || file.length() != length) {
+            return null;
+        }
+        try {
+            final List<String> lines = Files.readAllLines(checkpoint.toPath(), StandardCharsets.UTF_8);
+            if (lines.size() < 3 || Long.parseLong(lines.get(0)) != length
+                    || false == lines.get(1).equals(null == validator ? "" : validator)) {
+                return null;
+            }
+            final List<Segment> list = new ArrayList<>(lines.size() - 2);
+            for (String line : lines.subList(2, lines.size())) {
+                final String[] parts = line.split(",");
+                list.add(new Segment(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+            }
+            return list;
+        } catch (IOException | RuntimeException e) {
+            // 检查点损坏,重新下载
+            return null;
+        }
+    }
+
+    /**
+     * 保存检查点,先写临时文件再替换,未强制时限制保存频率
+     *
+     * @param force 是否强制保存
+     */
+    private void saveCheckpoint(boolean force) {
+        final long now = System.currentTimeMillis();
+        if (false == force && now - checkpointAt < CHECKPOINT_INTERVAL) {
+            return;
+        }
+        synchronized (this) {
+            if (false == force && now - checkpointAt < CHECKPOINT_INTERVAL) {
+                return;
+            }
+            checkpointAt = now;
+            final StringBuilder builder = new StringBuilder();
+            builder.append(totalBytes).append('\n').append(null == validator ? "" : validator).append('\n');
+            for (Segment segment : segments) {
+                builder.append(segment.start).append(',').append(segment.length).append(',').append(segment.done).append('\n');
+            }
+            final File checkpoint = checkpointFile();
+            final File temp = new File(checkpoint.getPath() + ".tmp");
+            try {
+                Files.write(temp.toPath(), builder.toString().getBytes(StandardCharsets.UTF_8));
+                Files.move(temp.toPath(), checkpoint.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // 检查点只用于断点续传,保存失败不影响本次下载
+            }
+        }
+    }
+
+    private static long parseLength(String value) {
+        if (null == value) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 下载的一段
+     */
+    private static class Segment {
+
+        final long start;
+        final long length;
+        /**
+         * 已完成的字节数,只由下载本段的线程修改
+         */
+        volatile long done;
+
+        Segment(long start, long length, long done) {
+            this.start = start;
+            this.length = length;
+            this.done = Math.min(done, length);
+        }
+    }
+
     public class Ctrl {
 
         /**
@@ -265,6 +689,20 @@ public class Download {
             return status;
         }
 
+        /**
+         * @return 已下载的字节数, 分段下载时为各段之和
+         */
+        public long doneBytes() {
+            return doneBytes.get();
+        }
+
+        /**
+         * @return 文件总字节数, 未知时为-1
+         */
+        public long totalBytes() {
+            return totalBytes;
+        }
+
         /**
          * 暂停下载任务
          */
@@ -283,6 +721,7 @@ public class Download {
             synchronized (lock) {
                 if (status == STATUS__PAUSED) {
                     status = STATUS__DOWNLOADING;
+                    lock.notifyAll();
                 }
             }
         }
@@ -294,6 +733,7 @@ public class Download {
             synchronized (lock) {
                 if (status == STATUS__PAUSED || status == STATUS__DOWNLOADING) {
                     status = STATUS__CANCELED;
+                    lock.notifyAll();
                 }
             }
         }
@@ -319,7 +759,7 @@ public class Download {
          * @return 已下载字节数
          */
         public long getDoneBytes() {
-            return doneBytes;
+            return doneBytes.get();
         }
 
         /**
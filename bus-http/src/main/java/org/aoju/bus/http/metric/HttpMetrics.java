@@ -0,0 +1,596 @@
+/*********************************************************************************
+ *                                                                               *
+ * The MIT License (MIT)                                                         *
+ *                                                                               *
+ * Copyright (c) 2015-2020 aoju.org and other contributors.                      *
+ *                                                                               *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy  *
+ * of this software and associated documentation files (the "Software"), to deal *
+ * in the Software without restriction, including without limitation the rights  *
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell     *
+ * copies of the Software, and to permit persons to whom the Software is         *
+ * furnished to do so, subject to the following conditions:                      *
+ *                                                                               *
+ * The above copyright notice and this permission notice shall be included in    *
+ * all copies or substantial portions of the Software.                           *
+ *                                                                               *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR    *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,      *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE   *
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER        *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, *
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN     *
+ * THE SOFTWARE.                                                                 *
+ ********************************************************************************/
+package org.aoju.bus.http.metric;
+
+import org.aoju.bus.http.Httpd;
+import org.aoju.bus.http.NewCall;
+import org.aoju.bus.http.Protocol;
+import org.aoju.bus.http.Request;
+import org.aoju.bus.http.Response;
+import org.aoju.bus.http.accord.Connection;
+import org.aoju.bus.http.accord.ConnectionPool;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于{@link EventListener}的HTTP调用度量
+ * <pre>
+ *    1. 按主机记录DNS、建连、TLS握手、请求写出、首字节(TTFB)、响应体读取及整个调用的耗时分布
+ *    2. 按主机记录连接获取次数与复用次数,以及建连失败、调用失败次数
+ *    3. 绑定{@link Httpd}后,快照中同时包含连接池的空闲/活动连接数和调度器的排队/运行数
+ * </pre>
+ * 耗时以微秒为单位记录在对数分桶的直方图中,每个2的幂区间再分8个子桶,相对误差不超过12.5%;
+ * 记录时只做一次无锁的计数累加,快照时才汇总分位数
+ * <pre>
+ *    HttpMetrics metrics = new HttpMetrics();
+ *    Httpd httpd = new Httpd.Builder().eventListenerFactory(metrics).build();
+ *    metrics.bind(httpd);
+ *    HttpMetrics.Snapshot snapshot = metrics.snapshot();
+ * </pre>
+ *
+ * @author Kimi Liu
+ * @version 6.0.8
+ * @since JDK 1.8+
+ */
+public final class HttpMetrics implements EventListener.Factory {
+
+    /**
+     * 超出主机数上限后,新主机的数据归入此名称下
+     */
+    public static final String OTHER_HOSTS = "*";
+
+    private final int maxHosts;
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+
+    private volatile ConnectionPool connectionPool;
+    private volatile Dispatcher dispatcher;
+
+    public HttpMetrics() {
+        this(256);
+    }
+
+    /**
+     * @param maxHosts 单独统计的最大主机数
+     */
+    public HttpMetrics(int maxHosts) {
+        if (maxHosts < 1) throw new IllegalArgumentException("maxHosts < 1: " + maxHosts);
+        this.maxHosts = maxHosts;
+    }
+
+    /**
+     * 关联客户端,快照时读取其连接池与调度器的状态
+     *
+     * @param httpd 客户端
+     * @return this
+     */
+    public HttpMetrics bind(Httpd httpd) {
+        this.connectionPool = httpd.connectionPool();
+        this.dispatcher = httpd.dispatcher();
+        return this;
+    }
+
+    @Override
+    public EventListener create(NewCall call) {
+        return new Tracker(call.request().url().host());
+    }
+
+    /**
+     * 当前的度量快照,不影响正在进行的记录
+     *
+     * @return 快照
+     */
+    public Snapshot snapshot() {
+        Map<String, HostSnapshot> result = new TreeMap<>();
+        for (Map.Entry<String, Host> entry : hosts.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().snapshot());
+        }
+
+        ConnectionPool pool = this.connectionPool;
+        Dispatcher dispatcher = this.dispatcher;
+        int idle = -1;
+        int total = -1;
+        if (pool != null) {
+            idle = pool.idleConnectionCount();
+            total = pool.connectionCount();
+        }
+        int queued = dispatcher != null ? dispatcher.queuedCallsCount() : -1;
+        int running = dispatcher != null ? dispatcher.runningCallsCount() : -1;
+        return new Snapshot(Collections.unmodifiableMap(result), idle, total, queued, running);
+    }
+
+    /**
+     * 清空已记录的数据
+     */
+    public void reset() {
+        hosts.clear();
+    }
+
+    private Host host(String name) {
+        Host host = hosts.get(name);
+        if (host != null) return host;
+        if (hosts.size() >= maxHosts) {
+            name = OTHER_HOSTS;
+        }
+        return hosts.computeIfAbsent(name, key -> new Host());
+    }
+
+    /**
+     * 统计的阶段
+     */
+    public enum Phase {
+        /**
+         * DNS解析
+         */
+        DNS,
+        /**
+         * 建立连接,包含TLS握手
+         */
+        CONNECT,
+        /**
+         * TLS握手
+         */
+        TLS,
+        /**
+         * 写出请求头和请求体
+         */
+        REQUEST,
+        /**
+         * 请求写出完毕到读完响应头
+         */
+        TTFB,
+        /**
+         * 读取响应体
+         */
+        RESPONSE_BODY,
+        /**
+         * 整个调用
+         */
+        CALL
+    }
+
+    /**
+     * 单个主机的累计数据
+     */
+    static final class Host {
+
+        final Histogram[] histograms = new Histogram[Phase.values().length];
+        final LongAdder acquired = new LongAdder();
+        final LongAdder reused = new LongAdder();
+        final LongAdder connectFailed = new LongAdder();
+        final LongAdder callFailed = new LongAdder();
+
+        Host() {
+            for (int i = 0; i < histograms.length; i++) {
+                histograms[i] = new Histogram();
+            }
+        }
+
+        void record(Phase phase, long startNanos, long endNanos) {
+            if (startNanos != 0) {
+                histograms[phase.ordinal()].record(endNanos - startNanos);
+            }
+        }
+
+        HostSnapshot snapshot() {
+            Map<Phase, Summary> phases = new EnumMap<>(Phase.class);
+            for (Phase phase : Phase.values()) {
+                phases.put(phase, histograms[phase.ordinal()].snapshot());
+            }
+            return new HostSnapshot(Collections.unmodifiableMap(phases), acquired.sum(),
+                    reused.sum(), connectFailed.sum(), callFailed.sum());
+        }
+    }
+
+    /**
+     * 对数分桶直方图,值以微秒计,小于16的值各占一个桶,
+     * 之后每个2的幂区间分为8个子桶
+     */
+    static final class Histogram {
+
+        static final int SUB_BUCKET_BITS = 3;
+        static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        static final int LINEAR = SUB_BUCKETS << 1;
+        static final int MAX_EXPONENT = 40;
+        static final int BUCKETS = LINEAR + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        final LongAdder sum = new LongAdder();
+        final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        static int index(long micros) {
+            if (micros < LINEAR) return (int) micros;
+            int exponent = 63 - Long.numberOfLeadingZeros(micros);
+            if (exponent > MAX_EXPONENT) return BUCKETS - 1;
+            int sub = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return LINEAR + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + sub;
+        }
+
+        /**
+         * 桶内的最大值
+         */
+        static long upperBound(int index) {
+            if (index < LINEAR) return index;
+            int exponent = (index - LINEAR) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+            int sub = (index - LINEAR) % SUB_BUCKETS;
+            return ((long) (SUB_BUCKETS + sub + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+        }
+
+        void record(long nanos) {
+            long micros = Math.max(0, nanos / 1000);
+            buckets.incrementAndGet(index(micros));
+            sum.add(micros);
+            max.accumulate(micros);
+        }
+
+        Summary snapshot() {
+            long[] counts = new long[BUCKETS];
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                count += counts[i];
+            }
+            return new Summary(counts, count, sum.sum(), max.get());
+        }
+    }
+
+    /**
+     * 单个阶段的耗时汇总,单位为微秒
+     */
+    public static final class Summary {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Summary(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long sum() {
+            return sum;
+        }
+
+        public long max() {
+            return max;
+        }
+
+        public double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * 分位数,返回所在桶的上界,不超过记录到的最大值
+         *
+         * @param quantile 0到1之间的分位
+         * @return 耗时,单位为微秒
+         */
+        public long percentile(double quantile) {
+            if (quantile < 0 || quantile > 1) {
+                throw new IllegalArgumentException("quantile out of range: " + quantile);
+            }
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(Histogram.upperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d mean=%.1fus p50=%dus p90=%dus p99=%dus max=%dus",
+                    count, mean(), percentile(0.5), percentile(0.9), percentile(0.99), max);
+        }
+    }
+
+    /**
+     * 单个主机的快照
+     */
+    public static final class HostSnapshot {
+
+        private final Map<Phase, Summary> phases;
+        private final long connectionsAcquired;
+        private final long connectionsReused;
+        private final long connectFailures;
+        private final long callFailures;
+
+        HostSnapshot(Map<Phase, Summary> phases, long connectionsAcquired, long connectionsReused,
+                     long connectFailures, long callFailures) {
+            this.phases = phases;
+            this.connectionsAcquired = connectionsAcquired;
+            this.connectionsReused = connectionsReused;
+            this.connectFailures = connectFailures;
+            this.callFailures = callFailures;
+        }
+
+        public Summary phase(Phase phase) {
+            return phases.get(phase);
+        }
+
+        public Map<Phase, Summary> phases() {
+            return phases;
+        }
+
+        public long connectionsAcquired() {
+            return connectionsAcquired;
+        }
+
+        public long connectionsReused() {
+            return connectionsReused;
+        }
+
+        /**
+         * 连接复用率,获取的连接中无需新建的比例
+         *
+         * @return 0到1之间的比例,尚未获取过连接时为0
+         */
+        public double reuseRatio() {
+            return connectionsAcquired == 0 ? 0 : (double) connectionsReused / connectionsAcquired;
+        }
+
+        public long connectFailures() {
+            return connectFailures;
+        }
+
+        public long callFailures() {
+            return callFailures;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append("acquired=").append(connectionsAcquired)
+                    .append(" reused=").append(connectionsReused)
+                    .append(" connectFailures=").append(connectFailures)
+                    .append(" callFailures=").append(callFailures);
+            for (Map.Entry<Phase, Summary> entry : phases.entrySet()) {
+                if (entry.getValue().count() > 0) {
+                    builder.append("\n  ").append(entry.getKey()).append(": ").append(entry.getValue());
+                }
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * 全部主机的快照及连接池、调度器状态
+     */
+    public static final class Snapshot {
+
+        private final Map<String, HostSnapshot> hosts;
+        private final int idleConnections;
+        private final int connections;
+        private final int queuedCalls;
+        private final int runningCalls;
+
+        Snapshot(Map<String, HostSnapshot> hosts, int idleConnections, int connections,
+                 int queuedCalls, int runningCalls) {
+            this.hosts = hosts;
+            this.idleConnections = idleConnections;
+            this.connections = connections;
+            this.queuedCalls = queuedCalls;
+            this.runningCalls = runningCalls;
+        }
+
+        /**
+         * @return 按主机名排序的快照
+         */
+        public Map<String, HostSnapshot> hosts() {
+            return hosts;
+        }
+
+        public HostSnapshot host(String host) {
+            return hosts.get(host);
+        }
+
+        /**
+         * @return 连接池中的空闲连接数,未绑定客户端时为-1
+         */
+        public int idleConnections() {
+            return idleConnections;
+        }
+
+        /**
+         * @return 连接池中正在使用的连接数,未绑定客户端时为-1
+         */
+        public int activeConnections() {
+            return connections < 0 ? -1 : connections - idleConnections;
+        }
+
+        /**
+         * @return 调度器中等待执行的异步调用数,未绑定客户端时为-1
+         */
+        public int queuedCalls() {
+            return queuedCalls;
+        }
+
+        /**
+         * @return 调度器中正在执行的调用数,未绑定客户端时为-1
+         */
+        public int runningCalls() {
+            return runningCalls;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append("pool idle=").append(idleConnections)
+                    .append(" active=").append(activeConnections())
+                    .append(", dispatcher queued=").append(queuedCalls)
+                    .append(" running=").append(runningCalls);
+            for (Map.Entry<String, HostSnapshot> entry : hosts.entrySet()) {
+                builder.append('\n').append(entry.getKey()).append(' ').append(entry.getValue());
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * 单个调用的监听器,只被该调用的线程访问,不需要同步
+     */
+    final class Tracker extends EventListener {
+
+        private String host;
+        private long callStart;
+        private long dnsStart;
+        private long connectStart;
+        private long secureConnectStart;
+        private long requestStart;
+        private long requestEnd;
+        private long responseBodyStart;
+        private boolean connected;
+
+        Tracker(String host) {
+            this.host = host;
+        }
+
+        @Override
+        public void callStart(NewCall call) {
+            callStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsStart(NewCall call, String domainName) {
+            dnsStart = System.nanoTime();
+        }
+
+        @Override
+        public void dnsEnd(NewCall call, String domainName, List<InetAddress> inetAddressList) {
+            host(domainName).record(Phase.DNS, dnsStart, System.nanoTime());
+        }
+
+        @Override
+        public void connectStart(NewCall call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectStart = System.nanoTime();
+            connected = true;
+        }
+
+        @Override
+        public void secureConnectStart(NewCall call) {
+            secureConnectStart = System.nanoTime();
+        }
+
+        @Override
+        public void secureConnectEnd(NewCall call, Handshake handshake) {
+            host(host).record(Phase.TLS, secureConnectStart, System.nanoTime());
+        }
+
+        @Override
+        public void connectEnd(NewCall call, InetSocketAddress inetSocketAddress, Proxy proxy,
+                               Protocol protocol) {
+            host(host).record(Phase.CONNECT, connectStart, System.nanoTime());
+        }
+
+        @Override
+        public void connectFailed(NewCall call, InetSocketAddress inetSocketAddress, Proxy proxy,
+                                  Protocol protocol, IOException ioe) {
+            host(host).connectFailed.increment();
+        }
+
+        @Override
+        public void connectionAcquired(NewCall call, Connection connection) {
+            host = connection.route().address().url().host();
+            Host stats = host(host);
+            stats.acquired.increment();
+            if (!connected) {
+                stats.reused.increment();
+            }
+            connected = false;
+        }
+
+        @Override
+        public void requestHeadersStart(NewCall call) {
+            requestStart = System.nanoTime();
+        }
+
+        @Override
+        public void requestHeadersEnd(NewCall call, Request request) {
+            host = request.url().host();
+            requestEnd = System.nanoTime();
+        }
+
+        @Override
+        public void requestBodyEnd(NewCall call, long byteCount) {
+            requestEnd = System.nanoTime();
+        }
+
+        @Override
+        public void responseHeadersEnd(NewCall call, Response response) {
+            long now = System.nanoTime();
+            Host stats = host(host);
+            if (requestEnd != 0) {
+                stats.record(Phase.REQUEST, requestStart, requestEnd);
+                stats.record(Phase.TTFB, requestEnd, now);
+            }
+            // 重定向或重试时同一调用会再次写出请求
+            requestStart = 0;
+            requestEnd = 0;
+        }
+
+        @Override
+        public void responseBodyStart(NewCall call) {
+            responseBodyStart = System.nanoTime();
+        }
+
+        @Override
+        public void responseBodyEnd(NewCall call, long byteCount) {
+            host(host).record(Phase.RESPONSE_BODY, responseBodyStart, System.nanoTime());
+            responseBodyStart = 0;
+        }
+
+        @Override
+        public void callEnd(NewCall call) {
+            host(host).record(Phase.CALL, callStart, System.nanoTime());
+        }
+
+        @Override
+        public void callFailed(NewCall call, IOException ioe) {
+            Host stats = host(host);
+            stats.callFailed.increment();
+            stats.record(Phase.CALL, callStart, System.nanoTime());
+        }
+    }
+
+}
@@ -25,7 +25,9 @@
 package org.aoju.bus.http.metric;
 
 import org.aoju.bus.core.lang.exception.InstrumentException;
+import org.aoju.bus.http.Httpd;
 import org.aoju.bus.http.OnBack;
+import org.aoju.bus.http.Request;
 import org.aoju.bus.http.Results;
 import org.aoju.bus.http.Results.State;
 import org.aoju.bus.http.metric.http.CoverHttp;
@@ -78,6 +80,10 @@ public final class TaskExecutor {
         return download;
     }
 
+    public Download download(Httpd httpd, Request request, File file, int segments) {
+        return new Download(file, httpd, request, segments, this);
+    }
+
     public void execute(Runnable command, boolean onIo) {
         Executor executor = ioExecutor;
         if (mainExecutor != null && !onIo) {